@@ -0,0 +1,106 @@
+package com.femi.orderservice.archive;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves DELIVERED orders older than {@code order.archive.min-age} from {@code orders} into
+ * {@code orders_archive}. Work is done in small chunks, each its own transaction, with a pause in
+ * between so the job never holds long locks or saturates the primary. Chunks are claimed with
+ * {@code SKIP LOCKED}, so several instances can run the job without stepping on each other. Each
+ * claim is a range scan on {@code (order_status, created_at, id)} that stops after one chunk.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "order.archive.enabled", havingValue = "true", matchIfMissing = true)
+public class OrderArchiver {
+
+    private static final String ORDER_COLUMNS = "id, buyer_id, product_id, seller_id, product_name, total_amount, " +
+            "quantity, payment_status, order_status, payment_session_id, created_at, updated_at, version";
+    private static final String ITEM_COLUMNS = "order_id, product_id, product_name, unit_price, quantity";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration minAge;
+    private final int chunkSize;
+    private final Duration pause;
+    private final int maxChunksPerRun;
+    private final Counter archivedCounter;
+
+    public OrderArchiver(NamedParameterJdbcTemplate jdbcTemplate,
+                         TransactionTemplate transactionTemplate,
+                         MeterRegistry meterRegistry,
+                         @Value("${order.archive.min-age:180d}") Duration minAge,
+                         @Value("${order.archive.chunk-size:500}") int chunkSize,
+                         @Value("${order.archive.pause:200ms}") Duration pause,
+                         @Value("${order.archive.max-chunks-per-run:2000}") int maxChunksPerRun) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.minAge = minAge;
+        this.chunkSize = chunkSize;
+        this.pause = pause;
+        this.maxChunksPerRun = maxChunksPerRun;
+        this.archivedCounter = meterRegistry.counter("order.archive.moved");
+    }
+
+    @Scheduled(cron = "${order.archive.cron:0 30 3 * * *}")
+    public void archive() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(minAge);
+        long total = 0;
+        try {
+            for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+                int moved = transactionTemplate.execute(status -> archiveChunk(cutoff));
+                total += moved;
+                archivedCounter.increment(moved);
+                if (moved < chunkSize) {
+                    break;
+                }
+                Thread.sleep(pause.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            log.warn("Order archival stopped after {} orders: {}", total, e.getMessage());
+        }
+        if (total > 0) {
+            log.info("Archived {} delivered orders created before {}", total, cutoff);
+        }
+    }
+
+    int archiveChunk(LocalDateTime cutoff) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("cutoff", Timestamp.valueOf(cutoff))
+                .addValue("limit", chunkSize);
+
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM orders WHERE order_status = 'DELIVERED' AND created_at < :cutoff " +
+                        "ORDER BY created_at, id LIMIT :limit FOR UPDATE SKIP LOCKED", params, Long.class);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        MapSqlParameterSource idParams = new MapSqlParameterSource()
+                .addValue("ids", ids)
+                .addValue("now", Timestamp.valueOf(LocalDateTime.now()));
+        jdbcTemplate.update("INSERT INTO orders_archive (" + ORDER_COLUMNS + ", archived_at) " +
+                "SELECT " + ORDER_COLUMNS + ", :now FROM orders WHERE id IN (:ids)", idParams);
+        jdbcTemplate.update("INSERT INTO order_items_archive (" + ITEM_COLUMNS + ") " +
+                "SELECT " + ITEM_COLUMNS + " FROM order_items WHERE order_id IN (:ids)", idParams);
+        jdbcTemplate.update("DELETE FROM order_items WHERE order_id IN (:ids)", idParams);
+        jdbcTemplate.update("DELETE FROM orders WHERE id IN (:ids)", idParams);
+        return ids.size();
+    }
+}
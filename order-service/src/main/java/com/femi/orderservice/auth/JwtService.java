@@ -10,6 +10,7 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.util.Base64;
+import java.util.Date;
 
 @Component
 @Slf4j
@@ -23,6 +24,18 @@ public class JwtService {
         return Keys.hmacShaKeyFor(keyBytes);
     }
 
+    // Short-lived token used when order-service calls other services on its own behalf
+    public String generateServiceToken() {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .subject("order-service")
+                .claim("role", "SERVICE")
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + 60_000))
+                .signWith(getSigningKey())
+                .compact();
+    }
+
     public Claims extractAllClaims(String token) {
         try {
             return Jwts.parser()
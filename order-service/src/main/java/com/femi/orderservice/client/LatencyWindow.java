@@ -0,0 +1,47 @@
+package com.femi.orderservice.client;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size ring of the most recent call latencies, used to pick the hedging delay. The
+ * percentile is recomputed every few samples rather than on every read.
+ */
+class LatencyWindow {
+
+    private static final int RECOMPUTE_EVERY = 16;
+
+    private final long[] samples;
+    private final double percentile;
+    private int next;
+    private int size;
+    private int sinceRecompute;
+    private long cached = -1;
+
+    LatencyWindow(int capacity, double percentile) {
+        this.samples = new long[capacity];
+        this.percentile = percentile;
+    }
+
+    synchronized void record(long millis) {
+        samples[next] = millis;
+        next = (next + 1) % samples.length;
+        size = Math.min(size + 1, samples.length);
+        if (++sinceRecompute >= RECOMPUTE_EVERY) {
+            cached = -1;
+        }
+    }
+
+    // -1 until enough samples have been seen to say anything useful
+    synchronized long percentileMillis() {
+        if (size < RECOMPUTE_EVERY) {
+            return -1;
+        }
+        if (cached < 0) {
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            cached = sorted[Math.min(size - 1, (int) Math.ceil(percentile * size) - 1)];
+            sinceRecompute = 0;
+        }
+        return cached;
+    }
+}
@@ -0,0 +1,80 @@
+package com.femi.orderservice.client;
+
+import com.femi.orderservice.dto.ProductDTO;
+import com.femi.orderservice.dto.StockReservationDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded near-cache of product snapshots. Entries are dropped when product-service reports a
+ * status, details or stock change; stock is only ever enforced by the reservation call.
+ */
+@Component
+@Slf4j
+public class ProductCache {
+
+    private final ProductLookupCoalescer productLookup;
+    private final Cache<Long, ProductDTO> cache;
+
+    public ProductCache(ProductLookupCoalescer productLookup,
+                        MeterRegistry meterRegistry,
+                        @Value("${product.cache.maximum-size:10000}") long maximumSize,
+                        @Value("${product.cache.ttl:30s}") Duration ttl) {
+        this.productLookup = productLookup;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "product-near-cache");
+    }
+
+    public Map<Long, ProductDTO> getProducts(Collection<Long> productIds) {
+        Map<Long, ProductDTO> products = new HashMap<>(cache.getAllPresent(productIds));
+
+        Set<Long> missing = productIds.stream()
+                .filter(productId -> !products.containsKey(productId))
+                .collect(Collectors.toSet());
+        if (!missing.isEmpty()) {
+            Map<Long, ProductDTO> loaded = productLookup.getProducts(missing);
+            loaded.values().stream()
+                    .filter(product -> !product.isStale())
+                    .forEach(product -> cache.put(product.getId(), product));
+            products.putAll(loaded);
+        }
+        return products;
+    }
+
+    // Reservations return authoritative price and stock, so cached entries are refreshed for free
+    public void refresh(List<StockReservationDTO> reservations) {
+        for (StockReservationDTO reservation : reservations) {
+            cache.asMap().computeIfPresent(reservation.getProductId(), (productId, cached) -> new ProductDTO(
+                    cached.getId(),
+                    reservation.getProductName(),
+                    reservation.getUnitPrice(),
+                    reservation.getRemainingStock(),
+                    cached.getSellerId(),
+                    cached.getSellerName(),
+                    cached.getCategory(),
+                    false));
+        }
+    }
+
+    public void invalidate(Collection<Long> productIds) {
+        cache.invalidateAll(productIds);
+        log.debug("Invalidated {} cached products", productIds.size());
+    }
+}
@@ -1,14 +1,43 @@
 package com.femi.orderservice.client;
 
 import com.femi.orderservice.dto.ProductDTO;
+import com.femi.orderservice.dto.StockReservationDTO;
+import com.femi.orderservice.dto.StockReservationRequestDTO;
+import feign.Request;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 
-@FeignClient(name = "product-service", url = "http://localhost:8081")
+import java.util.Collection;
+import java.util.List;
+
+// Request.Options arguments override the client-wide timeouts for that call
+@FeignClient(name = "product-service", url = "${product.service.url}")
 public interface ProductClient {
     @GetMapping("/api/products/{productId}")
     ProductDTO getProductById(@PathVariable Long productId,
                               @RequestHeader("Authorization") String token);
+
+    @GetMapping("/api/products/batch")
+    List<ProductDTO> getProductsByIds(@RequestParam("ids") Collection<Long> productIds,
+                                      @RequestHeader("Authorization") String token,
+                                      Request.Options options);
+
+    // Reserves every line item in one all-or-nothing call; repeating it with the same id is a no-op
+    @PutMapping("/api/products/reservations/{reservationId}")
+    List<StockReservationDTO> reserveStock(@PathVariable String reservationId,
+                                           @RequestBody List<StockReservationRequestDTO> requests,
+                                           @RequestHeader("Authorization") String token,
+                                           Request.Options options);
+
+    // Needs a service token; reservations already released are skipped
+    @PostMapping("/api/products/reservations/release")
+    void releaseStock(@RequestBody Collection<String> reservationIds,
+                      @RequestHeader("Authorization") String token,
+                      Request.Options options);
 }
@@ -0,0 +1,146 @@
+package com.femi.orderservice.client;
+
+import com.femi.orderservice.auth.JwtService;
+import com.femi.orderservice.dto.ProductDTO;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sits in front of {@link ResilientProductClient} and merges product lookups that arrive within the same
+ * short window into a single {@code GET /api/products/batch} call. The call carries order-service's own
+ * service token rather than one of the callers', so a caller whose token product-service refuses cannot
+ * fail the lookups of everyone else in the batch.
+ */
+@Component
+@Slf4j
+public class ProductLookupCoalescer {
+
+    private final ResilientProductClient productClient;
+    private final JwtService jwtService;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final long timeoutMillis;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-lookup-coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService dispatcher = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Object lock = new Object();
+    private Map<Long, CompletableFuture<ProductDTO>> pending = new HashMap<>();
+    private long window;
+
+    public ProductLookupCoalescer(ResilientProductClient productClient,
+                                  JwtService jwtService,
+                                  @Value("${product.lookup.coalesce-window-ms:5}") long windowMillis,
+                                  @Value("${product.lookup.max-batch-size:100}") int maxBatchSize,
+                                  @Value("${product.lookup.timeout-ms:3000}") long timeoutMillis) {
+        this.productClient = productClient;
+        this.jwtService = jwtService;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public ProductDTO getProduct(Long productId) {
+        return getProducts(List.of(productId)).get(productId);
+    }
+
+    public Map<Long, ProductDTO> getProducts(Collection<Long> productIds) {
+        Map<Long, CompletableFuture<ProductDTO>> futures = new HashMap<>();
+
+        synchronized (lock) {
+            boolean windowOpened = pending.isEmpty();
+            for (Long productId : productIds) {
+                futures.put(productId, pending.computeIfAbsent(productId, id -> new CompletableFuture<>()));
+            }
+            if (pending.size() >= maxBatchSize) {
+                flush();
+            } else if (windowOpened) {
+                long current = window;
+                scheduler.schedule(() -> flushWindow(current), windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        try {
+            CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new))
+                    .get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Product lookup failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Product lookup timed out", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Product lookup interrupted", e);
+        }
+
+        return futures.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().join()));
+    }
+
+    private void flushWindow(long expectedWindow) {
+        synchronized (lock) {
+            // The window may already have been flushed because it filled up
+            if (window == expectedWindow && !pending.isEmpty()) {
+                flush();
+            }
+        }
+    }
+
+    // Must be called while holding the lock
+    private void flush() {
+        Map<Long, CompletableFuture<ProductDTO>> batch = pending;
+        pending = new HashMap<>();
+        window++;
+        dispatcher.execute(() -> dispatch(batch));
+    }
+
+    private void dispatch(Map<Long, CompletableFuture<ProductDTO>> batch) {
+        try {
+            String token = "Bearer " + jwtService.generateServiceToken();
+            Map<Long, ProductDTO> products = productClient.getProductsByIds(batch.keySet(), token)
+                    .stream()
+                    .collect(Collectors.toMap(ProductDTO::getId, Function.identity()));
+            log.debug("Resolved {} product lookups with one batch call", batch.size());
+
+            batch.forEach((productId, future) -> {
+                ProductDTO product = products.get(productId);
+                if (product != null) {
+                    future.complete(product);
+                } else {
+                    future.completeExceptionally(new EntityNotFoundException("Product not found: " + productId));
+                }
+            });
+        } catch (RuntimeException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        dispatcher.shutdown();
+    }
+}
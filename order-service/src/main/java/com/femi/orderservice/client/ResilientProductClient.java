@@ -0,0 +1,295 @@
+package com.femi.orderservice.client;
+
+import com.femi.orderservice.dto.ProductDTO;
+import com.femi.orderservice.dto.StockReservationDTO;
+import com.femi.orderservice.dto.StockReservationRequestDTO;
+import com.femi.orderservice.exception.ProductServiceUnavailableException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import feign.FeignException;
+import feign.Request;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Guards every call to {@link ProductClient} with per-call timeouts and a circuit breaker.
+ * Batch lookups are idempotent, so a slow one is hedged with a second request once it runs past
+ * the recent p95, and while the breaker is open they are answered from the last product snapshot
+ * seen, with price and stock withheld. Reservations are never hedged or served stale.
+ */
+@Component
+@Slf4j
+public class ResilientProductClient {
+
+    private static final double HEDGE_PERCENTILE = 0.95;
+    private static final double MAX_HEDGE_TOKENS = 10;
+
+    private final ProductClient productClient;
+    private final Request.Options lookupOptions;
+    private final Request.Options reservationOptions;
+    private final CircuitBreaker circuitBreaker;
+    private final Duration minHedgeDelay;
+    private final Duration maxHedgeDelay;
+    private final double hedgeBudget;
+    private final Cache<Long, ProductDTO> lastKnown;
+    private final LatencyWindow latencies = new LatencyWindow(512, HEDGE_PERCENTILE);
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Counter hedged;
+    private final Counter hedgeWins;
+    private final Counter staleServed;
+    private final Counter rejected;
+
+    private double hedgeTokens = MAX_HEDGE_TOKENS;
+
+    @Autowired
+    public ResilientProductClient(ProductClient productClient,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${product.client.lookup.connect-timeout:500ms}") Duration lookupConnectTimeout,
+                                  @Value("${product.client.lookup.read-timeout:1s}") Duration lookupReadTimeout,
+                                  @Value("${product.client.reservation.connect-timeout:500ms}") Duration reservationConnectTimeout,
+                                  @Value("${product.client.reservation.read-timeout:3s}") Duration reservationReadTimeout,
+                                  @Value("${product.client.hedge.min-delay:20ms}") Duration minHedgeDelay,
+                                  @Value("${product.client.hedge.max-delay:500ms}") Duration maxHedgeDelay,
+                                  @Value("${product.client.hedge.budget:0.1}") double hedgeBudget,
+                                  @Value("${product.client.circuit-breaker.window-size:50}") int windowSize,
+                                  @Value("${product.client.circuit-breaker.minimum-calls:20}") int minimumCalls,
+                                  @Value("${product.client.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+                                  @Value("${product.client.circuit-breaker.slow-call-threshold:2s}") Duration slowCallThreshold,
+                                  @Value("${product.client.circuit-breaker.wait-in-open:10s}") Duration waitInOpen,
+                                  @Value("${product.client.snapshot.maximum-size:50000}") long snapshotSize,
+                                  @Value("${product.client.snapshot.ttl:24h}") Duration snapshotTtl) {
+        this(productClient, meterRegistry,
+                options(lookupConnectTimeout, lookupReadTimeout),
+                options(reservationConnectTimeout, reservationReadTimeout),
+                minHedgeDelay, maxHedgeDelay, hedgeBudget,
+                CircuitBreakerConfig.custom()
+                        .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                        .slidingWindowSize(windowSize)
+                        .minimumNumberOfCalls(minimumCalls)
+                        .failureRateThreshold(failureRateThreshold)
+                        .slowCallDurationThreshold(slowCallThreshold)
+                        .waitDurationInOpenState(waitInOpen)
+                        .permittedNumberOfCallsInHalfOpenState(3)
+                        // A 4xx is an answer from a healthy service, not a failure
+                        .recordException(e -> !(e instanceof FeignException.FeignClientException))
+                        .build(),
+                snapshotSize, snapshotTtl);
+    }
+
+    ResilientProductClient(ProductClient productClient,
+                           MeterRegistry meterRegistry,
+                           Request.Options lookupOptions,
+                           Request.Options reservationOptions,
+                           Duration minHedgeDelay,
+                           Duration maxHedgeDelay,
+                           double hedgeBudget,
+                           CircuitBreakerConfig circuitBreakerConfig,
+                           long snapshotSize,
+                           Duration snapshotTtl) {
+        this.productClient = productClient;
+        this.lookupOptions = lookupOptions;
+        this.reservationOptions = reservationOptions;
+        this.minHedgeDelay = minHedgeDelay;
+        this.maxHedgeDelay = maxHedgeDelay;
+        this.hedgeBudget = hedgeBudget;
+        this.circuitBreaker = CircuitBreaker.of("product-service", circuitBreakerConfig);
+        this.lastKnown = Caffeine.newBuilder()
+                .maximumSize(snapshotSize)
+                .expireAfterWrite(snapshotTtl)
+                .build();
+
+        this.hedged = meterRegistry.counter("product.client.hedged");
+        this.hedgeWins = meterRegistry.counter("product.client.hedge.wins");
+        this.staleServed = meterRegistry.counter("product.client.stale.served");
+        this.rejected = meterRegistry.counter("product.client.rejected");
+        Gauge.builder("product.client.circuit.state", circuitBreaker, breaker -> breaker.getState().getOrder())
+                .description("0 closed, 1 open, 2 half-open")
+                .register(meterRegistry);
+        Gauge.builder("product.client.hedge.delay", this, client -> client.hedgeDelay().toMillis())
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        circuitBreaker.getEventPublisher().onStateTransition(event ->
+                log.warn("Product-service circuit breaker: {}", event.getStateTransition()));
+    }
+
+    public List<ProductDTO> getProductsByIds(Collection<Long> productIds, String bearerToken) {
+        List<ProductDTO> products;
+        try {
+            products = circuitBreaker.executeSupplier(() ->
+                    hedged(() -> productClient.getProductsByIds(productIds, bearerToken, lookupOptions)));
+        } catch (FeignException.FeignClientException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            return lastKnownSnapshots(productIds, e);
+        }
+        products.forEach(product -> lastKnown.put(product.getId(), product));
+        return products;
+    }
+
+    public List<StockReservationDTO> reserveStock(String reservationId, List<StockReservationRequestDTO> requests, String bearerToken) {
+        try {
+            return circuitBreaker.executeSupplier(() ->
+                    productClient.reserveStock(reservationId, requests, bearerToken, reservationOptions));
+        } catch (CallNotPermittedException e) {
+            rejected.increment();
+            throw new ProductServiceUnavailableException("Product service is unavailable, please retry shortly", e);
+        }
+    }
+
+    // Compensation must always be attempted, so releases bypass the breaker
+    public void releaseStock(Collection<String> reservationIds, String bearerToken) {
+        productClient.releaseStock(reservationIds, bearerToken, reservationOptions);
+    }
+
+    public CircuitBreaker.State circuitState() {
+        return circuitBreaker.getState();
+    }
+
+    private List<ProductDTO> lastKnownSnapshots(Collection<Long> productIds, RuntimeException cause) {
+        if (cause instanceof CallNotPermittedException) {
+            rejected.increment();
+        }
+        List<ProductDTO> snapshots = productIds.stream()
+                .map(lastKnown::getIfPresent)
+                .filter(Objects::nonNull)
+                .map(product -> new ProductDTO(
+                        product.getId(),
+                        product.getName(),
+                        null,
+                        null,
+                        product.getSellerId(),
+                        product.getSellerName(),
+                        product.getCategory(),
+                        true))
+                .toList();
+        // A partial answer would turn the gaps into "product not found"
+        if (snapshots.size() < productIds.size()) {
+            throw new ProductServiceUnavailableException("Product service is unavailable, please retry shortly", cause);
+        }
+        staleServed.increment(snapshots.size());
+        log.debug("Served {} stale product snapshots: {}", snapshots.size(), cause.toString());
+        return snapshots;
+    }
+
+    private <T> T hedged(Supplier<T> call) {
+        earnHedgeCredit();
+        CompletableFuture<T> primary = timed(call);
+        try {
+            return primary.get(hedgeDelay().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (!tryAcquireHedge()) {
+                return join(primary);
+            }
+            hedged.increment();
+            CompletableFuture<T> hedge = timed(call);
+            hedge.thenRun(() -> {
+                if (!primary.isDone()) {
+                    hedgeWins.increment();
+                }
+            });
+            return join(firstSuccessful(primary, hedge));
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            primary.cancel(true);
+            throw new IllegalStateException("Product lookup interrupted", e);
+        }
+    }
+
+    private <T> CompletableFuture<T> timed(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            long started = System.nanoTime();
+            T result = call.get();
+            latencies.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            return result;
+        }, executor);
+    }
+
+    Duration hedgeDelay() {
+        long p95 = latencies.percentileMillis();
+        if (p95 < 0) {
+            return maxHedgeDelay;
+        }
+        return Duration.ofMillis(Math.clamp(p95, minHedgeDelay.toMillis(), maxHedgeDelay.toMillis()));
+    }
+
+    // Token bucket: every call earns a fraction of a hedge, so hedges stay a bounded share of traffic
+    private synchronized void earnHedgeCredit() {
+        hedgeTokens = Math.min(MAX_HEDGE_TOKENS, hedgeTokens + hedgeBudget);
+    }
+
+    private synchronized boolean tryAcquireHedge() {
+        if (hedgeTokens < 1) {
+            return false;
+        }
+        hedgeTokens--;
+        return true;
+    }
+
+    private static <T> CompletableFuture<T> firstSuccessful(CompletableFuture<T> first, CompletableFuture<T> second) {
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture<T> attempt : List.of(first, second)) {
+            attempt.whenComplete((value, error) -> {
+                if (error == null) {
+                    winner.complete(value);
+                } else if (failures.incrementAndGet() == 2) {
+                    winner.completeExceptionally(error);
+                }
+            });
+        }
+        return winner;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof CompletionException completion && completion.getCause() != null) {
+            cause = completion.getCause();
+        }
+        return cause instanceof RuntimeException runtime
+                ? runtime
+                : new IllegalStateException("Product lookup failed", cause);
+    }
+
+    private static Request.Options options(Duration connectTimeout, Duration readTimeout) {
+        return new Request.Options(connectTimeout.toMillis(), TimeUnit.MILLISECONDS,
+                readTimeout.toMillis(), TimeUnit.MILLISECONDS, true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,102 @@
+package com.femi.orderservice.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Polls the replica's replication delay. While it is unknown or above {@code replica.max-lag},
+ * {@link ReplicaRoutingDataSource} keeps read-only transactions on the primary.
+ */
+@Slf4j
+public class ReplicationLagMonitor {
+
+    private final DataSource replica;
+    private final String lagQuery;
+    private final String lagColumn;
+    private final Duration maxLag;
+    private final Duration interval;
+
+    private final AtomicLong lagSeconds = new AtomicLong(-1);
+    private volatile boolean replicaUsable;
+    private ScheduledExecutorService scheduler;
+
+    public ReplicationLagMonitor(DataSource replica, MeterRegistry meterRegistry, String lagQuery, String lagColumn,
+                                 Duration maxLag, Duration interval) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.lagColumn = lagColumn;
+        this.maxLag = maxLag;
+        this.interval = interval;
+
+        Gauge.builder("datasource.replica.lag", lagSeconds, AtomicLong::get)
+                .baseUnit("seconds")
+                .description("Replication delay of the read replica, -1 when unknown")
+                .register(meterRegistry);
+        Gauge.builder("datasource.replica.usable", this, monitor -> monitor.replicaUsable ? 1 : 0)
+                .description("Whether read-only transactions are currently routed to the replica")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        check();
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("replica-lag-monitor")
+                .daemon()
+                .factory());
+        scheduler.scheduleWithFixedDelay(this::check, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    void check() {
+        boolean usable;
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout((int) Math.max(1, interval.toSeconds()));
+            try (ResultSet rs = statement.executeQuery(lagQuery)) {
+                // No row, or a NULL delay, means replication is not running: the replica may be arbitrarily stale
+                long lag = -1;
+                if (rs.next()) {
+                    long value = rs.getLong(lagColumn);
+                    lag = rs.wasNull() ? -1 : value;
+                }
+                lagSeconds.set(lag);
+                usable = lag >= 0 && lag <= maxLag.toSeconds();
+            }
+        } catch (SQLException e) {
+            lagSeconds.set(-1);
+            usable = false;
+            log.debug("Replica lag check failed: {}", e.getMessage());
+        }
+
+        if (usable != replicaUsable) {
+            log.info(usable ? "Routing read-only transactions to the replica (lag {}s)"
+                    : "Replica lag {}s is unknown or above the limit, routing reads to the primary", lagSeconds.get());
+        }
+        replicaUsable = usable;
+    }
+}
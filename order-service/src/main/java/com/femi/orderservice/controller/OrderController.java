@@ -1,16 +1,19 @@
 package com.femi.orderservice.controller;
 
 import com.femi.orderservice.dto.*;
+import com.femi.orderservice.model.OrderStatus;
 import com.femi.orderservice.service.OrderService;
 import com.femi.orderservice.service.PaymentServiceImpl;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -44,9 +47,26 @@ public class OrderController {
 
 
     @GetMapping("/buyer/my-orders")
-    public ResponseEntity<List<OrderResponseDTO>> getOrdersForBuyer(Authentication authentication) {
+    public ResponseEntity<CursorPageDTO<OrderResponseDTO>> getOrdersForBuyer(
+            Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
         Long buyerId = Long.valueOf((String) authentication.getPrincipal());
-        return ResponseEntity.ok(orderService.getOrdersForBuyer(buyerId));
+        return ResponseEntity.ok(orderService.getOrdersForBuyer(buyerId, cursor, size));
+    }
+
+    @GetMapping("/seller/my-orders")
+    @PreAuthorize("hasRole('SELLER')")
+    public ResponseEntity<CursorPageDTO<SellerOrderRow>> getOrdersForSeller(
+            Authentication authentication,
+            @RequestParam(required = false) Set<OrderStatus> status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        Long sellerId = Long.valueOf((String) authentication.getPrincipal());
+        SellerOrderFilter filter = new SellerOrderFilter(status, from, to);
+        return ResponseEntity.ok(orderService.getOrdersForSeller(sellerId, filter, cursor, size));
     }
 
     @PutMapping("/{id}/status")
@@ -59,6 +79,12 @@ public class OrderController {
         return ResponseEntity.ok(updatedOrder);
     }
 
+    @PutMapping("/status:bulk")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkStatusUpdateResponseDTO> bulkUpdateOrderStatus(@RequestBody BulkStatusUpdateDTO request) {
+        return ResponseEntity.ok(orderService.bulkUpdateOrderStatus(request.getOrderIds(), request.getOrderStatus()));
+    }
+
     @PostMapping("/{orderId}/pay")
     @PreAuthorize("hasRole('BUYER')")
     public ResponseEntity<PaymentResponseDTO> payForOrder(@PathVariable Long orderId) {
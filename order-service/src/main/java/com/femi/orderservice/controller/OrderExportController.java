@@ -0,0 +1,59 @@
+package com.femi.orderservice.controller;
+
+import com.femi.orderservice.export.ExportFormat;
+import com.femi.orderservice.export.OrderExportFilter;
+import com.femi.orderservice.export.OrderExportService;
+import com.femi.orderservice.model.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/orders/export")
+@RequiredArgsConstructor
+public class OrderExportController {
+
+    private final OrderExportService orderExportService;
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(required = false) Set<OrderStatus> status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long sellerId,
+            @RequestParam(defaultValue = "false") boolean archived) {
+
+        if (!orderExportService.tryAcquireSlot()) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+
+        OrderExportFilter filter = new OrderExportFilter(status, from, to, sellerId, archived);
+        StreamingResponseBody body = out -> {
+            try {
+                orderExportService.export(filter, format, gzip, out);
+            } finally {
+                orderExportService.releaseSlot();
+            }
+        };
+
+        String filename = "orders-" + LocalDate.now() + "." + format.getExtension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+}
@@ -0,0 +1,29 @@
+package com.femi.orderservice.controller;
+
+import com.femi.orderservice.client.ProductCache;
+import com.femi.orderservice.dto.ProductChangeNotificationDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/orders/internal")
+@RequiredArgsConstructor
+public class ProductChangeController {
+
+    private final ProductCache productCache;
+
+    // Called by product-service whenever a product's status, details or stock changes
+    @PostMapping("/product-changes")
+    @PreAuthorize("hasRole('SERVICE')")
+    public ResponseEntity<Void> onProductChange(@RequestBody ProductChangeNotificationDTO notification) {
+        if (notification.getProductIds() != null && !notification.getProductIds().isEmpty()) {
+            productCache.invalidate(notification.getProductIds());
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
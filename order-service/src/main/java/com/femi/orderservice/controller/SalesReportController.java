@@ -0,0 +1,53 @@
+package com.femi.orderservice.controller;
+
+import com.femi.orderservice.dto.SalesReportDTO;
+import com.femi.orderservice.model.SalesDimension;
+import com.femi.orderservice.rollup.SalesReportService;
+import com.femi.orderservice.rollup.SalesRollupRecorder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/orders/reports/sales")
+@RequiredArgsConstructor
+public class SalesReportController {
+
+    private final SalesReportService salesReportService;
+    private final SalesRollupRecorder salesRollupRecorder;
+
+    @GetMapping("/me")
+    @PreAuthorize("hasRole('SELLER')")
+    public ResponseEntity<SalesReportDTO> getMySales(
+            Authentication authentication,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        Long sellerId = Long.valueOf((String) authentication.getPrincipal());
+        return ResponseEntity.ok(salesReportService.report(SalesDimension.SELLER, sellerId, from, to));
+    }
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<SalesReportDTO> getSales(
+            @RequestParam(defaultValue = "ALL") SalesDimension dimension,
+            @RequestParam(required = false) Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(salesReportService.report(dimension, id, from, to));
+    }
+
+    // Backfill or repair: recomputes the day range from the orders table
+    @PostMapping("/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Integer>> rebuild(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(Map.of("rowsWritten", salesRollupRecorder.rebuild(from, to)));
+    }
+}
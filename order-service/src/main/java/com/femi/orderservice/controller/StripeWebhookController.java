@@ -1,22 +1,34 @@
 package com.femi.orderservice.controller;
 
+import com.femi.orderservice.model.PaymentStatus;
+import com.femi.orderservice.payment.PaymentStatusUpdate;
+import com.femi.orderservice.payment.PaymentWebhookProcessor;
+import com.stripe.exception.EventDataObjectDeserializationException;
 import com.stripe.exception.SignatureVerificationException;
 import com.stripe.model.Event;
+import com.stripe.model.StripeObject;
 import com.stripe.model.checkout.Session;
 import com.stripe.net.Webhook;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
 @RequestMapping("/api/payments/stripe")
+@RequiredArgsConstructor
 public class StripeWebhookController {
 
+    private final PaymentWebhookProcessor paymentWebhookProcessor;
+
+    @Value("${stripe.webhook-secret}")
+    private String endpointSecret;
+
     @PostMapping("/webhook")
     public ResponseEntity<String> handleStripeWebhook(@RequestBody String payload,@RequestHeader("Stripe-Signature") String sigHeader) {
 
-        String endpointSecret = "whsec_...";
-
         Event event;
 
         try {
@@ -25,19 +37,45 @@ public class StripeWebhookController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid signature");
         }
 
-        if ("checkout.session.completed".equals(event.getType())) {
-            Session session = (Session) event.getDataObjectDeserializer()
-                    .getObject()
-                    .orElseThrow();
+        PaymentStatus status = targetStatus(event);
+        if (status == null) {
+            return ResponseEntity.ok("Webhook ignored");
+        }
 
-            String sessionId = session.getId();
-            String clientReferenceId = session.getClientReferenceId(); // Optional: orderId
+        Session session = (Session) deserialize(event);
+        if (status == PaymentStatus.PAID && "checkout.session.completed".equals(event.getType())
+                && "unpaid".equals(session.getPaymentStatus())) {
+            // Delayed payment methods settle later through checkout.session.async_payment_succeeded
+            return ResponseEntity.ok("Webhook received");
+        }
 
-            // TODO: Lookup order by session or clientReferenceId
-            // order.setPaymentStatus(PAID)
-            // orderRepository.save(order)
+        // Stored before it is acknowledged; the status change is applied by the webhook worker.
+        // Anything but a 2xx makes Stripe redeliver, so an event that could not be stored is not lost
+        try {
+            paymentWebhookProcessor.receive(new PaymentStatusUpdate(event.getId(), session.getId(), status));
+        } catch (DataAccessException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Webhook could not be stored");
         }
 
         return ResponseEntity.ok("Webhook received");
     }
+
+    private PaymentStatus targetStatus(Event event) {
+        return switch (event.getType()) {
+            case "checkout.session.completed", "checkout.session.async_payment_succeeded" -> PaymentStatus.PAID;
+            case "checkout.session.async_payment_failed", "checkout.session.expired" -> PaymentStatus.FAILED;
+            default -> null;
+        };
+    }
+
+    private StripeObject deserialize(Event event) {
+        // Falls back to a lenient parse when the event's API version differs from the library's
+        return event.getDataObjectDeserializer().getObject().orElseGet(() -> {
+            try {
+                return event.getDataObjectDeserializer().deserializeUnsafe();
+            } catch (EventDataObjectDeserializationException e) {
+                throw new IllegalArgumentException("Unreadable webhook payload", e);
+            }
+        });
+    }
 }
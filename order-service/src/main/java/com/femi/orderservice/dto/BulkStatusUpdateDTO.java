@@ -0,0 +1,11 @@
+package com.femi.orderservice.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkStatusUpdateDTO {
+    private List<Long> orderIds;
+    private String orderStatus;
+}
@@ -0,0 +1,15 @@
+package com.femi.orderservice.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BulkStatusUpdateResponseDTO {
+    private String orderStatus;
+    private int updated;
+    private int rejected;
+    private List<OrderTransitionResultDTO> results;
+}
@@ -0,0 +1,20 @@
+package com.femi.orderservice.dto;
+
+import com.femi.orderservice.model.OrderStatus;
+import com.femi.orderservice.model.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Read-only projection for the buyer history feed; rows are never managed by the persistence context
+public interface BuyerOrderView {
+    Long getId();
+    Long getBuyerId();
+    Long getProductId();
+    String getProductName();
+    BigDecimal getTotalAmount();
+    Integer getQuantity();
+    OrderStatus getOrderStatus();
+    PaymentStatus getPaymentStatus();
+    LocalDateTime getCreatedAt();
+}
@@ -0,0 +1,14 @@
+package com.femi.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+    private List<T> content;
+    // Null on the last page
+    private String nextCursor;
+}
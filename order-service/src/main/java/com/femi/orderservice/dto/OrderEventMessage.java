@@ -0,0 +1,21 @@
+package com.femi.orderservice.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class OrderEventMessage {
+    private String eventId;
+    private String eventType;
+    private Long orderId;
+    private Long buyerId;
+    private Long sellerId;
+    private String orderStatus;
+    private String paymentStatus;
+    private BigDecimal totalAmount;
+    private LocalDateTime occurredAt;
+}
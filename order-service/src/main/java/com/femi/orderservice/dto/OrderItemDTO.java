@@ -0,0 +1,16 @@
+package com.femi.orderservice.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+public class OrderItemDTO {
+    private Long productId;
+    private String productName;
+    private BigDecimal unitPrice;
+    private Integer quantity;
+    private BigDecimal lineTotal;
+}
@@ -0,0 +1,13 @@
+package com.femi.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderItemRequestDTO {
+    private Long productId;
+    private Integer quantity;
+}
@@ -0,0 +1,11 @@
+package com.femi.orderservice.dto;
+
+import java.math.BigDecimal;
+
+public interface OrderItemView {
+    Long getOrderId();
+    Long getProductId();
+    String getProductName();
+    BigDecimal getUnitPrice();
+    Integer getQuantity();
+}
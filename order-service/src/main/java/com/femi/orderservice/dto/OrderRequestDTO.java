@@ -2,8 +2,14 @@ package com.femi.orderservice.dto;
 
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 public class OrderRequestDTO {
+    // Single-product orders
     private Long productId;
     private Integer quantity;
+
+    // Cart checkout; takes precedence over productId/quantity when present
+    private List<OrderItemRequestDTO> items;
 }
@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -22,4 +23,5 @@ public class OrderResponse {
     private BigDecimal totalPrice;
     private OrderStatus status;
     private LocalDateTime createdAt;
+    private List<OrderItemDTO> items;
 }
@@ -5,6 +5,7 @@ import lombok.Data;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @Builder
@@ -18,4 +19,5 @@ public class OrderResponseDTO {
     private String orderStatus;
     private String paymentStatus;
     private LocalDateTime createdAt;
+    private List<OrderItemDTO> items;
 }
@@ -0,0 +1,13 @@
+package com.femi.orderservice.dto;
+
+import java.math.BigDecimal;
+
+// Native projection used by bulk transitions; status columns come back as their stored names
+public interface OrderStatusView {
+    Long getId();
+    Long getBuyerId();
+    Long getSellerId();
+    BigDecimal getTotalAmount();
+    String getOrderStatus();
+    String getPaymentStatus();
+}
@@ -0,0 +1,13 @@
+package com.femi.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class OrderTransitionResultDTO {
+    private Long orderId;
+    private StatusTransitionOutcome outcome;
+    // Status before the request; null when the order does not exist
+    private String previousStatus;
+}
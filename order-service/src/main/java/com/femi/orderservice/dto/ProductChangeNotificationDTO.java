@@ -0,0 +1,12 @@
+package com.femi.orderservice.dto;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Set;
+
+@Data
+public class ProductChangeNotificationDTO {
+    private List<Long> productIds;
+    private Set<String> changes;
+}
@@ -17,4 +17,6 @@ public class ProductDTO {
     private Long sellerId;
     private String sellerName;
     private String category;
+    // Last-known snapshot served while product-service is unreachable; price and stock are withheld
+    private boolean stale;
 }
@@ -0,0 +1,16 @@
+package com.femi.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+public class SalesDayDTO {
+    private LocalDate day;
+    private long orderCount;
+    private long units;
+    private BigDecimal revenue;
+}
@@ -0,0 +1,22 @@
+package com.femi.orderservice.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+public class SalesReportDTO {
+    private String dimension;
+    private Long dimensionId;
+    private LocalDate from;
+    private LocalDate to;
+    private long orderCount;
+    private long units;
+    private BigDecimal revenue;
+    // Days without sales are omitted
+    private List<SalesDayDTO> days;
+}
@@ -0,0 +1,10 @@
+package com.femi.orderservice.dto;
+
+import com.femi.orderservice.model.OrderStatus;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+// Null or empty fields mean "no restriction"; from is inclusive and to exclusive
+public record SellerOrderFilter(Set<OrderStatus> statuses, LocalDateTime from, LocalDateTime to) {
+}
@@ -0,0 +1,20 @@
+package com.femi.orderservice.dto;
+
+import com.femi.orderservice.model.OrderStatus;
+import com.femi.orderservice.model.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Lean row for the seller feed, built directly by a JPQL constructor expression
+public record SellerOrderRow(
+        Long id,
+        Long buyerId,
+        Long productId,
+        String productName,
+        Integer quantity,
+        BigDecimal totalAmount,
+        OrderStatus orderStatus,
+        PaymentStatus paymentStatus,
+        LocalDateTime createdAt) {
+}
@@ -0,0 +1,8 @@
+package com.femi.orderservice.dto;
+
+public enum StatusTransitionOutcome {
+    UPDATED,
+    UNCHANGED,
+    INVALID_TRANSITION,
+    NOT_FOUND
+}
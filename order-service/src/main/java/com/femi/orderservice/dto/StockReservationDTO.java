@@ -0,0 +1,19 @@
+package com.femi.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationDTO {
+    private Long productId;
+    private String productName;
+    private Long sellerId;
+    private BigDecimal unitPrice;
+    private Integer quantity;
+    private Integer remainingStock;
+}
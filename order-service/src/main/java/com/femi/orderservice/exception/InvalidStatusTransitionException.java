@@ -0,0 +1,12 @@
+package com.femi.orderservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class InvalidStatusTransitionException extends RuntimeException {
+
+    public InvalidStatusTransitionException(String message) {
+        super(message);
+    }
+}
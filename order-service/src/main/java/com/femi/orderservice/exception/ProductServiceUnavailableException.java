@@ -0,0 +1,12 @@
+package com.femi.orderservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class ProductServiceUnavailableException extends RuntimeException {
+
+    public ProductServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
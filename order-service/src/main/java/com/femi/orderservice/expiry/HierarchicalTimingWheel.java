@@ -0,0 +1,150 @@
+package com.femi.orderservice.expiry;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Hierarchical timing wheel of order ids keyed by deadline. Level 0 has one slot per tick and
+ * each level above spans a full turn of the one below; when a higher slot comes round its timers
+ * cascade down to finer levels. Scheduling and firing cost O(1) per timer and each pending timer
+ * is two longs, so millions of them need no threads and only tens of megabytes.
+ * <p>
+ * Timers cannot be cancelled: whoever handles a fired id must check that it still applies.
+ */
+class HierarchicalTimingWheel {
+
+    private final long tickMillis;
+    private final int slots;
+    private final Bucket[][] levels;
+    private final long topSpan;
+    private final Bucket overflow = new Bucket();
+    private final Bucket due = new Bucket();
+
+    private long currentTick;
+    private long size;
+
+    HierarchicalTimingWheel(long tickMillis, int slots, int levelCount, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.slots = slots;
+        this.levels = new Bucket[levelCount][slots];
+        for (Bucket[] level : levels) {
+            for (int i = 0; i < slots; i++) {
+                level[i] = new Bucket();
+            }
+        }
+        long span = 1;
+        for (int i = 0; i < levelCount; i++) {
+            span = Math.multiplyExact(span, slots);
+        }
+        this.topSpan = span;
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    synchronized void schedule(long id, long deadlineMillis) {
+        // Rounded up so a timer never fires before its deadline
+        place(id, Math.ceilDiv(deadlineMillis, tickMillis));
+        size++;
+    }
+
+    /**
+     * Moves the wheel forward to {@code nowMillis}, handing every id whose deadline has passed to
+     * {@code onExpired}, and returns how many fired.
+     */
+    synchronized int advanceTo(long nowMillis, LongConsumer onExpired) {
+        int fired = fire(due, onExpired);
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            fired += fire(levels[0][slot(currentTick)], onExpired);
+            fired += fire(due, onExpired);
+        }
+        size -= fired;
+        return fired;
+    }
+
+    synchronized long size() {
+        return size;
+    }
+
+    private void place(long id, long deadlineTick) {
+        if (deadlineTick <= currentTick) {
+            due.add(id, deadlineTick);
+            return;
+        }
+        long unit = 1;
+        for (Bucket[] level : levels) {
+            if (deadlineTick / unit - currentTick / unit < slots) {
+                level[slot(deadlineTick / unit)].add(id, deadlineTick);
+                return;
+            }
+            unit *= slots;
+        }
+        overflow.add(id, deadlineTick);
+    }
+
+    // A slot on level k comes round every slots^k ticks; its timers then fit on a finer level
+    private void cascade() {
+        if (currentTick % topSpan == 0) {
+            replace(overflow);
+        }
+        long unit = topSpan / slots;
+        for (int level = levels.length - 1; level > 0; level--) {
+            if (currentTick % unit == 0) {
+                replace(levels[level][slot(currentTick / unit)]);
+            }
+            unit /= slots;
+        }
+    }
+
+    private void replace(Bucket bucket) {
+        Bucket taken = bucket.take();
+        for (int i = 0; i < taken.count; i++) {
+            place(taken.ids[i], taken.ticks[i]);
+        }
+    }
+
+    private int fire(Bucket bucket, LongConsumer onExpired) {
+        Bucket taken = bucket.take();
+        for (int i = 0; i < taken.count; i++) {
+            onExpired.accept(taken.ids[i]);
+        }
+        return taken.count;
+    }
+
+    private int slot(long tick) {
+        return (int) Math.floorMod(tick, (long) slots);
+    }
+
+    private static final class Bucket {
+
+        private static final long[] EMPTY = new long[0];
+
+        private long[] ids = EMPTY;
+        private long[] ticks = EMPTY;
+        private int count;
+
+        void add(long id, long tick) {
+            if (count == ids.length) {
+                int capacity = Math.max(8, count * 2);
+                ids = Arrays.copyOf(ids, capacity);
+                ticks = Arrays.copyOf(ticks, capacity);
+            }
+            ids[count] = id;
+            ticks[count] = tick;
+            count++;
+        }
+
+        // Hands the contents over and leaves this bucket empty, releasing its arrays
+        Bucket take() {
+            Bucket taken = new Bucket();
+            taken.ids = ids;
+            taken.ticks = ticks;
+            taken.count = count;
+            ids = EMPTY;
+            ticks = EMPTY;
+            count = 0;
+            return taken;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.femi.orderservice.expiry;
+
+import com.femi.orderservice.auth.JwtService;
+import com.femi.orderservice.client.ResilientProductClient;
+import com.femi.orderservice.dto.OrderStatusView;
+import com.femi.orderservice.model.Order;
+import com.femi.orderservice.model.OrderEventType;
+import com.femi.orderservice.model.OrderStatus;
+import com.femi.orderservice.model.PaymentStatus;
+import com.femi.orderservice.repository.OrderRepository;
+import com.femi.orderservice.rollup.SalesRollupRecorder;
+import com.femi.orderservice.service.OrderEventRecorder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Expires orders whose payment window has lapsed and hands their stock back to product-service.
+ * An order with a checkout session still open is left until that session closes, since the buyer
+ * can still pay through it.
+ * A batch is locked and moved PLACED -> EXPIRED in one transaction; the stock for the whole batch
+ * then goes back in a single release call, keyed by each order's reservation id, and only once that
+ * call succeeds are the orders marked as released. {@link #retryReleases()} repeats the call for any
+ * expired order still unmarked, whether the call failed or the instance died before making it.
+ * Product-service hands back each reservation at most once, so a repeated call, or two instances
+ * retrying the same order, is harmless. Orders placed before reservations carried an id have nothing
+ * to release by and are marked straight away.
+ */
+@Component
+@Slf4j
+public class OrderExpirer {
+
+    static final Set<PaymentStatus> UNPAID = EnumSet.of(PaymentStatus.PENDING, PaymentStatus.FAILED);
+
+    private final OrderRepository orderRepository;
+    private final OrderEventRecorder orderEventRecorder;
+    private final SalesRollupRecorder salesRollupRecorder;
+    private final TransactionTemplate transactionTemplate;
+    private final ResilientProductClient productClient;
+    private final JwtService jwtService;
+    private final Duration paymentWindow;
+    private final int batchSize;
+    private final Duration retryAfter;
+
+    private final Counter expiredCounter;
+    private final Counter releaseFailures;
+
+    public OrderExpirer(OrderRepository orderRepository,
+                        OrderEventRecorder orderEventRecorder,
+                        SalesRollupRecorder salesRollupRecorder,
+                        TransactionTemplate transactionTemplate,
+                        ResilientProductClient productClient,
+                        JwtService jwtService,
+                        MeterRegistry meterRegistry,
+                        @Value("${order.expiry.payment-window:30m}") Duration paymentWindow,
+                        @Value("${order.expiry.batch-size:500}") int batchSize,
+                        @Value("${order.expiry.release-retry-after:1m}") Duration retryAfter) {
+        this.orderRepository = orderRepository;
+        this.orderEventRecorder = orderEventRecorder;
+        this.salesRollupRecorder = salesRollupRecorder;
+        this.transactionTemplate = transactionTemplate;
+        this.productClient = productClient;
+        this.jwtService = jwtService;
+        this.paymentWindow = paymentWindow;
+        this.batchSize = batchSize;
+        this.retryAfter = retryAfter;
+        this.expiredCounter = meterRegistry.counter("order.expiry.expired");
+        this.releaseFailures = meterRegistry.counter("order.expiry.release.failures");
+    }
+
+    public Duration paymentWindow() {
+        return paymentWindow;
+    }
+
+    // Candidates that were paid, or already expired by another instance, are skipped
+    public int expire(Collection<Long> orderIds) {
+        List<Long> expired = transactionTemplate.execute(status -> markExpired(orderIds));
+        if (!expired.isEmpty()) {
+            expiredCounter.increment(expired.size());
+            release(expired);
+        }
+        return expired.size();
+    }
+
+    // Orders among these whose checkout session is still open; they are due again when it closes
+    public List<Order> heldBySession(Collection<Long> orderIds) {
+        return orderRepository.findHeldBySession(orderIds, OrderStatus.PLACED, LocalDateTime.now());
+    }
+
+    @Scheduled(fixedDelayString = "${order.expiry.release-retry-interval-ms:60000}")
+    public void retryReleases() {
+        // Not locked: the call can take a while, and repeating a release is harmless
+        List<Long> pending = orderRepository.findExpiredWithUnreleasedStock(LocalDateTime.now().minus(retryAfter), batchSize);
+        if (!pending.isEmpty()) {
+            log.info("Retrying stock release for {} expired orders", pending.size());
+            release(pending);
+        }
+    }
+
+    private List<Long> markExpired(Collection<Long> orderIds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OrderStatusView> lapsed = orderRepository.lockLapsedOrders(orderIds,
+                UNPAID.stream().map(Enum::name).toList(), now.minus(paymentWindow), now);
+        if (lapsed.isEmpty()) {
+            return List.of();
+        }
+
+        List<Long> ids = lapsed.stream().map(OrderStatusView::getId).collect(Collectors.toList());
+        orderRepository.updateOrderStatus(ids, EnumSet.of(OrderStatus.PLACED), OrderStatus.EXPIRED, now);
+        salesRollupRecorder.subtract(ids);
+
+        for (OrderStatusView row : lapsed) {
+            Order snapshot = Order.builder()
+                    .id(row.getId())
+                    .buyerId(row.getBuyerId())
+                    .sellerId(row.getSellerId())
+                    .totalAmount(row.getTotalAmount())
+                    .orderStatus(OrderStatus.EXPIRED)
+                    .paymentStatus(PaymentStatus.valueOf(row.getPaymentStatus()))
+                    .updatedAt(now)
+                    .build();
+            orderEventRecorder.record(snapshot, OrderEventType.ORDER_EXPIRED);
+        }
+        return ids;
+    }
+
+    private void release(List<Long> orderIds) {
+        List<String> reservationIds = orderRepository.findReservationIds(orderIds);
+        if (!reservationIds.isEmpty()) {
+            try {
+                productClient.releaseStock(reservationIds, "Bearer " + jwtService.generateServiceToken());
+                log.debug("Released {} stock reservations for {} expired orders", reservationIds.size(), orderIds.size());
+            } catch (RuntimeException e) {
+                releaseFailures.increment();
+                log.warn("Releasing stock for {} expired orders failed, will retry: {}", orderIds.size(), e.getMessage());
+                return;
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> orderRepository.markStockReleased(orderIds, LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,180 @@
+package com.femi.orderservice.expiry;
+
+import com.femi.orderservice.model.Order;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps one in-memory timer per unpaid order and expires each when its payment window lapses.
+ * Timers live in a {@link HierarchicalTimingWheel}: an order is added by the instance that placed
+ * it as soon as it commits, and on startup the wheel is refilled from a single indexed read of the
+ * unpaid PLACED orders. Orders placed on other instances are picked up by {@link #reseed()}, which
+ * reads only those created since its last run, so every instance ends up tracking every order
+ * within one reseed interval and an instance going down does not strand its orders. An order can
+ * hold more than one timer that way; the guarded update in {@link OrderExpirer} makes sure each
+ * one is expired once.
+ */
+@Component
+@Slf4j
+public class OrderExpiryScheduler {
+
+    private static final String UNPAID_ORDERS = "SELECT id, created_at, payment_expires_at FROM orders " +
+            "WHERE order_status = 'PLACED' AND payment_status IN ('PENDING', 'FAILED')";
+
+    // A range scan on idx_orders_status_payment_created
+    private static final String UNPAID_ORDERS_SINCE = UNPAID_ORDERS + " AND created_at >= ?";
+
+    private final OrderExpirer orderExpirer;
+    private final JdbcTemplate rebuildTemplate;
+    private final boolean enabled;
+    private final Duration tick;
+    private final int batchSize;
+    private final Duration retryDelay;
+    private final Duration reseedOverlap;
+    private final HierarchicalTimingWheel wheel;
+
+    // Start of the next reseed read; null until the startup rebuild has run
+    private volatile LocalDateTime reseedFrom;
+
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-expiry-wheel");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public OrderExpiryScheduler(OrderExpirer orderExpirer,
+                                DataSource dataSource,
+                                MeterRegistry meterRegistry,
+                                @Value("${order.expiry.enabled:true}") boolean enabled,
+                                @Value("${order.expiry.tick:1s}") Duration tick,
+                                @Value("${order.expiry.wheel-slots:64}") int wheelSlots,
+                                @Value("${order.expiry.wheel-levels:4}") int wheelLevels,
+                                @Value("${order.expiry.batch-size:500}") int batchSize,
+                                @Value("${order.expiry.retry-delay:30s}") Duration retryDelay,
+                                @Value("${order.expiry.reseed-overlap:30s}") Duration reseedOverlap,
+                                @Value("${order.expiry.rebuild-fetch-size:0}") int fetchSize) {
+        this.orderExpirer = orderExpirer;
+        // Set to stream the rebuild read instead of buffering every pending order in the driver; 0 keeps the driver default
+        this.rebuildTemplate = new JdbcTemplate(dataSource);
+        this.rebuildTemplate.setFetchSize(fetchSize);
+        this.enabled = enabled;
+        this.tick = tick;
+        this.batchSize = batchSize;
+        this.retryDelay = retryDelay;
+        this.reseedOverlap = reseedOverlap;
+        this.wheel = new HierarchicalTimingWheel(tick.toMillis(), wheelSlots, wheelLevels, System.currentTimeMillis());
+
+        Gauge.builder("order.expiry.pending", wheel, HierarchicalTimingWheel::size)
+                .description("Running expiry timers; an order tracked twice counts twice")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        LocalDateTime readAt = LocalDateTime.now();
+        long rebuilt = load(UNPAID_ORDERS);
+        reseedFrom = readAt;
+        log.info("Rebuilt {} order expiry timers in {} ms", rebuilt,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+        ticker.scheduleAtFixedRate(this::advance, tick.toMillis(), tick.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Scheduled(fixedDelayString = "${order.expiry.reseed-interval-ms:60000}")
+    public void reseed() {
+        LocalDateTime from = reseedFrom;
+        if (!enabled || from == null) {
+            return;
+        }
+        LocalDateTime readAt = LocalDateTime.now();
+        // created_at is stamped before the row commits, so the window reaches back past the last read
+        long added = load(UNPAID_ORDERS_SINCE, from.minus(reseedOverlap));
+        reseedFrom = readAt;
+        log.debug("Reseeded {} order expiry timers", added);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    public void track(Order order) {
+        track(order.getId(), paymentDeadline(order.getCreatedAt()));
+    }
+
+    // Pushes the timer out to a later deadline, e.g. while a checkout session is still open
+    public void track(Long orderId, Instant deadline) {
+        if (enabled) {
+            wheel.schedule(orderId, deadline.toEpochMilli());
+        }
+    }
+
+    public Instant paymentDeadline(LocalDateTime createdAt) {
+        return toInstant(createdAt).plus(orderExpirer.paymentWindow());
+    }
+
+    private long load(String sql, Object... args) {
+        AtomicLong loaded = new AtomicLong();
+        rebuildTemplate.query(sql, (RowCallbackHandler) rs -> {
+            long deadline = paymentDeadline(rs.getObject(2, LocalDateTime.class)).toEpochMilli();
+            LocalDateTime sessionExpiresAt = rs.getObject(3, LocalDateTime.class);
+            if (sessionExpiresAt != null) {
+                deadline = Math.max(deadline, toInstant(sessionExpiresAt).toEpochMilli());
+            }
+            wheel.schedule(rs.getLong(1), deadline);
+            loaded.incrementAndGet();
+        }, args);
+        return loaded.get();
+    }
+
+    private void advance() {
+        List<Long> lapsed = new ArrayList<>();
+        wheel.advanceTo(System.currentTimeMillis(), lapsed::add);
+        for (int from = 0; from < lapsed.size(); from += batchSize) {
+            List<Long> batch = lapsed.subList(from, Math.min(from + batchSize, lapsed.size()));
+            try {
+                int expired = orderExpirer.expire(batch);
+                log.debug("Expired {} of {} lapsed orders", expired, batch.size());
+                if (expired < batch.size()) {
+                    // The session may have been opened on another instance, which is the only one timing it
+                    orderExpirer.heldBySession(batch).forEach(order ->
+                            track(order.getId(), toInstant(order.getPaymentExpiresAt())));
+                }
+            } catch (RuntimeException e) {
+                // An exception escaping here would cancel the ticker, so the batch is simply tried again later
+                log.warn("Expiring {} orders failed, retrying in {}: {}", batch.size(), retryDelay, e.getMessage());
+                long retryAt = System.currentTimeMillis() + retryDelay.toMillis();
+                batch.forEach(id -> wheel.schedule(id, retryAt));
+            }
+        }
+    }
+
+    private static Instant toInstant(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant();
+    }
+}
@@ -0,0 +1,12 @@
+package com.femi.orderservice.export;
+
+import com.femi.orderservice.model.OrderStatus;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+// Null or empty fields mean "no restriction"; from is inclusive and to exclusive.
+// archived switches the source from orders to orders_archive
+public record OrderExportFilter(Set<OrderStatus> statuses, LocalDateTime from, LocalDateTime to, Long sellerId,
+                                boolean archived) {
+}
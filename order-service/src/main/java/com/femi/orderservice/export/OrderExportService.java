@@ -0,0 +1,236 @@
+package com.femi.orderservice.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.femi.orderservice.model.OrderStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams orders from a forward-only JDBC cursor straight to the response. With MySQL Connector/J a
+ * fetch size of {@link Integer#MIN_VALUE} makes the driver hand over rows one at a time instead of
+ * buffering the whole result, so memory stays flat however many rows are exported.
+ */
+@Service
+public class OrderExportService {
+
+    private static final String[] COLUMNS = {
+            "id", "buyer_id", "seller_id", "product_id", "product_name", "quantity",
+            "total_amount", "order_status", "payment_status", "created_at", "updated_at"
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final Semaphore exportSlots;
+    private final Counter exportedRows;
+
+    public OrderExportService(DataSource dataSource,
+                              MeterRegistry meterRegistry,
+                              @Value("${order.export.fetch-size:-2147483648}") int fetchSize,
+                              @Value("${order.export.max-concurrent:2}") int maxConcurrent) {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.setFetchSize(fetchSize);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(template);
+        this.exportSlots = new Semaphore(maxConcurrent);
+        this.exportedRows = meterRegistry.counter("order.export.rows");
+    }
+
+    // Each export pins a connection for its whole duration, so only a few may run at once
+    public boolean tryAcquireSlot() {
+        return exportSlots.tryAcquire();
+    }
+
+    public void releaseSlot() {
+        exportSlots.release();
+    }
+
+    public long export(OrderExportFilter filter, ExportFormat format, boolean gzip, OutputStream out) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 64 * 1024);
+        RowWriter rowWriter = format == ExportFormat.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String sql = buildQuery(filter, params);
+        AtomicLong rows = new AtomicLong();
+
+        try {
+            rowWriter.start();
+            jdbcTemplate.query(sql, params, rs -> {
+                try {
+                    rowWriter.write(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows.incrementAndGet();
+            });
+            rowWriter.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            exportedRows.increment(rows.get());
+        }
+
+        writer.flush();
+        if (target instanceof GZIPOutputStream gzipStream) {
+            gzipStream.finish();
+        }
+        out.flush();
+        return rows.get();
+    }
+
+    private String buildQuery(OrderExportFilter filter, MapSqlParameterSource params) {
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(String.join(", ", COLUMNS))
+                .append(filter.archived() ? " FROM orders_archive" : " FROM orders")
+                .append(" WHERE 1 = 1");
+        if (filter.statuses() != null && !filter.statuses().isEmpty()) {
+            sql.append(" AND order_status IN (:statuses)");
+            params.addValue("statuses", filter.statuses().stream().map(OrderStatus::name).toList());
+        }
+        if (filter.from() != null) {
+            sql.append(" AND created_at >= :from");
+            params.addValue("from", Timestamp.valueOf(filter.from()));
+        }
+        if (filter.to() != null) {
+            sql.append(" AND created_at < :to");
+            params.addValue("to", Timestamp.valueOf(filter.to()));
+        }
+        if (filter.sellerId() != null) {
+            sql.append(" AND seller_id = :sellerId");
+            params.addValue("sellerId", filter.sellerId());
+        }
+        return sql.append(" ORDER BY id").toString();
+    }
+
+    private interface RowWriter {
+        void start() throws IOException;
+        void write(ResultSet rs) throws SQLException, IOException;
+        void finish() throws IOException;
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void start() throws IOException {
+            writer.write(String.join(",", COLUMNS));
+            writer.write('\n');
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            for (int i = 1; i <= COLUMNS.length; i++) {
+                if (i > 1) {
+                    writer.write(',');
+                }
+                writeField(rs.getString(i));
+            }
+            writer.write('\n');
+        }
+
+        @Override
+        public void finish() {
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    private final class NdjsonRowWriter implements RowWriter {
+
+        private final Writer writer;
+        private JsonGenerator generator;
+
+        NdjsonRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void start() throws IOException {
+            generator = jsonFactory.createGenerator(writer);
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            writeNumber("id", rs.getLong(1), rs.wasNull());
+            writeNumber("buyerId", rs.getLong(2), rs.wasNull());
+            writeNumber("sellerId", rs.getLong(3), rs.wasNull());
+            writeNumber("productId", rs.getLong(4), rs.wasNull());
+            generator.writeStringField("productName", rs.getString(5));
+            writeNumber("quantity", rs.getLong(6), rs.wasNull());
+            BigDecimal totalAmount = rs.getBigDecimal(7);
+            if (totalAmount == null) {
+                generator.writeNullField("totalAmount");
+            } else {
+                generator.writeNumberField("totalAmount", totalAmount);
+            }
+            generator.writeStringField("orderStatus", rs.getString(8));
+            generator.writeStringField("paymentStatus", rs.getString(9));
+            writeTimestamp("createdAt", rs.getTimestamp(10));
+            writeTimestamp("updatedAt", rs.getTimestamp(11));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+
+        private void writeNumber(String field, long value, boolean isNull) throws IOException {
+            if (isNull) {
+                generator.writeNullField(field);
+            } else {
+                generator.writeNumberField(field, value);
+            }
+        }
+
+        private void writeTimestamp(String field, Timestamp value) throws IOException {
+            if (value == null) {
+                generator.writeNullField(field);
+            } else {
+                generator.writeStringField(field, value.toLocalDateTime().toString());
+            }
+        }
+    }
+}
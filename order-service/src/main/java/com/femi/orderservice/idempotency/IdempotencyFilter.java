@@ -0,0 +1,125 @@
+package com.femi.orderservice.idempotency;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+// Runs after the security filter chain so keys can be scoped to the authenticated user
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final Pattern IDEMPOTENT_PATHS = Pattern.compile("^/api/orders(/\\d+/pay)?$");
+
+    private final IdempotencyStore idempotencyStore;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || request.getHeader(HEADER) == null
+                || !IDEMPOTENT_PATHS.matcher(request.getRequestURI()).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String key = request.getHeader(HEADER).trim();
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (key.isEmpty() || key.length() > 255 || authentication == null) {
+            writeError(response, HttpStatus.BAD_REQUEST, "Invalid Idempotency-Key header");
+            return;
+        }
+
+        CachedBodyHttpServletRequest cachedRequest = new CachedBodyHttpServletRequest(request);
+        String id = sha256((authentication.getName() + '|' + request.getMethod() + '|'
+                + request.getRequestURI() + '|' + key).getBytes(StandardCharsets.UTF_8));
+        String fingerprint = sha256(cachedRequest.getBody());
+
+        IdempotencyStore.Claim claim = idempotencyStore.claim(id, fingerprint);
+        switch (claim.outcome()) {
+            case REPLAY -> {
+                if (!claim.response().fingerprint().equals(fingerprint)) {
+                    writeError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                            "Idempotency-Key was already used with a different request body");
+                } else {
+                    replay(response, claim.response());
+                }
+                return;
+            }
+            case IN_PROGRESS -> {
+                response.setHeader("Retry-After", "1");
+                writeError(response, HttpStatus.CONFLICT, "A request with this Idempotency-Key is still in progress");
+                return;
+            }
+            case ACQUIRED -> {
+                // fall through and execute the request
+            }
+        }
+
+        ContentCachingResponseWrapper wrappedResponse = new ContentCachingResponseWrapper(response);
+        boolean stored = false;
+        try {
+            filterChain.doFilter(cachedRequest, wrappedResponse);
+
+            // Server errors are not remembered so the client can retry them
+            if (wrappedResponse.getStatus() < 500) {
+                idempotencyStore.complete(id, new StoredResponse(fingerprint, wrappedResponse.getStatus(),
+                        wrappedResponse.getContentType(), wrappedResponse.getContentAsByteArray()));
+                stored = true;
+            }
+        } finally {
+            if (!stored) {
+                idempotencyStore.abandon(id);
+            }
+            wrappedResponse.copyBodyToResponse();
+        }
+    }
+
+    private void replay(HttpServletResponse response, StoredResponse stored) throws IOException {
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader("Idempotent-Replayed", "true");
+        if (stored.body() != null) {
+            response.getOutputStream().write(stored.body());
+        }
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write(message);
+    }
+
+    private static String sha256(byte[] input) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(input));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.femi.orderservice.idempotency;
+
+import com.femi.orderservice.model.IdempotencyRecord;
+import com.femi.orderservice.model.IdempotencyStatus;
+import com.femi.orderservice.repository.IdempotencyRecordRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Durable idempotency records in {@code idempotency_keys} with an in-memory front for recent
+ * responses. Duplicates of a request that is still executing on this instance wait for it.
+ * A key is claimed with a short lease and only gets the full {@code ttl} once its response is
+ * stored, so a key whose instance died mid-request can be taken over when the lease runs out
+ * instead of answering 409 for a day.
+ */
+@Component
+@Slf4j
+public class IdempotencyStore {
+
+    public enum Outcome {
+        ACQUIRED,
+        REPLAY,
+        IN_PROGRESS
+    }
+
+    public record Claim(Outcome outcome, StoredResponse response) {
+    }
+
+    private final IdempotencyRecordRepository repository;
+    private final Duration ttl;
+    private final Duration waitTimeout;
+    private final Duration lease;
+    private final Cache<String, StoredResponse> hotResponses;
+    private final ConcurrentHashMap<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyStore(IdempotencyRecordRepository repository,
+                            @Value("${order.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${order.idempotency.wait-timeout:10s}") Duration waitTimeout,
+                            @Value("${order.idempotency.lease:30s}") Duration lease,
+                            @Value("${order.idempotency.hot-size:10000}") long hotSize) {
+        this.repository = repository;
+        this.ttl = ttl;
+        this.waitTimeout = waitTimeout;
+        this.lease = lease;
+        this.hotResponses = Caffeine.newBuilder()
+                .maximumSize(hotSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public Claim claim(String id, String fingerprint) {
+        for (int attempt = 0; attempt < 3; attempt++) {
+            StoredResponse cached = hotResponses.getIfPresent(id);
+            if (cached != null) {
+                return new Claim(Outcome.REPLAY, cached);
+            }
+
+            CompletableFuture<StoredResponse> execution = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(id, execution);
+            if (running != null) {
+                try {
+                    return new Claim(Outcome.REPLAY, running.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS));
+                } catch (ExecutionException e) {
+                    // The first execution failed without storing a response, so this one may take over
+                    continue;
+                } catch (TimeoutException e) {
+                    return new Claim(Outcome.IN_PROGRESS, null);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return new Claim(Outcome.IN_PROGRESS, null);
+                }
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            if (repository.tryClaim(id, fingerprint, now, now.plus(lease)) == 1) {
+                return new Claim(Outcome.ACQUIRED, null);
+            }
+
+            IdempotencyRecord record = repository.findById(id).orElse(null);
+            if (record != null && record.getExpiresAt().isBefore(now)) {
+                // A stale lease or an expired response; only one of the racing requests wins it
+                if (repository.takeOver(id, fingerprint, IdempotencyStatus.IN_PROGRESS, now, now.plus(lease)) == 1) {
+                    return new Claim(Outcome.ACQUIRED, null);
+                }
+                fail(id, execution);
+                continue;
+            }
+            if (record != null && record.getStatus() == IdempotencyStatus.COMPLETED) {
+                StoredResponse response = new StoredResponse(record.getRequestFingerprint(),
+                        record.getResponseStatus(), record.getResponseContentType(), record.getResponseBody());
+                hotResponses.put(id, response);
+                inFlight.remove(id, execution);
+                execution.complete(response);
+                return new Claim(Outcome.REPLAY, response);
+            }
+
+            fail(id, execution);
+            if (record != null) {
+                // Still executing on another instance
+                return new Claim(Outcome.IN_PROGRESS, null);
+            }
+        }
+        return new Claim(Outcome.IN_PROGRESS, null);
+    }
+
+    public void complete(String id, StoredResponse response) {
+        repository.complete(id, IdempotencyStatus.COMPLETED, response.status(), response.contentType(), response.body(),
+                LocalDateTime.now().plus(ttl));
+        hotResponses.put(id, response);
+
+        CompletableFuture<StoredResponse> execution = inFlight.remove(id);
+        if (execution != null) {
+            execution.complete(response);
+        }
+    }
+
+    // Frees the key after a failed execution so a retry can run the request again
+    public void abandon(String id) {
+        try {
+            repository.release(id);
+        } finally {
+            fail(id, inFlight.get(id));
+        }
+    }
+
+    private void fail(String id, CompletableFuture<StoredResponse> execution) {
+        if (execution != null && inFlight.remove(id, execution)) {
+            execution.completeExceptionally(new IllegalStateException("Request did not complete"));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.idempotency.cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        int deleted = repository.deleteExpired(LocalDateTime.now());
+        log.debug("Purged {} expired idempotency keys", deleted);
+    }
+}
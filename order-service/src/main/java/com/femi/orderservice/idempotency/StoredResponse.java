@@ -0,0 +1,4 @@
+package com.femi.orderservice.idempotency;
+
+public record StoredResponse(String fingerprint, int status, String contentType, byte[] body) {
+}
@@ -0,0 +1,57 @@
+package com.femi.orderservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Read-only copy of an order moved out of the hot table by OrderArchiver; ids are kept as-is
+@Entity
+@Immutable
+@Table(name = "orders_archive", indexes = {
+        @Index(name = "idx_orders_archive_buyer_created", columnList = "buyer_id, created_at, id"),
+        @Index(name = "idx_orders_archive_seller_status_created", columnList = "seller_id, order_status, created_at"),
+        @Index(name = "idx_orders_archive_seller_created", columnList = "seller_id, created_at, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchivedOrder {
+
+    @Id
+    private Long id;
+
+    private Long buyerId;
+    private Long productId;
+    private Long sellerId;
+
+    private String productName;
+    private BigDecimal totalAmount;
+    private Integer quantity;
+
+    @ElementCollection
+    @CollectionTable(name = "order_items_archive", joinColumns = @JoinColumn(name = "order_id"))
+    @BatchSize(size = 50)
+    @Builder.Default
+    private List<OrderItem> items = new ArrayList<>();
+
+    @Enumerated(EnumType.STRING)
+    private PaymentStatus paymentStatus;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus orderStatus;
+
+    private String paymentSessionId;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private Long version;
+    private LocalDateTime archivedAt;
+}
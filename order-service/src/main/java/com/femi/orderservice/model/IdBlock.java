@@ -0,0 +1,20 @@
+package com.femi.orderservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// High-water mark per id sequence; written only by OrderIdAllocator, one block at a time
+@Entity
+@Table(name = "id_blocks")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdBlock {
+
+    @Id
+    private String name;
+
+    private Long nextValue;
+}
@@ -0,0 +1,40 @@
+package com.femi.orderservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord {
+
+    // SHA-256 of principal, method, path and the client's Idempotency-Key
+    @Id
+    @Column(length = 64)
+    private String id;
+
+    @Column(length = 64, nullable = false)
+    private String requestFingerprint;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private IdempotencyStatus status;
+
+    private Integer responseStatus;
+    private String responseContentType;
+
+    @Lob
+    @Column(columnDefinition = "MEDIUMBLOB")
+    private byte[] responseBody;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt;
+}
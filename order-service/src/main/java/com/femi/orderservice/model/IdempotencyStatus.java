@@ -0,0 +1,6 @@
+package com.femi.orderservice.model;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS,
+    COMPLETED
+}
@@ -2,12 +2,23 @@ package com.femi.orderservice.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_payment_session", columnList = "payment_session_id"),
+        @Index(name = "idx_orders_buyer_created", columnList = "buyer_id, created_at, id"),
+        @Index(name = "idx_orders_seller_status_created", columnList = "seller_id, order_status, created_at"),
+        @Index(name = "idx_orders_seller_created", columnList = "seller_id, created_at, id"),
+        @Index(name = "idx_orders_status_payment_created", columnList = "order_status, payment_status, created_at"),
+        @Index(name = "idx_orders_status_created", columnList = "order_status, created_at, id"),
+        @Index(name = "idx_orders_status_stock_released", columnList = "order_status, stock_released_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -15,27 +26,58 @@ import java.time.LocalDateTime;
 @Builder
 public class Order {
 
+    // Assigned from OrderIdAllocator blocks; IDENTITY would force one INSERT round trip per order
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     private Long buyerId;
     private Long productId;
     private Long sellerId;
 
+    // For cart orders these describe the first line item and the total units
     private String productName;
     private BigDecimal totalAmount;
     private Integer quantity;
 
+    @ElementCollection
+    @CollectionTable(name = "order_items", joinColumns = @JoinColumn(name = "order_id"))
+    @BatchSize(size = 50)
+    @Builder.Default
+    private List<OrderItem> items = new ArrayList<>();
+
     @Enumerated(EnumType.STRING)
     private PaymentStatus paymentStatus;
 
     @Enumerated(EnumType.STRING)
     private OrderStatus orderStatus;
 
+    // Id product-service recorded the stock reservation under; releasing it hands back exactly that stock.
+    // Null for orders placed before reservations were keyed
+    @Column(length = 64)
+    private String reservationId;
+
+    // Checkout session from the payment provider, used to match incoming webhooks
+    @Column(name = "payment_session_id")
+    private String paymentSessionId;
+
+    // Where the buyer pays in that session; handed out again while the session is open instead of opening another
+    @Column(length = 1024)
+    private String paymentSessionUrl;
+
+    // When that session stops accepting payment; the order is not expired while it is still open
+    private LocalDateTime paymentExpiresAt;
+
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    // Set once product-service has confirmed the release of an expired order's stock; until then it is retried
+    private LocalDateTime stockReleasedAt;
+
+    // Existing rows start at 0 when the column is added by schema update
+    @Version
+    @Column(columnDefinition = "bigint default 0")
+    private Long version;
+
     @PrePersist
     protected void onCreate() {
         this.createdAt = LocalDateTime.now();
@@ -0,0 +1,9 @@
+package com.femi.orderservice.model;
+
+public enum OrderEventType {
+    ORDER_PLACED,
+    ORDER_STATUS_CHANGED,
+    PAYMENT_INITIATED,
+    PAYMENT_STATUS_CHANGED,
+    ORDER_EXPIRED
+}
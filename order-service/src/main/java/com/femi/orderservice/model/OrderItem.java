@@ -0,0 +1,24 @@
+package com.femi.orderservice.model;
+
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderItem {
+
+    private Long productId;
+    private String productName;
+    private BigDecimal unitPrice;
+    private Integer quantity;
+
+    public BigDecimal getLineTotal() {
+        return unitPrice.multiply(BigDecimal.valueOf(quantity));
+    }
+}
@@ -0,0 +1,39 @@
+package com.femi.orderservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "order_outbox", indexes = {
+        @Index(name = "idx_order_outbox_published_at_id", columnList = "published_at, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderOutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long orderId;
+
+    @Enumerated(EnumType.STRING)
+    private OrderEventType eventType;
+
+    @Lob
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime publishedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -1,8 +1,45 @@
 package com.femi.orderservice.model;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum OrderStatus {
     PLACED,
     CONFIRMED,
     SHIPPED,
-    DELIVERED
-}
\ No newline at end of file
+    DELIVERED,
+    // Never paid within the payment window; set only by the expiry scheduler, which also releases the stock
+    EXPIRED;
+
+    public Set<OrderStatus> allowedTargets() {
+        return switch (this) {
+            case PLACED -> EnumSet.of(CONFIRMED, EXPIRED);
+            case CONFIRMED -> EnumSet.of(SHIPPED);
+            case SHIPPED -> EnumSet.of(DELIVERED);
+            case DELIVERED, EXPIRED -> EnumSet.noneOf(OrderStatus.class);
+        };
+    }
+
+    public boolean canTransitionTo(OrderStatus target) {
+        return allowedTargets().contains(target);
+    }
+
+    // Whether orders in this state are included in sales_rollup
+    public boolean countsTowardsSales() {
+        return switch (this) {
+            case PLACED, CONFIRMED, SHIPPED, DELIVERED -> true;
+            case EXPIRED -> false;
+        };
+    }
+
+    // States an order may be in for a move to this one; used to guard set-based updates
+    public Set<OrderStatus> allowedSources() {
+        Set<OrderStatus> sources = EnumSet.noneOf(OrderStatus.class);
+        for (OrderStatus status : values()) {
+            if (status.canTransitionTo(this)) {
+                sources.add(status);
+            }
+        }
+        return sources;
+    }
+}
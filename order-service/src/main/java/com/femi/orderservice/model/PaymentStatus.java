@@ -1,7 +1,22 @@
 package com.femi.orderservice.model;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum PaymentStatus {
     PENDING,
     PAID,
-    FAILED
-}
\ No newline at end of file
+    FAILED,
+    // Paid only after the order had expired and its stock was released, so the money went back
+    REFUNDED;
+
+    // A late failure or expiry notice must never undo a payment that already succeeded
+    public Set<PaymentStatus> allowedSources() {
+        return switch (this) {
+            case PENDING -> EnumSet.noneOf(PaymentStatus.class);
+            case PAID -> EnumSet.of(PENDING, FAILED);
+            case FAILED -> EnumSet.of(PENDING);
+            case REFUNDED -> EnumSet.of(PAID);
+        };
+    }
+}
@@ -0,0 +1,42 @@
+package com.femi.orderservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// A payment webhook as received, stored before it is acknowledged; the provider's event id dedupes redeliveries
+@Entity
+@Table(name = "payment_webhook_inbox", indexes = {
+        @Index(name = "idx_payment_webhook_inbox_due", columnList = "processed_at, parked_at, next_attempt_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentWebhookEvent {
+
+    @Id
+    @Column(length = 255)
+    private String eventId;
+
+    @Column(nullable = false)
+    private String sessionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16, nullable = false)
+    private PaymentStatus targetStatus;
+
+    private LocalDateTime receivedAt;
+
+    // Failed attempts so far; the event is not picked up again before nextAttemptAt
+    private int attempts;
+    private LocalDateTime nextAttemptAt;
+
+    // Null until applied; processed rows are kept for the provider's redelivery window, then purged
+    private LocalDateTime processedAt;
+
+    // Set when no order carries the session long after the event arrived; parked rows wait for someone to look
+    private LocalDateTime parkedAt;
+}
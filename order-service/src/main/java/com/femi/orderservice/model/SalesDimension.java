@@ -0,0 +1,8 @@
+package com.femi.orderservice.model;
+
+public enum SalesDimension {
+    // Platform-wide totals; dimension id is always 0
+    ALL,
+    SELLER,
+    PRODUCT
+}
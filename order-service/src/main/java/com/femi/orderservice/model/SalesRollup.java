@@ -0,0 +1,26 @@
+package com.femi.orderservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+// One row per (dimension, id, day); written only by SalesRollupRecorder's upserts
+@Entity
+@Table(name = "sales_rollup")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SalesRollup {
+
+    @EmbeddedId
+    private SalesRollupId id;
+
+    private long orderCount;
+    private long units;
+
+    @Column(precision = 19, scale = 2)
+    private BigDecimal revenue;
+}
@@ -0,0 +1,24 @@
+package com.femi.orderservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class SalesRollupId implements Serializable {
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private SalesDimension dimension;
+
+    private Long dimensionId;
+
+    private LocalDate salesDay;
+}
@@ -0,0 +1,46 @@
+package com.femi.orderservice.outbox;
+
+import com.femi.orderservice.model.OrderOutboxEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Local stand-in for a message broker: appends one JSON event per line
+@Component
+@ConditionalOnProperty(name = "order.outbox.sink", havingValue = "file", matchIfMissing = true)
+public class FileOrderEventSink implements OrderEventSink {
+
+    private final Path path;
+
+    public FileOrderEventSink(@Value("${order.outbox.file.path:order-events.ndjson}") String path) {
+        this.path = Path.of(path);
+    }
+
+    @Override
+    public synchronized void deliver(List<OrderOutboxEvent> events) {
+        StringBuilder lines = new StringBuilder();
+        for (OrderOutboxEvent event : events) {
+            lines.append(event.getPayload()).append('\n');
+        }
+
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append order events to " + path, e);
+        }
+    }
+}
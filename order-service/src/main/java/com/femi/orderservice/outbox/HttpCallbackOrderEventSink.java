@@ -0,0 +1,40 @@
+package com.femi.orderservice.outbox;
+
+import com.femi.orderservice.model.OrderOutboxEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Component
+@ConditionalOnProperty(name = "order.outbox.sink", havingValue = "http")
+public class HttpCallbackOrderEventSink implements OrderEventSink {
+
+    private final RestClient restClient;
+    private final String callbackUrl;
+
+    public HttpCallbackOrderEventSink(RestClient.Builder restClientBuilder,
+                                      @Value("${order.outbox.http.url}") String callbackUrl) {
+        this.restClient = restClientBuilder.build();
+        this.callbackUrl = callbackUrl;
+    }
+
+    @Override
+    public void deliver(List<OrderOutboxEvent> events) {
+        // Payloads are already JSON, so the batch is sent as an array without re-serializing
+        String body = events.stream()
+                .map(OrderOutboxEvent::getPayload)
+                .collect(Collectors.joining(",", "[", "]"));
+
+        restClient.post()
+                .uri(callbackUrl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body)
+                .retrieve()
+                .toBodilessEntity();
+    }
+}
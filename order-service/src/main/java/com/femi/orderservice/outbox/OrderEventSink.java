@@ -0,0 +1,10 @@
+package com.femi.orderservice.outbox;
+
+import com.femi.orderservice.model.OrderOutboxEvent;
+
+import java.util.List;
+
+public interface OrderEventSink {
+    // Must either deliver the whole batch or throw, so the relay can retry it
+    void deliver(List<OrderOutboxEvent> events);
+}
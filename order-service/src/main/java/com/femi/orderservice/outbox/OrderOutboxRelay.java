@@ -0,0 +1,99 @@
+package com.femi.orderservice.outbox;
+
+import com.femi.orderservice.model.OrderOutboxEvent;
+import com.femi.orderservice.repository.OrderOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Drains {@code order_outbox} in batches. Each batch is claimed with {@code FOR UPDATE SKIP LOCKED},
+ * so several order-service instances can relay in parallel without publishing the same row twice.
+ */
+@Component
+@Slf4j
+public class OrderOutboxRelay {
+
+    private final OrderOutboxRepository outboxRepository;
+    private final OrderEventSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration retention;
+
+    private final Counter publishedCounter;
+    private final Counter failedBatchCounter;
+    private final Timer batchTimer;
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public OrderOutboxRelay(OrderOutboxRepository outboxRepository,
+                            OrderEventSink sink,
+                            TransactionTemplate transactionTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${order.outbox.batch-size:200}") int batchSize,
+                            @Value("${order.outbox.retention:7d}") Duration retention) {
+        this.outboxRepository = outboxRepository;
+        this.sink = sink;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.retention = retention;
+
+        this.publishedCounter = meterRegistry.counter("order.outbox.published");
+        this.failedBatchCounter = meterRegistry.counter("order.outbox.failed.batches");
+        this.batchTimer = meterRegistry.timer("order.outbox.batch.duration");
+        Gauge.builder("order.outbox.lag", lagMillis, AtomicLong::get)
+                .baseUnit("milliseconds")
+                .description("Age of the oldest unpublished order event")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${order.outbox.poll-interval-ms:500}")
+    public void relay() {
+        try {
+            int published;
+            do {
+                published = transactionTemplate.execute(status -> publishBatch());
+            } while (published == batchSize);
+        } catch (RuntimeException e) {
+            failedBatchCounter.increment();
+            log.warn("Order outbox relay failed, batch will be retried: {}", e.getMessage());
+        }
+
+        LocalDateTime oldest = outboxRepository.findOldestUnpublishedCreatedAt();
+        lagMillis.set(oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).toMillis());
+    }
+
+    private int publishBatch() {
+        List<OrderOutboxEvent> batch = outboxRepository.claimUnpublished(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        // Rows stay locked until the sink has accepted them; a failure rolls back the claim
+        batchTimer.record(() -> sink.deliver(batch));
+        outboxRepository.markPublished(
+                batch.stream().map(OrderOutboxEvent::getId).collect(Collectors.toList()),
+                LocalDateTime.now());
+
+        publishedCounter.increment(batch.size());
+        return batch.size();
+    }
+
+    @Scheduled(cron = "${order.outbox.purge-cron:0 0 * * * *}")
+    public void purgePublished() {
+        Integer deleted = transactionTemplate.execute(status ->
+                outboxRepository.deletePublishedBefore(LocalDateTime.now().minus(retention)));
+        log.debug("Purged {} published order events", deleted);
+    }
+}
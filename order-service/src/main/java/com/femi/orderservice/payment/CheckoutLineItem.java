@@ -0,0 +1,12 @@
+package com.femi.orderservice.payment;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CheckoutLineItem {
+    private String name;
+    private long unitAmountInCents;
+    private long quantity;
+}
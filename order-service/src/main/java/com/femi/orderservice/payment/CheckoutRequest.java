@@ -0,0 +1,19 @@
+package com.femi.orderservice.payment;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+public class CheckoutRequest {
+    private Long orderId;
+    private String currency;
+    private List<CheckoutLineItem> lineItems;
+    private String successUrl;
+    private String cancelUrl;
+    // The order expires at this point, so the session should not stay payable past it
+    private Instant expiresAt;
+}
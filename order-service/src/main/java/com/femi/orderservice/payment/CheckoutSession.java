@@ -0,0 +1,15 @@
+package com.femi.orderservice.payment;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+public class CheckoutSession {
+    private String sessionId;
+    private String url;
+    // When the provider stops accepting payment; may be later than requested if the provider has a minimum
+    private Instant expiresAt;
+}
@@ -0,0 +1,87 @@
+package com.femi.orderservice.payment;
+
+import com.femi.orderservice.model.Order;
+import com.femi.orderservice.model.OrderEventType;
+import com.femi.orderservice.model.PaymentStatus;
+import com.femi.orderservice.repository.OrderRepository;
+import com.femi.orderservice.service.OrderEventRecorder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Refunds orders that were paid after they expired. By then their stock is back on sale, so the
+ * order cannot be fulfilled. The orders table is the work queue: an order stays EXPIRED and PAID
+ * until its refund succeeds and it moves to REFUNDED, so a failed or interrupted refund is simply
+ * picked up on the next run. The provider dedupes refunds per session, which makes the retries and
+ * two instances racing on the same order harmless. The session on the order is the one that was
+ * paid: a new session is only ever swapped in while the order is unpaid.
+ */
+@Component
+@Slf4j
+public class ExpiredPaymentRefunder {
+
+    private final OrderRepository orderRepository;
+    private final OrderEventRecorder orderEventRecorder;
+    private final TransactionTemplate transactionTemplate;
+    private final PaymentProviderGateway paymentProviderGateway;
+    private final int batchSize;
+
+    private final Counter refundedCounter;
+    private final Counter failureCounter;
+
+    public ExpiredPaymentRefunder(OrderRepository orderRepository,
+                                  OrderEventRecorder orderEventRecorder,
+                                  TransactionTemplate transactionTemplate,
+                                  PaymentProviderGateway paymentProviderGateway,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${payment.refund.batch-size:100}") int batchSize) {
+        this.orderRepository = orderRepository;
+        this.orderEventRecorder = orderEventRecorder;
+        this.transactionTemplate = transactionTemplate;
+        this.paymentProviderGateway = paymentProviderGateway;
+        this.batchSize = batchSize;
+        this.refundedCounter = meterRegistry.counter("payment.refund.refunded");
+        this.failureCounter = meterRegistry.counter("payment.refund.failures");
+    }
+
+    @Scheduled(fixedDelayString = "${payment.refund.interval-ms:60000}")
+    public void refundPaidAfterExpiry() {
+        List<Long> ids = orderRepository.findPaidAfterExpiry(batchSize);
+        if (ids.isEmpty()) {
+            return;
+        }
+        for (Order order : orderRepository.findAllById(ids)) {
+            try {
+                paymentProviderGateway.refund(order.getPaymentSessionId());
+            } catch (RuntimeException e) {
+                failureCounter.increment();
+                log.warn("Refunding order {} failed, will retry: {}", order.getId(), e.getMessage());
+                continue;
+            }
+            transactionTemplate.executeWithoutResult(status -> markRefunded(order));
+        }
+    }
+
+    private void markRefunded(Order order) {
+        LocalDateTime now = LocalDateTime.now();
+        int updated = orderRepository.updatePaymentStatus(List.of(order.getId()),
+                PaymentStatus.REFUNDED.allowedSources(), PaymentStatus.REFUNDED, now);
+        if (updated == 0) {
+            // Another instance got there first
+            return;
+        }
+        order.setPaymentStatus(PaymentStatus.REFUNDED);
+        order.setUpdatedAt(now);
+        orderEventRecorder.record(order, OrderEventType.PAYMENT_STATUS_CHANGED);
+        refundedCounter.increment();
+        log.info("Refunded order {}, which was paid after it expired", order.getId());
+    }
+}
@@ -0,0 +1,8 @@
+package com.femi.orderservice.payment;
+
+public interface PaymentProvider {
+    CheckoutSession createCheckoutSession(CheckoutRequest request);
+
+    // Refunds whatever was collected through the session; repeating it for the same session refunds once
+    void refund(String sessionId);
+}
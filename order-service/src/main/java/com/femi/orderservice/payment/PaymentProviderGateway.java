@@ -0,0 +1,132 @@
+package com.femi.orderservice.payment;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulkhead around the payment provider. Calls run on dedicated virtual threads, at most
+ * {@code maxConcurrent} at a time, each bounded by a timeout; callers that cannot get a slot
+ * quickly are rejected so a slow provider cannot exhaust the request thread pool.
+ */
+@Component
+public class PaymentProviderGateway {
+
+    private final PaymentProvider provider;
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final Duration maxWait;
+    private final Duration callTimeout;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("payment-provider-", 0).factory());
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Counter rejectedCounter;
+    private final Counter timeoutCounter;
+    private final Timer callTimer;
+
+    public PaymentProviderGateway(PaymentProvider provider,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${payment.bulkhead.max-concurrent:20}") int maxConcurrent,
+                                  @Value("${payment.bulkhead.max-wait:100ms}") Duration maxWait,
+                                  @Value("${payment.call-timeout:5s}") Duration callTimeout) {
+        this.provider = provider;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.maxWait = maxWait;
+        this.callTimeout = callTimeout;
+
+        this.rejectedCounter = meterRegistry.counter("payment.provider.rejected");
+        this.timeoutCounter = meterRegistry.counter("payment.provider.timeouts");
+        this.callTimer = meterRegistry.timer("payment.provider.calls");
+        Gauge.builder("payment.provider.queue.depth", waiting, AtomicInteger::get)
+                .description("Callers waiting for a payment provider slot")
+                .register(meterRegistry);
+        Gauge.builder("payment.provider.active", permits, p -> this.maxConcurrent - p.availablePermits())
+                .description("Payment provider calls in flight")
+                .register(meterRegistry);
+    }
+
+    public CheckoutSession createCheckoutSession(CheckoutRequest request) {
+        return call(() -> provider.createCheckoutSession(request));
+    }
+
+    public void refund(String sessionId) {
+        call(() -> {
+            provider.refund(sessionId);
+            return null;
+        });
+    }
+
+    private <T> T call(Callable<T> providerCall) {
+        acquirePermit();
+
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                try {
+                    return callTimer.recordCallable(providerCall);
+                } finally {
+                    // Released when the call really ends, so timed-out calls still count against the cap
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw new PaymentProviderUnavailableException("Payment provider is not accepting calls", e);
+        }
+
+        try {
+            return future.get(callTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeoutCounter.increment();
+            throw new PaymentProviderUnavailableException("Payment provider timed out", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Payment provider call failed", e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PaymentProviderUnavailableException("Interrupted while waiting for payment provider", e);
+        }
+    }
+
+    private void acquirePermit() {
+        waiting.incrementAndGet();
+        try {
+            if (!permits.tryAcquire(maxWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                rejectedCounter.increment();
+                throw new PaymentProviderUnavailableException("Payment provider is busy, please retry");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PaymentProviderUnavailableException("Interrupted while waiting for payment provider", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,16 @@
+package com.femi.orderservice.payment;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class PaymentProviderUnavailableException extends RuntimeException {
+
+    public PaymentProviderUnavailableException(String message) {
+        super(message);
+    }
+
+    public PaymentProviderUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,6 @@
+package com.femi.orderservice.payment;
+
+import com.femi.orderservice.model.PaymentStatus;
+
+public record PaymentStatusUpdate(String eventId, String sessionId, PaymentStatus status) {
+}
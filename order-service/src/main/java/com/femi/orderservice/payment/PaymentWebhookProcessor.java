@@ -0,0 +1,278 @@
+package com.femi.orderservice.payment;
+
+import com.femi.orderservice.model.Order;
+import com.femi.orderservice.model.OrderEventType;
+import com.femi.orderservice.model.OrderStatus;
+import com.femi.orderservice.model.PaymentStatus;
+import com.femi.orderservice.model.PaymentWebhookEvent;
+import com.femi.orderservice.repository.OrderRepository;
+import com.femi.orderservice.repository.PaymentWebhookEventRepository;
+import com.femi.orderservice.service.OrderEventRecorder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Applies payment webhooks through the {@code payment_webhook_inbox} table. The webhook endpoint
+ * stores each event there, keyed by the provider's event id, before it acknowledges it: an event
+ * the provider saw a 2xx for is durable, and a redelivery of a stored one is turned away by the
+ * primary key. Workers claim due events in batches with {@code FOR UPDATE SKIP LOCKED} and write
+ * them with one guarded UPDATE per target status, so a burst of redelivered events after an outage
+ * costs a handful of transactions rather than one each. A failed batch is retried one event at a
+ * time, and an event that still fails on its own is deferred with a growing delay, never dropped.
+ * <p>
+ * An event is only marked processed once it has settled an order: either the update matched it, or
+ * an order carries the session but has already moved past the transition. An event whose session no
+ * order carries yet (the webhook can beat the save of the session id) is retried the same way, and
+ * parked for review if that is still true after {@code payment.webhook.unmatched-after}.
+ */
+@Component
+@Slf4j
+public class PaymentWebhookProcessor {
+
+    private static final String INSERT_EVENT = "INSERT INTO payment_webhook_inbox " +
+            "(event_id, session_id, target_status, received_at, attempts, next_attempt_at) VALUES (?, ?, ?, ?, 0, ?)";
+
+    private final OrderRepository orderRepository;
+    private final PaymentWebhookEventRepository inboxRepository;
+    private final OrderEventRecorder orderEventRecorder;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final Duration retryDelay;
+    private final Duration maxRetryDelay;
+    private final Duration retention;
+    private final Duration unmatchedAfter;
+
+    private final Counter receivedCounter;
+    private final Counter appliedCounter;
+    private final Counter duplicateCounter;
+    private final Counter failureCounter;
+    private final Counter unmatchedCounter;
+    private final Timer batchTimer;
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final AtomicLong parked = new AtomicLong();
+
+    public PaymentWebhookProcessor(OrderRepository orderRepository,
+                                   PaymentWebhookEventRepository inboxRepository,
+                                   OrderEventRecorder orderEventRecorder,
+                                   TransactionTemplate transactionTemplate,
+                                   JdbcTemplate jdbcTemplate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${payment.webhook.batch-size:500}") int batchSize,
+                                   @Value("${payment.webhook.retry-delay:10s}") Duration retryDelay,
+                                   @Value("${payment.webhook.max-retry-delay:10m}") Duration maxRetryDelay,
+                                   @Value("${payment.webhook.retention:3d}") Duration retention,
+                                   @Value("${payment.webhook.unmatched-after:1h}") Duration unmatchedAfter) {
+        this.orderRepository = orderRepository;
+        this.inboxRepository = inboxRepository;
+        this.orderEventRecorder = orderEventRecorder;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.retryDelay = retryDelay;
+        this.maxRetryDelay = maxRetryDelay;
+        this.retention = retention;
+        this.unmatchedAfter = unmatchedAfter;
+
+        this.receivedCounter = meterRegistry.counter("payment.webhook.received");
+        this.appliedCounter = meterRegistry.counter("payment.webhook.applied");
+        this.duplicateCounter = meterRegistry.counter("payment.webhook.duplicates");
+        this.failureCounter = meterRegistry.counter("payment.webhook.failures");
+        this.unmatchedCounter = meterRegistry.counter("payment.webhook.unmatched");
+        this.batchTimer = meterRegistry.timer("payment.webhook.batch.duration");
+        Gauge.builder("payment.webhook.lag", lagMillis, AtomicLong::get)
+                .baseUnit("milliseconds")
+                .description("Age of the oldest webhook event not yet applied")
+                .register(meterRegistry);
+        Gauge.builder("payment.webhook.parked", parked, AtomicLong::get)
+                .description("Webhook events parked because no order carries their session")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Stores the event for the workers. Returns false for a redelivery of an event that is already
+     * stored; any other failure is thrown, so the endpoint never acknowledges an event it has lost.
+     */
+    public boolean receive(PaymentStatusUpdate update) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            jdbcTemplate.update(INSERT_EVENT, update.eventId(), update.sessionId(), update.status().name(), now, now);
+        } catch (DuplicateKeyException e) {
+            duplicateCounter.increment();
+            return false;
+        }
+        receivedCounter.increment();
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${payment.webhook.poll-interval-ms:200}")
+    public void drain() {
+        int claimed;
+        do {
+            claimed = drainBatch();
+        } while (claimed == batchSize);
+
+        LocalDateTime oldest = inboxRepository.findOldestUnprocessedReceivedAt();
+        lagMillis.set(oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).toMillis());
+        parked.set(inboxRepository.countByParkedAtIsNotNull());
+    }
+
+    @Scheduled(cron = "${payment.webhook.purge-cron:0 15 * * * *}")
+    public void purgeProcessed() {
+        // Kept at least as long as the provider may redeliver, so the primary key can still turn redeliveries away
+        Integer deleted = transactionTemplate.execute(status ->
+                inboxRepository.deleteProcessedBefore(LocalDateTime.now().minus(retention)));
+        log.debug("Purged {} processed payment webhook events", deleted);
+    }
+
+    int drainBatch() {
+        List<PaymentWebhookEvent> claimed = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                claimed.addAll(inboxRepository.claimDue(LocalDateTime.now(), batchSize));
+                batchTimer.record(() -> apply(claimed));
+            });
+        } catch (RuntimeException e) {
+            if (claimed.isEmpty()) {
+                log.warn("Claiming payment webhook events failed: {}", e.getMessage());
+                return 0;
+            }
+            log.warn("Applying {} payment webhook events failed, retrying them one by one: {}", claimed.size(), e.getMessage());
+            claimed.forEach(this::applyAlone);
+        }
+        return claimed.size();
+    }
+
+    private void applyAlone(PaymentWebhookEvent event) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    inboxRepository.lockUnprocessed(event.getEventId()).ifPresent(locked -> apply(List.of(locked))));
+        } catch (RuntimeException e) {
+            failureCounter.increment();
+            Duration delay = backoff(event.getAttempts());
+            log.error("Payment webhook event {} for session {} failed on attempt {}, retrying in {}: {}",
+                    event.getEventId(), event.getSessionId(), event.getAttempts() + 1, delay, e.getMessage());
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        inboxRepository.deferRetry(event.getEventId(), LocalDateTime.now().plus(delay)));
+            } catch (RuntimeException deferFailure) {
+                // Still unprocessed, so the next poll claims it again
+                log.warn("Deferring payment webhook event {} failed: {}", event.getEventId(), deferFailure.getMessage());
+            }
+        }
+    }
+
+    // Must run inside a transaction; the events are marked processed in the same one
+    void apply(List<PaymentWebhookEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        // Last event wins per session within a batch
+        Map<String, PaymentWebhookEvent> bySession = new LinkedHashMap<>();
+        for (PaymentWebhookEvent event : events) {
+            bySession.merge(event.getSessionId(), event, PaymentWebhookProcessor::preferred);
+        }
+
+        Map<PaymentStatus, Set<String>> sessionsByStatus = new EnumMap<>(PaymentStatus.class);
+        for (PaymentWebhookEvent event : bySession.values()) {
+            sessionsByStatus.computeIfAbsent(event.getTargetStatus(), s -> new LinkedHashSet<>()).add(event.getSessionId());
+        }
+
+        Set<String> settled = new HashSet<>();
+        for (Map.Entry<PaymentStatus, Set<String>> entry : sessionsByStatus.entrySet()) {
+            settled.addAll(applyStatus(entry.getKey(), entry.getValue()));
+        }
+        appliedCounter.increment(settled.size());
+
+        Set<String> unmatched = new LinkedHashSet<>(bySession.keySet());
+        unmatched.removeAll(settled);
+        if (!unmatched.isEmpty()) {
+            // An order already past the transition has nothing left to apply; only sessions no order carries are waited for
+            settled.addAll(orderRepository.findPaymentSessionIdsIn(unmatched));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<String> processed = new ArrayList<>();
+        for (PaymentWebhookEvent event : events) {
+            if (settled.contains(event.getSessionId())) {
+                processed.add(event.getEventId());
+            } else {
+                awaitOrder(event, now);
+            }
+        }
+        if (!processed.isEmpty()) {
+            inboxRepository.markProcessed(processed, now);
+        }
+    }
+
+    private void awaitOrder(PaymentWebhookEvent event, LocalDateTime now) {
+        if (event.getReceivedAt().plus(unmatchedAfter).isBefore(now)) {
+            unmatchedCounter.increment();
+            log.error("Payment webhook event {} for session {} has matched no order since {}, parking it",
+                    event.getEventId(), event.getSessionId(), event.getReceivedAt());
+            inboxRepository.park(event.getEventId(), now);
+        } else {
+            log.debug("Payment webhook event {} for session {} matches no order yet, retrying",
+                    event.getEventId(), event.getSessionId());
+            inboxRepository.deferRetry(event.getEventId(), now.plus(backoff(event.getAttempts())));
+        }
+    }
+
+    // Returns the sessions whose orders were updated
+    private Set<String> applyStatus(PaymentStatus target, Set<String> sessionIds) {
+        Set<PaymentStatus> fromStatuses = target.allowedSources();
+        List<Order> orders = orderRepository.lockByPaymentSessionIds(sessionIds, fromStatuses);
+        if (orders.isEmpty()) {
+            return Set.of();
+        }
+
+        List<Long> ids = orders.stream().map(Order::getId).collect(Collectors.toList());
+        LocalDateTime now = LocalDateTime.now();
+        orderRepository.updatePaymentStatus(ids, fromStatuses, target, now);
+
+        // The bulk update cleared the persistence context, so these copies are detached snapshots
+        for (Order order : orders) {
+            if (target == PaymentStatus.PAID && order.getOrderStatus() == OrderStatus.EXPIRED) {
+                // Its stock is already back on sale; ExpiredPaymentRefunder sends the money back
+                log.warn("Order {} was paid after it expired, refunding", order.getId());
+            }
+            order.setPaymentStatus(target);
+            order.setUpdatedAt(now);
+            orderEventRecorder.record(order, OrderEventType.PAYMENT_STATUS_CHANGED);
+        }
+        return orders.stream().map(Order::getPaymentSessionId).collect(Collectors.toSet());
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = retryDelay.multipliedBy(1L << Math.min(attempts, 16));
+        return delay.compareTo(maxRetryDelay) > 0 ? maxRetryDelay : delay;
+    }
+
+    private static PaymentWebhookEvent preferred(PaymentWebhookEvent current, PaymentWebhookEvent next) {
+        // A success anywhere in the batch beats a failure notice that arrived out of order
+        return current.getTargetStatus() == PaymentStatus.PAID ? current : next;
+    }
+}
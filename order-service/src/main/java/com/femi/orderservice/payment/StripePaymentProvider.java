@@ -0,0 +1,96 @@
+package com.femi.orderservice.payment;
+
+import com.stripe.Stripe;
+import com.stripe.exception.StripeException;
+import com.stripe.model.Refund;
+import com.stripe.model.checkout.Session;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.RefundCreateParams;
+import com.stripe.param.checkout.SessionCreateParams;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+@Component
+@ConditionalOnProperty(name = "payment.provider", havingValue = "stripe", matchIfMissing = true)
+public class StripePaymentProvider implements PaymentProvider {
+
+    // Stripe rejects a checkout session that would expire sooner than this after creation
+    private static final Duration MIN_SESSION_LIFETIME = Duration.ofMinutes(30);
+
+    @Value("${stripe.secret-key}")
+    private String stripeSecretKey;
+
+    @Value("${payment.call-timeout:5s}")
+    private Duration callTimeout;
+
+    @PostConstruct
+    public void init() {
+        Stripe.apiKey = stripeSecretKey;
+    }
+
+    @Override
+    public CheckoutSession createCheckoutSession(CheckoutRequest request) {
+        // Without this the session stays payable for Stripe's default of 24 hours
+        Instant earliest = Instant.now().plus(MIN_SESSION_LIFETIME).plusSeconds(60);
+        Instant expiresAt = request.getExpiresAt().isAfter(earliest) ? request.getExpiresAt() : earliest;
+
+        SessionCreateParams.Builder params = SessionCreateParams.builder()
+                .setMode(SessionCreateParams.Mode.PAYMENT)
+                .setClientReferenceId(String.valueOf(request.getOrderId()))
+                .setExpiresAt(expiresAt.getEpochSecond())
+                .setSuccessUrl(request.getSuccessUrl())
+                .setCancelUrl(request.getCancelUrl());
+
+        for (CheckoutLineItem item : request.getLineItems()) {
+            SessionCreateParams.LineItem.PriceData.ProductData productData =
+                    SessionCreateParams.LineItem.PriceData.ProductData.builder()
+                            .setName(item.getName())
+                            .build();
+
+            SessionCreateParams.LineItem.PriceData priceData =
+                    SessionCreateParams.LineItem.PriceData.builder()
+                            .setCurrency(request.getCurrency())
+                            .setUnitAmount(item.getUnitAmountInCents())
+                            .setProductData(productData)
+                            .build();
+
+            params.addLineItem(SessionCreateParams.LineItem.builder()
+                    .setPriceData(priceData)
+                    .setQuantity(item.getQuantity())
+                    .build());
+        }
+
+        try {
+            Session session = Session.create(params.build(), requestOptions().build());
+            return new CheckoutSession(session.getId(), session.getUrl(), Instant.ofEpochSecond(session.getExpiresAt()));
+        } catch (StripeException e) {
+            throw new RuntimeException("Stripe payment session creation failed", e);
+        }
+    }
+
+    @Override
+    public void refund(String sessionId) {
+        try {
+            Session session = Session.retrieve(sessionId, requestOptions().build());
+            RefundCreateParams params = RefundCreateParams.builder()
+                    .setPaymentIntent(session.getPaymentIntent())
+                    .build();
+            // Stripe answers a repeated key with the original refund, so retries never refund twice
+            Refund.create(params, requestOptions().setIdempotencyKey("refund-" + sessionId).build());
+        } catch (StripeException e) {
+            throw new RuntimeException("Stripe refund failed for session " + sessionId, e);
+        }
+    }
+
+    // Socket timeouts so a hung connection does not outlive the gateway's own deadline
+    private RequestOptions.RequestOptionsBuilder requestOptions() {
+        return RequestOptions.builder()
+                .setConnectTimeout((int) callTimeout.toMillis())
+                .setReadTimeout((int) callTimeout.toMillis());
+    }
+}
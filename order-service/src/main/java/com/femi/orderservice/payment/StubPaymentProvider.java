@@ -0,0 +1,43 @@
+package com.femi.orderservice.payment;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+// Local stand-in for Stripe with configurable latency, used for load testing
+@Component
+@ConditionalOnProperty(name = "payment.provider", havingValue = "stub")
+public class StubPaymentProvider implements PaymentProvider {
+
+    private final Duration latency;
+
+    public StubPaymentProvider(@Value("${payment.stub.latency:200ms}") Duration latency) {
+        this.latency = latency;
+    }
+
+    @Override
+    public CheckoutSession createCheckoutSession(CheckoutRequest request) {
+        pause();
+
+        String sessionId = "cs_stub_" + UUID.randomUUID();
+        return new CheckoutSession(sessionId, "http://localhost:3000/stub-checkout/" + sessionId, request.getExpiresAt());
+    }
+
+    @Override
+    public void refund(String sessionId) {
+        pause();
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Stub payment provider interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.femi.orderservice.placement;
+
+import com.femi.orderservice.model.Order;
+import com.femi.orderservice.model.OrderEventType;
+import com.femi.orderservice.model.OrderItem;
+import com.femi.orderservice.model.OrderOutboxEvent;
+import com.femi.orderservice.model.OrderStatus;
+import com.femi.orderservice.model.PaymentStatus;
+import com.femi.orderservice.rollup.SalesRollupRecorder;
+import com.femi.orderservice.service.OrderEventRecorder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserts newly placed orders in groups. Callers hand over a fully built order and wait; worker
+ * threads drain whatever has queued up (lingering briefly for stragglers) and write the whole
+ * group in one transaction: one multi-row INSERT each for orders, order_items and order_outbox,
+ * plus a single rollup upsert. If a group fails, its orders are retried one by one so a single
+ * bad order cannot fail the rest.
+ */
+@Component
+@Slf4j
+public class OrderGroupCommitter {
+
+    private static final String INSERT_ORDER = "INSERT INTO orders (id, buyer_id, product_id, seller_id, product_name, " +
+            "total_amount, quantity, payment_status, order_status, payment_session_id, reservation_id, created_at, updated_at, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_ITEM = "INSERT INTO order_items (order_id, product_id, product_name, unit_price, quantity) " +
+            "VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_EVENT = "INSERT INTO order_outbox (order_id, event_type, payload, created_at) " +
+            "VALUES (?, ?, ?, ?)";
+
+    private record PendingOrder(Order order, CompletableFuture<Order> result) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderIdAllocator idAllocator;
+    private final OrderEventRecorder orderEventRecorder;
+    private final SalesRollupRecorder salesRollupRecorder;
+    private final BlockingQueue<PendingOrder> queue;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final int workerCount;
+
+    private final DistributionSummary batchSizes;
+    private final Counter fallbackCounter;
+
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    public OrderGroupCommitter(JdbcTemplate jdbcTemplate,
+                               TransactionTemplate transactionTemplate,
+                               OrderIdAllocator idAllocator,
+                               OrderEventRecorder orderEventRecorder,
+                               SalesRollupRecorder salesRollupRecorder,
+                               MeterRegistry meterRegistry,
+                               @Value("${order.placement.max-batch-size:200}") int maxBatchSize,
+                               @Value("${order.placement.linger:2ms}") Duration linger,
+                               @Value("${order.placement.queue-capacity:5000}") int queueCapacity,
+                               @Value("${order.placement.workers:2}") int workerCount) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.idAllocator = idAllocator;
+        this.orderEventRecorder = orderEventRecorder;
+        this.salesRollupRecorder = salesRollupRecorder;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = linger.toNanos();
+        this.workerCount = workerCount;
+
+        this.batchSizes = DistributionSummary.builder("order.placement.batch.size")
+                .description("Orders written per group commit")
+                .register(meterRegistry);
+        this.fallbackCounter = meterRegistry.counter("order.placement.fallbacks");
+        Gauge.builder("order.placement.queue.depth", queue, BlockingQueue::size)
+                .description("Placed orders waiting for a group commit")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(Thread.ofPlatform().name("order-group-commit-" + i).daemon().start(this::drain));
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        // Anything still queued is committed by hand rather than abandoned
+        List<PendingOrder> leftover = new ArrayList<>();
+        queue.drainTo(leftover);
+        leftover.forEach(this::commitAlone);
+    }
+
+    /**
+     * Blocks until the order (with its items, outbox event and rollup contribution) is committed,
+     * and returns it with its id assigned. Failures are rethrown to the caller.
+     */
+    public Order commit(Order order) {
+        PendingOrder pending = new PendingOrder(order, new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            // A full queue means the database is already the bottleneck; queueing deeper only adds latency
+            fallbackCounter.increment();
+            commitAlone(pending);
+        }
+        try {
+            return pending.result().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Order commit failed", e.getCause());
+        }
+    }
+
+    private void drain() {
+        List<PendingOrder> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                PendingOrder first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                linger(batch);
+                commitBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(this::commitAlone);
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Callers a moment behind the first one still get to share its commit
+    private void linger(List<PendingOrder> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            PendingOrder next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+    }
+
+    private void commitBatch(List<PendingOrder> batch) {
+        try {
+            assignIds(batch.stream().map(PendingOrder::order).toList());
+            transactionTemplate.executeWithoutResult(status -> insert(batch.stream().map(PendingOrder::order).toList()));
+            batchSizes.record(batch.size());
+            batch.forEach(pending -> pending.result().complete(pending.order()));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).result().completeExceptionally(e);
+                return;
+            }
+            log.warn("Group commit of {} orders failed, retrying them one by one: {}", batch.size(), e.getMessage());
+            batch.forEach(this::commitAlone);
+        }
+    }
+
+    private void commitAlone(PendingOrder pending) {
+        try {
+            assignIds(List.of(pending.order()));
+            transactionTemplate.executeWithoutResult(status -> insert(List.of(pending.order())));
+            batchSizes.record(1);
+            pending.result().complete(pending.order());
+        } catch (RuntimeException e) {
+            pending.result().completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Must run before the insert transaction opens. A new block is reserved on a connection of its
+     * own, so doing it inside the transaction would hold two connections per worker and let the
+     * one-by-one fallback starve the pool. Ids assigned by an earlier, rolled-back attempt are reused.
+     */
+    void assignIds(List<Order> orders) {
+        List<Order> unassigned = orders.stream().filter(order -> order.getId() == null).toList();
+        Iterator<Long> ids = idAllocator.allocate(unassigned.size()).iterator();
+        unassigned.forEach(order -> order.setId(ids.next()));
+    }
+
+    // Must run inside a transaction, on orders that already have their ids
+    void insert(List<Order> orders) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Order order : orders) {
+            if (order.getCreatedAt() == null) {
+                order.setCreatedAt(now);
+            }
+            order.setOrderStatus(OrderStatus.PLACED);
+            order.setPaymentStatus(PaymentStatus.PENDING);
+            order.setVersion(0L);
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_ORDER, orders, orders.size(), (ps, order) -> {
+            ps.setLong(1, order.getId());
+            ps.setObject(2, order.getBuyerId());
+            ps.setObject(3, order.getProductId());
+            ps.setObject(4, order.getSellerId());
+            ps.setString(5, order.getProductName());
+            ps.setBigDecimal(6, order.getTotalAmount());
+            ps.setObject(7, order.getQuantity());
+            ps.setString(8, order.getPaymentStatus().name());
+            ps.setString(9, order.getOrderStatus().name());
+            ps.setString(10, order.getPaymentSessionId());
+            ps.setString(11, order.getReservationId());
+            ps.setObject(12, order.getCreatedAt());
+            ps.setObject(13, order.getUpdatedAt());
+            ps.setLong(14, order.getVersion());
+        });
+
+        List<Map.Entry<Long, OrderItem>> items = orders.stream()
+                .flatMap(order -> order.getItems().stream().map(item -> Map.entry(order.getId(), item)))
+                .toList();
+        if (!items.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ITEM, items, items.size(), (ps, entry) -> {
+                OrderItem item = entry.getValue();
+                ps.setLong(1, entry.getKey());
+                ps.setObject(2, item.getProductId());
+                ps.setString(3, item.getProductName());
+                ps.setBigDecimal(4, item.getUnitPrice());
+                ps.setObject(5, item.getQuantity());
+            });
+        }
+
+        List<OrderOutboxEvent> events = orders.stream()
+                .map(order -> orderEventRecorder.toOutboxEvent(order, OrderEventType.ORDER_PLACED))
+                .toList();
+        jdbcTemplate.batchUpdate(INSERT_EVENT, events, events.size(), (ps, event) -> {
+            ps.setLong(1, event.getOrderId());
+            ps.setString(2, event.getEventType().name());
+            ps.setString(3, event.getPayload());
+            ps.setObject(4, now);
+        });
+
+        salesRollupRecorder.add(orders.stream().map(Order::getId).toList());
+    }
+}
@@ -0,0 +1,79 @@
+package com.femi.orderservice.placement;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hands out order ids from blocks reserved in {@code id_blocks}, so a batch of orders can be
+ * inserted with ids already known. Each instance reserves a block with one short transaction of
+ * its own; ids left in a block when the instance stops are simply never used. Call it outside any
+ * transaction: a caller already holding a connection would need a second one to reserve a block.
+ */
+@Component
+public class OrderIdAllocator {
+
+    private static final String SEQUENCE = "orders";
+
+    // The first block starts above every id handed out by the old AUTO_INCREMENT column, archived ones included
+    private static final String SEED = "INSERT INTO id_blocks (name, next_value) " +
+            "SELECT '" + SEQUENCE + "', COALESCE(MAX(id), 0) + 1 FROM (SELECT id FROM orders UNION ALL SELECT id FROM orders_archive) ids";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate blockTransaction;
+    private final int blockSize;
+
+    private long next;
+    private long limit;
+
+    public OrderIdAllocator(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${order.placement.id-block-size:1000}") int blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Never hold the block row for the length of the caller's transaction
+        this.blockTransaction = new TransactionTemplate(transactionManager);
+        this.blockTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = blockSize;
+    }
+
+    public synchronized List<Long> allocate(int count) {
+        List<Long> ids = new ArrayList<>(count);
+        while (ids.size() < count) {
+            if (next >= limit) {
+                reserveBlock(Math.max(blockSize, count - ids.size()));
+            }
+            ids.add(next++);
+        }
+        return ids;
+    }
+
+    private void reserveBlock(int size) {
+        long start = blockTransaction.execute(status -> {
+            List<Long> current = lockBlock();
+            if (current.isEmpty()) {
+                try {
+                    jdbcTemplate.update(SEED);
+                } catch (DuplicateKeyException e) {
+                    // Another instance seeded the sequence first
+                }
+                current = lockBlock();
+            }
+            long from = current.get(0);
+            jdbcTemplate.update("UPDATE id_blocks SET next_value = ? WHERE name = ?", from + size, SEQUENCE);
+            return from;
+        });
+        next = start;
+        limit = start + size;
+    }
+
+    private List<Long> lockBlock() {
+        return jdbcTemplate.queryForList("SELECT next_value FROM id_blocks WHERE name = ? FOR UPDATE", Long.class, SEQUENCE);
+    }
+}
@@ -0,0 +1,35 @@
+package com.femi.orderservice.repository;
+
+import com.femi.orderservice.dto.BuyerOrderView;
+import com.femi.orderservice.dto.OrderItemView;
+import com.femi.orderservice.model.ArchivedOrder;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+
+    String BUYER_ORDER_COLUMNS = "SELECT o.id AS id, o.buyerId AS buyerId, o.productId AS productId, " +
+            "o.productName AS productName, o.totalAmount AS totalAmount, o.quantity AS quantity, " +
+            "o.orderStatus AS orderStatus, o.paymentStatus AS paymentStatus, o.createdAt AS createdAt FROM ArchivedOrder o ";
+
+    @Query(BUYER_ORDER_COLUMNS + "WHERE o.buyerId = :buyerId ORDER BY o.createdAt DESC, o.id DESC")
+    List<BuyerOrderView> findBuyerOrders(@Param("buyerId") Long buyerId, Limit limit);
+
+    @Query(BUYER_ORDER_COLUMNS + "WHERE o.buyerId = :buyerId " +
+            "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<BuyerOrderView> findBuyerOrdersBefore(@Param("buyerId") Long buyerId,
+                                               @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("id") Long id,
+                                               Limit limit);
+
+    @Query("SELECT o.id AS orderId, i.productId AS productId, i.productName AS productName, " +
+            "i.unitPrice AS unitPrice, i.quantity AS quantity FROM ArchivedOrder o JOIN o.items i WHERE o.id IN :orderIds")
+    List<OrderItemView> findItemViewsByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+}
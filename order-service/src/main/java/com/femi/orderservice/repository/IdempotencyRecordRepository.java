@@ -0,0 +1,57 @@
+package com.femi.orderservice.repository;
+
+import com.femi.orderservice.model.IdempotencyRecord;
+import com.femi.orderservice.model.IdempotencyStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // Atomic claim across instances: returns 0 when another request already owns the key
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO idempotency_keys (id, request_fingerprint, status, created_at, expires_at) " +
+            "VALUES (:id, :fingerprint, 'IN_PROGRESS', :createdAt, :expiresAt)", nativeQuery = true)
+    int tryClaim(@Param("id") String id,
+                 @Param("fingerprint") String fingerprint,
+                 @Param("createdAt") LocalDateTime createdAt,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+
+    // Atomic takeover of a key whose lease or response has run out; returns 0 if another request got there first
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.requestFingerprint = :fingerprint, r.status = :status, " +
+            "r.responseStatus = NULL, r.responseContentType = NULL, r.responseBody = NULL, " +
+            "r.createdAt = :now, r.expiresAt = :expiresAt WHERE r.id = :id AND r.expiresAt < :now")
+    int takeOver(@Param("id") String id,
+                 @Param("fingerprint") String fingerprint,
+                 @Param("status") IdempotencyStatus status,
+                 @Param("now") LocalDateTime now,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = :status, r.responseStatus = :responseStatus, " +
+            "r.responseContentType = :contentType, r.responseBody = :body, r.expiresAt = :expiresAt WHERE r.id = :id")
+    int complete(@Param("id") String id,
+                 @Param("status") IdempotencyStatus status,
+                 @Param("responseStatus") int responseStatus,
+                 @Param("contentType") String contentType,
+                 @Param("body") byte[] body,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.id = :id")
+    int release(@Param("id") String id);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
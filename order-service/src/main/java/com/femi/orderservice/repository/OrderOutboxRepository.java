@@ -0,0 +1,30 @@
+package com.femi.orderservice.repository;
+
+import com.femi.orderservice.model.OrderOutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface OrderOutboxRepository extends JpaRepository<OrderOutboxEvent, Long> {
+
+    // Rows locked by another relay instance are skipped instead of waited on
+    @Query(value = "SELECT * FROM order_outbox WHERE published_at IS NULL ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<OrderOutboxEvent> claimUnpublished(@Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE OrderOutboxEvent e SET e.publishedAt = :publishedAt WHERE e.id IN :ids")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("publishedAt") LocalDateTime publishedAt);
+
+    @Query("SELECT MIN(e.createdAt) FROM OrderOutboxEvent e WHERE e.publishedAt IS NULL")
+    LocalDateTime findOldestUnpublishedCreatedAt();
+
+    @Modifying
+    @Query("DELETE FROM OrderOutboxEvent e WHERE e.publishedAt < :cutoff")
+    int deletePublishedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
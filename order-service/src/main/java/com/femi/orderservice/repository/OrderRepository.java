@@ -1,11 +1,122 @@
 package com.femi.orderservice.repository;
 
+import com.femi.orderservice.dto.BuyerOrderView;
+import com.femi.orderservice.dto.OrderItemView;
+import com.femi.orderservice.dto.OrderStatusView;
 import com.femi.orderservice.model.Order;
+import com.femi.orderservice.model.OrderStatus;
+import com.femi.orderservice.model.PaymentStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 
-public interface OrderRepository extends JpaRepository<Order, Long> {
-    List<Order> findByBuyerId(Long buyerId);
-}
\ No newline at end of file
+public interface OrderRepository extends JpaRepository<Order, Long>, SellerOrderQueries {
+    String BUYER_ORDER_COLUMNS = "SELECT o.id AS id, o.buyerId AS buyerId, o.productId AS productId, " +
+            "o.productName AS productName, o.totalAmount AS totalAmount, o.quantity AS quantity, " +
+            "o.orderStatus AS orderStatus, o.paymentStatus AS paymentStatus, o.createdAt AS createdAt FROM Order o ";
+
+    // First page and following pages are separate queries so each is a plain range scan on (buyer_id, created_at, id)
+    @Query(BUYER_ORDER_COLUMNS + "WHERE o.buyerId = :buyerId ORDER BY o.createdAt DESC, o.id DESC")
+    List<BuyerOrderView> findBuyerOrders(@Param("buyerId") Long buyerId, Limit limit);
+
+    @Query(BUYER_ORDER_COLUMNS + "WHERE o.buyerId = :buyerId " +
+            "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<BuyerOrderView> findBuyerOrdersBefore(@Param("buyerId") Long buyerId,
+                                               @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("id") Long id,
+                                               Limit limit);
+
+    @Query("SELECT o.id AS orderId, i.productId AS productId, i.productName AS productName, " +
+            "i.unitPrice AS unitPrice, i.quantity AS quantity FROM Order o JOIN o.items i WHERE o.id IN :orderIds")
+    List<OrderItemView> findItemViewsByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    @Query("SELECT o.reservationId FROM Order o WHERE o.id IN :orderIds AND o.reservationId IS NOT NULL")
+    List<String> findReservationIds(@Param("orderIds") Collection<Long> orderIds);
+
+    // Rows are locked in id order so concurrent bulk transitions cannot deadlock on each other
+    @Query(value = "SELECT id AS id, buyer_id AS buyerId, seller_id AS sellerId, total_amount AS totalAmount, " +
+            "order_status AS orderStatus, payment_status AS paymentStatus " +
+            "FROM orders WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<OrderStatusView> lockStatusesByIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Order o SET o.orderStatus = :status, o.updatedAt = :now, o.version = o.version + 1 " +
+            "WHERE o.id IN :ids AND o.orderStatus IN :fromStatuses")
+    int updateOrderStatus(@Param("ids") Collection<Long> ids,
+                          @Param("fromStatuses") Collection<OrderStatus> fromStatuses,
+                          @Param("status") OrderStatus status,
+                          @Param("now") LocalDateTime now);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.paymentSessionId IN :sessionIds AND o.paymentStatus IN :fromStatuses")
+    List<Order> lockByPaymentSessionIds(@Param("sessionIds") Collection<String> sessionIds,
+                                        @Param("fromStatuses") Collection<PaymentStatus> fromStatuses);
+
+    @Query("SELECT o.paymentSessionId FROM Order o WHERE o.paymentSessionId IN :sessionIds")
+    List<String> findPaymentSessionIdsIn(@Param("sessionIds") Collection<String> sessionIds);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Order o SET o.paymentStatus = :status, o.updatedAt = :now, o.version = o.version + 1 " +
+            "WHERE o.id IN :ids AND o.paymentStatus IN :fromStatuses")
+    int updatePaymentStatus(@Param("ids") Collection<Long> ids,
+                            @Param("fromStatuses") Collection<PaymentStatus> fromStatuses,
+                            @Param("status") PaymentStatus status,
+                            @Param("now") LocalDateTime now);
+
+    // Swaps in a new checkout session only if nobody else has since, and only while the order can still be paid
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Order o SET o.paymentSessionId = :sessionId, o.paymentSessionUrl = :sessionUrl, " +
+            "o.paymentExpiresAt = :expiresAt, o.paymentStatus = :pending, o.updatedAt = :now, o.version = o.version + 1 " +
+            "WHERE o.id = :id AND o.orderStatus <> :expired AND o.paymentStatus IN :fromStatuses " +
+            "AND (o.paymentSessionId = :previousSessionId OR (:previousSessionId IS NULL AND o.paymentSessionId IS NULL))")
+    int replacePaymentSession(@Param("id") Long id,
+                              @Param("previousSessionId") String previousSessionId,
+                              @Param("sessionId") String sessionId,
+                              @Param("sessionUrl") String sessionUrl,
+                              @Param("expiresAt") LocalDateTime expiresAt,
+                              @Param("fromStatuses") Collection<PaymentStatus> fromStatuses,
+                              @Param("pending") PaymentStatus pending,
+                              @Param("expired") OrderStatus expired,
+                              @Param("now") LocalDateTime now);
+
+    // Orders whose payment window has lapsed, locked in id order like lockStatusesByIds
+    @Query(value = "SELECT id AS id, buyer_id AS buyerId, seller_id AS sellerId, total_amount AS totalAmount, " +
+            "order_status AS orderStatus, payment_status AS paymentStatus " +
+            "FROM orders WHERE id IN (:ids) AND order_status = 'PLACED' AND payment_status IN (:unpaidStatuses) " +
+            "AND created_at <= :cutoff AND (payment_expires_at IS NULL OR payment_expires_at <= :now) " +
+            "ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<OrderStatusView> lockLapsedOrders(@Param("ids") Collection<Long> ids,
+                                           @Param("unpaidStatuses") Collection<String> unpaidStatuses,
+                                           @Param("cutoff") LocalDateTime cutoff,
+                                           @Param("now") LocalDateTime now);
+
+    // Lapsed orders the expirer skipped because the buyer still has a checkout session open
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids AND o.orderStatus = :status AND o.paymentExpiresAt > :now")
+    List<Order> findHeldBySession(@Param("ids") Collection<Long> ids,
+                                  @Param("status") OrderStatus status,
+                                  @Param("now") LocalDateTime now);
+
+    // Served by idx_orders_status_payment_created; there are normally none
+    @Query(value = "SELECT id FROM orders WHERE order_status = 'EXPIRED' AND payment_status = 'PAID' " +
+            "ORDER BY created_at LIMIT :limit", nativeQuery = true)
+    List<Long> findPaidAfterExpiry(@Param("limit") int limit);
+
+    // Expired before :expiredBefore and still holding stock; the release of newer ones may still be under way
+    @Query(value = "SELECT id FROM orders WHERE order_status = 'EXPIRED' AND stock_released_at IS NULL " +
+            "AND updated_at < :expiredBefore ORDER BY id LIMIT :limit", nativeQuery = true)
+    List<Long> findExpiredWithUnreleasedStock(@Param("expiredBefore") LocalDateTime expiredBefore, @Param("limit") int limit);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Order o SET o.stockReleasedAt = :now WHERE o.id IN :ids AND o.stockReleasedAt IS NULL")
+    int markStockReleased(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,46 @@
+package com.femi.orderservice.repository;
+
+import com.femi.orderservice.model.PaymentWebhookEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface PaymentWebhookEventRepository extends JpaRepository<PaymentWebhookEvent, String> {
+
+    // Rows locked by another instance's worker are skipped instead of waited on
+    @Query(value = "SELECT * FROM payment_webhook_inbox WHERE processed_at IS NULL AND parked_at IS NULL AND next_attempt_at <= :now " +
+            "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<PaymentWebhookEvent> claimDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM payment_webhook_inbox WHERE event_id = :eventId AND processed_at IS NULL " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<PaymentWebhookEvent> lockUnprocessed(@Param("eventId") String eventId);
+
+    @Modifying
+    @Query("UPDATE PaymentWebhookEvent e SET e.processedAt = :processedAt WHERE e.eventId IN :eventIds")
+    int markProcessed(@Param("eventIds") Collection<String> eventIds, @Param("processedAt") LocalDateTime processedAt);
+
+    @Modifying
+    @Query("UPDATE PaymentWebhookEvent e SET e.attempts = e.attempts + 1, e.nextAttemptAt = :nextAttemptAt " +
+            "WHERE e.eventId = :eventId")
+    int deferRetry(@Param("eventId") String eventId, @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    @Modifying
+    @Query("UPDATE PaymentWebhookEvent e SET e.parkedAt = :parkedAt WHERE e.eventId = :eventId")
+    int park(@Param("eventId") String eventId, @Param("parkedAt") LocalDateTime parkedAt);
+
+    @Query("SELECT MIN(e.receivedAt) FROM PaymentWebhookEvent e WHERE e.processedAt IS NULL AND e.parkedAt IS NULL")
+    LocalDateTime findOldestUnprocessedReceivedAt();
+
+    long countByParkedAtIsNotNull();
+
+    @Modifying
+    @Query("DELETE FROM PaymentWebhookEvent e WHERE e.processedAt < :cutoff")
+    int deleteProcessedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
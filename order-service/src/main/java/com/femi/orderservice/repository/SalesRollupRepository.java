@@ -0,0 +1,21 @@
+package com.femi.orderservice.repository;
+
+import com.femi.orderservice.model.SalesDimension;
+import com.femi.orderservice.model.SalesRollup;
+import com.femi.orderservice.model.SalesRollupId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, SalesRollupId> {
+
+    @Query("SELECT r FROM SalesRollup r WHERE r.id.dimension = :dimension AND r.id.dimensionId = :dimensionId " +
+            "AND r.id.salesDay BETWEEN :from AND :to ORDER BY r.id.salesDay")
+    List<SalesRollup> findDays(@Param("dimension") SalesDimension dimension,
+                               @Param("dimensionId") Long dimensionId,
+                               @Param("from") LocalDate from,
+                               @Param("to") LocalDate to);
+}
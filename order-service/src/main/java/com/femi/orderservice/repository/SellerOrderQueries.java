@@ -0,0 +1,14 @@
+package com.femi.orderservice.repository;
+
+import com.femi.orderservice.dto.OrderCursor;
+import com.femi.orderservice.dto.SellerOrderFilter;
+import com.femi.orderservice.dto.SellerOrderRow;
+
+import java.util.List;
+
+public interface SellerOrderQueries {
+    List<SellerOrderRow> findSellerOrderRows(Long sellerId, SellerOrderFilter filter, OrderCursor after, int limit);
+
+    // Same query against orders_archive
+    List<SellerOrderRow> findArchivedSellerOrderRows(Long sellerId, SellerOrderFilter filter, OrderCursor after, int limit);
+}
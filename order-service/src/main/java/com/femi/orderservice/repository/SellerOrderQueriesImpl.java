@@ -0,0 +1,72 @@
+package com.femi.orderservice.repository;
+
+import com.femi.orderservice.dto.OrderCursor;
+import com.femi.orderservice.dto.SellerOrderFilter;
+import com.femi.orderservice.dto.SellerOrderRow;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.List;
+
+/**
+ * Builds the seller feed query from only the filters that are present, instead of
+ * {@code :param IS NULL OR ...} predicates the optimizer cannot use. Without a status filter the
+ * query is a range scan on {@code (seller_id, created_at, id)} that reads rows already in feed order.
+ * With one it uses {@code (seller_id, order_status, created_at)}, one range per status; several
+ * statuses are merged and sorted, which stays cheap because the limit is small.
+ */
+public class SellerOrderQueriesImpl implements SellerOrderQueries {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<SellerOrderRow> findSellerOrderRows(Long sellerId, SellerOrderFilter filter, OrderCursor after, int limit) {
+        return findRows("Order", sellerId, filter, after, limit);
+    }
+
+    @Override
+    public List<SellerOrderRow> findArchivedSellerOrderRows(Long sellerId, SellerOrderFilter filter, OrderCursor after, int limit) {
+        return findRows("ArchivedOrder", sellerId, filter, after, limit);
+    }
+
+    private List<SellerOrderRow> findRows(String entity, Long sellerId, SellerOrderFilter filter, OrderCursor after, int limit) {
+        StringBuilder jpql = new StringBuilder("SELECT new com.femi.orderservice.dto.SellerOrderRow(" +
+                "o.id, o.buyerId, o.productId, o.productName, o.quantity, o.totalAmount, " +
+                "o.orderStatus, o.paymentStatus, o.createdAt) FROM " + entity + " o WHERE o.sellerId = :sellerId");
+
+        boolean hasStatuses = filter.statuses() != null && !filter.statuses().isEmpty();
+        if (hasStatuses) {
+            jpql.append(" AND o.orderStatus IN :statuses");
+        }
+        if (filter.from() != null) {
+            jpql.append(" AND o.createdAt >= :from");
+        }
+        if (filter.to() != null) {
+            jpql.append(" AND o.createdAt < :to");
+        }
+        if (after != null) {
+            jpql.append(" AND (o.createdAt < :cursorCreatedAt OR (o.createdAt = :cursorCreatedAt AND o.id < :cursorId))");
+        }
+        jpql.append(" ORDER BY o.createdAt DESC, o.id DESC");
+
+        TypedQuery<SellerOrderRow> query = entityManager.createQuery(jpql.toString(), SellerOrderRow.class)
+                .setParameter("sellerId", sellerId)
+                .setMaxResults(limit);
+        if (hasStatuses) {
+            query.setParameter("statuses", filter.statuses());
+        }
+        if (filter.from() != null) {
+            query.setParameter("from", filter.from());
+        }
+        if (filter.to() != null) {
+            query.setParameter("to", filter.to());
+        }
+        if (after != null) {
+            query.setParameter("cursorCreatedAt", after.createdAt());
+            query.setParameter("cursorId", after.id());
+        }
+        return query.getResultList();
+    }
+}
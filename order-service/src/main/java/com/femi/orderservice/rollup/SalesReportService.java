@@ -0,0 +1,61 @@
+package com.femi.orderservice.rollup;
+
+import com.femi.orderservice.dto.SalesDayDTO;
+import com.femi.orderservice.dto.SalesReportDTO;
+import com.femi.orderservice.model.SalesDimension;
+import com.femi.orderservice.model.SalesRollup;
+import com.femi.orderservice.repository.SalesRollupRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class SalesReportService {
+
+    private static final long MAX_RANGE_DAYS = 366;
+
+    private final SalesRollupRepository salesRollupRepository;
+
+    @Transactional(readOnly = true)
+    public SalesReportDTO report(SalesDimension dimension, Long dimensionId, LocalDate from, LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(29);
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Reports cover at most " + MAX_RANGE_DAYS + " days");
+        }
+        Long id = dimension == SalesDimension.ALL ? 0L : dimensionId;
+        if (id == null) {
+            throw new IllegalArgumentException("An id is required for " + dimension + " reports");
+        }
+
+        List<SalesDayDTO> days = salesRollupRepository.findDays(dimension, id, start, end).stream()
+                .filter(row -> row.getOrderCount() != 0)
+                .map(this::toDay)
+                .collect(Collectors.toList());
+
+        return SalesReportDTO.builder()
+                .dimension(dimension.name())
+                .dimensionId(id)
+                .from(start)
+                .to(end)
+                .orderCount(days.stream().mapToLong(SalesDayDTO::getOrderCount).sum())
+                .units(days.stream().mapToLong(SalesDayDTO::getUnits).sum())
+                .revenue(days.stream().map(SalesDayDTO::getRevenue).reduce(BigDecimal.ZERO, BigDecimal::add))
+                .days(days)
+                .build();
+    }
+
+    private SalesDayDTO toDay(SalesRollup row) {
+        return new SalesDayDTO(row.getId().getSalesDay(), row.getOrderCount(), row.getUnits(), row.getRevenue());
+    }
+}
@@ -0,0 +1,121 @@
+package com.femi.orderservice.rollup;
+
+import com.femi.orderservice.model.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps {@code sales_rollup} in step with {@code orders}. Every change is an
+ * {@code INSERT ... SELECT ... ON DUPLICATE KEY UPDATE} that aggregates the affected orders by day
+ * and adds (or subtracts) the result, so a placement or a batch of status changes costs three
+ * statements no matter how many rows they touch.
+ */
+@Component
+@RequiredArgsConstructor
+public class SalesRollupRecorder {
+
+    private static final String UPSERT = "INSERT INTO sales_rollup " +
+            "(dimension, dimension_id, sales_day, order_count, units, revenue) SELECT * FROM (%s) AS d " +
+            "ON DUPLICATE KEY UPDATE order_count = order_count + d.d_orders, " +
+            "units = units + d.d_units, revenue = revenue + d.d_revenue";
+
+    private static final String ALL_DELTA = "SELECT 'ALL' AS d_dimension, 0 AS d_id, DATE(o.created_at) AS d_day, " +
+            ":sign * COUNT(*) AS d_orders, :sign * SUM(o.quantity) AS d_units, :sign * SUM(o.total_amount) AS d_revenue " +
+            "FROM {orders} o WHERE %s GROUP BY DATE(o.created_at)";
+
+    private static final String SELLER_DELTA = "SELECT 'SELLER' AS d_dimension, o.seller_id AS d_id, DATE(o.created_at) AS d_day, " +
+            ":sign * COUNT(*) AS d_orders, :sign * SUM(o.quantity) AS d_units, :sign * SUM(o.total_amount) AS d_revenue " +
+            "FROM {orders} o WHERE %s GROUP BY o.seller_id, DATE(o.created_at)";
+
+    // Orders placed before cart support have no order_items rows; their header describes the single product
+    private static final String PRODUCT_DELTA = "SELECT 'PRODUCT' AS d_dimension, l.product_id AS d_id, l.sales_day AS d_day, " +
+            ":sign * COUNT(DISTINCT l.order_id) AS d_orders, :sign * SUM(l.quantity) AS d_units, :sign * SUM(l.line_total) AS d_revenue " +
+            "FROM (" +
+            "SELECT o.id AS order_id, i.product_id, DATE(o.created_at) AS sales_day, i.quantity, i.unit_price * i.quantity AS line_total " +
+            "FROM {orders} o JOIN {items} i ON i.order_id = o.id WHERE %1$s " +
+            "UNION ALL " +
+            "SELECT o.id, o.product_id, DATE(o.created_at), o.quantity, o.total_amount " +
+            "FROM {orders} o WHERE %1$s AND NOT EXISTS (SELECT 1 FROM {items} i WHERE i.order_id = o.id)" +
+            ") l GROUP BY l.product_id, l.sales_day";
+
+    private static final String ORDER_COLUMNS = "id, seller_id, product_id, quantity, total_amount, order_status, created_at";
+    private static final String ITEM_COLUMNS = "order_id, product_id, unit_price, quantity";
+
+    // Archived orders still count, so a rebuild sums both tables in one pass; two passes would each
+    // produce the same (dimension, id, day) keys and rely on the upsert to add them together
+    private static final String ALL_ORDERS = "(SELECT " + ORDER_COLUMNS + " FROM orders UNION ALL " +
+            "SELECT " + ORDER_COLUMNS + " FROM orders_archive)";
+    private static final String ALL_ITEMS = "(SELECT " + ITEM_COLUMNS + " FROM order_items UNION ALL " +
+            "SELECT " + ITEM_COLUMNS + " FROM order_items_archive)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    // Rollups must commit or roll back together with the order rows they summarise
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(Collection<Long> orderIds) {
+        apply(orderIds, 1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void subtract(Collection<Long> orderIds) {
+        apply(orderIds, -1);
+    }
+
+    // Recomputes the given day range (inclusive; null means unbounded) from the orders table
+    @Transactional
+    public int rebuild(LocalDate from, LocalDate to) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("sign", 1)
+                .addValue("statuses", Arrays.stream(OrderStatus.values())
+                        .filter(OrderStatus::countsTowardsSales)
+                        .map(Enum::name)
+                        .toList());
+
+        StringBuilder dayFilter = new StringBuilder("1 = 1");
+        StringBuilder orderFilter = new StringBuilder("o.order_status IN (:statuses)");
+        if (from != null) {
+            params.addValue("fromDay", from).addValue("fromTs", from.atStartOfDay());
+            dayFilter.append(" AND sales_day >= :fromDay");
+            orderFilter.append(" AND o.created_at >= :fromTs");
+        }
+        if (to != null) {
+            params.addValue("toDay", to).addValue("toTs", to.plusDays(1).atStartOfDay());
+            dayFilter.append(" AND sales_day <= :toDay");
+            orderFilter.append(" AND o.created_at < :toTs");
+        }
+
+        jdbcTemplate.update("DELETE FROM sales_rollup WHERE " + dayFilter, params);
+        return upsertAll(orderFilter.toString(), params, ALL_ORDERS, ALL_ITEMS);
+    }
+
+    private void apply(Collection<Long> orderIds, int sign) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("ids", orderIds)
+                .addValue("sign", sign);
+        upsertAll("o.id IN (:ids)", params, "orders", "order_items");
+    }
+
+    // The sources are table names or parenthesised derived tables; both are aliased by the deltas
+    private int upsertAll(String orderFilter, MapSqlParameterSource params, String ordersTable, String itemsTable) {
+        int rows = 0;
+        for (String delta : List.of(ALL_DELTA, SELLER_DELTA, PRODUCT_DELTA)) {
+            String select = String.format(delta, orderFilter)
+                    .replace("{orders}", ordersTable)
+                    .replace("{items}", itemsTable);
+            rows += jdbcTemplate.update(String.format(UPSERT, select), params);
+        }
+        return rows;
+    }
+}
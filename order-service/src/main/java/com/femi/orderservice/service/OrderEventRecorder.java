@@ -0,0 +1,54 @@
+package com.femi.orderservice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.femi.orderservice.dto.OrderEventMessage;
+import com.femi.orderservice.model.Order;
+import com.femi.orderservice.model.OrderEventType;
+import com.femi.orderservice.model.OrderOutboxEvent;
+import com.femi.orderservice.repository.OrderOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Component
+@RequiredArgsConstructor
+public class OrderEventRecorder {
+
+    private final OrderOutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    // Outbox rows must commit or roll back together with the order change they describe
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Order order, OrderEventType eventType) {
+        outboxRepository.save(toOutboxEvent(order, eventType));
+    }
+
+    public OrderOutboxEvent toOutboxEvent(Order order, OrderEventType eventType) {
+        OrderEventMessage message = OrderEventMessage.builder()
+                .eventId(UUID.randomUUID().toString())
+                .eventType(eventType.name())
+                .orderId(order.getId())
+                .buyerId(order.getBuyerId())
+                .sellerId(order.getSellerId())
+                .orderStatus(order.getOrderStatus() != null ? order.getOrderStatus().name() : null)
+                .paymentStatus(order.getPaymentStatus() != null ? order.getPaymentStatus().name() : null)
+                .totalAmount(order.getTotalAmount())
+                .occurredAt(LocalDateTime.now())
+                .build();
+
+        try {
+            return OrderOutboxEvent.builder()
+                    .orderId(order.getId())
+                    .eventType(eventType)
+                    .payload(objectMapper.writeValueAsString(message))
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize order event", e);
+        }
+    }
+}
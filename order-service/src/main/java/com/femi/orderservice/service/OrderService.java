@@ -1,14 +1,20 @@
 package com.femi.orderservice.service;
 
+import com.femi.orderservice.dto.BulkStatusUpdateResponseDTO;
+import com.femi.orderservice.dto.CursorPageDTO;
 import com.femi.orderservice.dto.OrderRequestDTO;
 import com.femi.orderservice.dto.OrderResponse;
 import com.femi.orderservice.dto.OrderResponseDTO;
+import com.femi.orderservice.dto.SellerOrderFilter;
+import com.femi.orderservice.dto.SellerOrderRow;
 
 import java.util.List;
 
 public interface OrderService {
     OrderResponse placeOrder(OrderRequestDTO request, Long buyerId, String token);
     OrderResponseDTO getOrderById(Long orderId, String userId, String role);
-    List<OrderResponseDTO> getOrdersForBuyer(Long buyerId);
+    CursorPageDTO<OrderResponseDTO> getOrdersForBuyer(Long buyerId, String cursor, int size);
+    CursorPageDTO<SellerOrderRow> getOrdersForSeller(Long sellerId, SellerOrderFilter filter, String cursor, int size);
     OrderResponseDTO updateOrderStatus(Long orderId, String status);
+    BulkStatusUpdateResponseDTO bulkUpdateOrderStatus(List<Long> orderIds, String status);
 }
@@ -1,92 +1,276 @@
 package com.femi.orderservice.service;
 
-import com.femi.orderservice.client.ProductClient;
+import com.femi.orderservice.auth.JwtService;
+import com.femi.orderservice.client.ProductCache;
+import com.femi.orderservice.client.ResilientProductClient;
+import com.femi.orderservice.dto.BulkStatusUpdateResponseDTO;
+import com.femi.orderservice.dto.BuyerOrderView;
+import com.femi.orderservice.dto.CursorPageDTO;
+import com.femi.orderservice.dto.OrderCursor;
+import com.femi.orderservice.dto.OrderItemDTO;
+import com.femi.orderservice.dto.OrderItemView;
+import com.femi.orderservice.dto.OrderItemRequestDTO;
 import com.femi.orderservice.dto.OrderRequestDTO;
 import com.femi.orderservice.dto.OrderResponse;
 import com.femi.orderservice.dto.OrderResponseDTO;
+import com.femi.orderservice.dto.OrderStatusView;
+import com.femi.orderservice.dto.OrderTransitionResultDTO;
 import com.femi.orderservice.dto.ProductDTO;
+import com.femi.orderservice.dto.SellerOrderFilter;
+import com.femi.orderservice.dto.SellerOrderRow;
+import com.femi.orderservice.dto.StatusTransitionOutcome;
+import com.femi.orderservice.dto.StockReservationDTO;
+import com.femi.orderservice.dto.StockReservationRequestDTO;
+import com.femi.orderservice.exception.InvalidStatusTransitionException;
+import com.femi.orderservice.exception.ProductServiceUnavailableException;
+import com.femi.orderservice.expiry.OrderExpiryScheduler;
+import com.femi.orderservice.model.ArchivedOrder;
 import com.femi.orderservice.model.Order;
+import com.femi.orderservice.model.OrderEventType;
+import com.femi.orderservice.model.OrderItem;
 import com.femi.orderservice.model.OrderStatus;
+import com.femi.orderservice.model.PaymentStatus;
+import com.femi.orderservice.placement.OrderGroupCommitter;
+import com.femi.orderservice.repository.ArchivedOrderRepository;
 import com.femi.orderservice.repository.OrderRepository;
+import com.femi.orderservice.rollup.SalesRollupRecorder;
+import feign.FeignException;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class OrderServiceImpl implements OrderService {
 
     private final OrderRepository orderRepository;
-    private final ProductClient productClient;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final ResilientProductClient productClient;
+    private final ProductCache productCache;
+    private final OrderEventRecorder orderEventRecorder;
+    private final TransactionTemplate transactionTemplate;
+    private final SalesRollupRecorder salesRollupRecorder;
+    private final OrderGroupCommitter orderGroupCommitter;
+    private final OrderExpiryScheduler orderExpiryScheduler;
+    private final JwtService jwtService;
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_BULK_IDS = 10_000;
+    private static final int BULK_CHUNK_SIZE = 500;
 
 
-    @Transactional
     public OrderResponse placeOrder(OrderRequestDTO request, Long buyerId, String token) {
-        ProductDTO product = productClient.getProductById(request.getProductId(), "Bearer " + token);
-        if (product.getStockQuantity() < request.getQuantity()) {
-            throw new IllegalArgumentException("Insufficient stock for product: " + product.getName());
+        List<OrderItemRequestDTO> lineItems = resolveLineItems(request);
+        String bearerToken = "Bearer " + token;
+
+        // Unknown products and mixed-seller carts are rejected before any stock is touched
+        Map<Long, ProductDTO> products = productCache.getProducts(lineItems.stream()
+                .map(OrderItemRequestDTO::getProductId)
+                .collect(Collectors.toSet()));
+        if (products.values().stream().map(ProductDTO::getSellerId).distinct().count() > 1) {
+            throw new IllegalArgumentException("All items in an order must belong to the same seller");
+        }
+
+        // Stock for the whole cart is decremented atomically by product-service in a single call;
+        // the reservations carry the price snapshot, so cached price and stock are never trusted here.
+        // The reservation id lets product-service hand back exactly this stock later
+        String reservationId = UUID.randomUUID().toString();
+        List<StockReservationDTO> reservations;
+        try {
+            reservations = productClient.reserveStock(reservationId, lineItems.stream()
+                    .map(item -> new StockReservationRequestDTO(item.getProductId(), item.getQuantity()))
+                    .collect(Collectors.toList()), bearerToken);
+        } catch (FeignException.Conflict e) {
+            throw new IllegalArgumentException("Insufficient stock for one or more products");
+        } catch (FeignException.FeignClientException | ProductServiceUnavailableException e) {
+            // Refused outright, or never sent because the breaker is open: nothing was reserved
+            throw e;
+        } catch (RuntimeException e) {
+            // A timeout or 5xx may still have reserved the stock. Releasing by id is safe either way: it
+            // hands back a committed reservation, or stops one still in flight from taking the stock
+            releaseReservation(reservationId);
+            throw new ProductServiceUnavailableException("Could not reserve stock, please retry", e);
+        }
+        productCache.refresh(reservations);
+
+        Set<Long> sellerIds = reservations.stream()
+                .map(StockReservationDTO::getSellerId)
+                .collect(Collectors.toSet());
+        if (sellerIds.size() > 1) {
+            releaseReservation(reservationId);
+            throw new IllegalArgumentException("All items in an order must belong to the same seller");
         }
 
-        BigDecimal totalPrice = product.getPrice().multiply(BigDecimal.valueOf(request.getQuantity()));
+        List<OrderItem> items = reservations.stream()
+                .map(reservation -> OrderItem.builder()
+                        .productId(reservation.getProductId())
+                        .productName(reservation.getProductName())
+                        .unitPrice(reservation.getUnitPrice())
+                        .quantity(reservation.getQuantity())
+                        .build())
+                .collect(Collectors.toList());
+
+        BigDecimal totalPrice = items.stream()
+                .map(OrderItem::getLineTotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        int totalQuantity = items.stream().mapToInt(OrderItem::getQuantity).sum();
+        OrderItem firstItem = items.get(0);
 
         Order order = Order.builder()
-                .productId(product.getId())
+                .productId(firstItem.getProductId())
                 .buyerId(buyerId)
-                .sellerId(product.getSellerId())
-                .quantity(request.getQuantity())
+                .sellerId(sellerIds.iterator().next())
+                .quantity(totalQuantity)
                 .totalAmount(totalPrice)
-                .productName(product.getName())
+                .productName(firstItem.getProductName())
+                .items(items)
+                .reservationId(reservationId)
                 .orderStatus(OrderStatus.PLACED)
                 .createdAt(LocalDateTime.now())
                 .build();
 
-        orderRepository.save(order);
+        // Inserted together with whatever other placements are in flight; the outbox event and the
+        // rollup contribution commit in the same transaction
+        try {
+            orderGroupCommitter.commit(order);
+        } catch (RuntimeException e) {
+            releaseReservation(reservationId);
+            throw e;
+        }
+        orderExpiryScheduler.track(order);
 
         return OrderResponse.builder()
                 .id(order.getId())
                 .productId(order.getProductId())
+                .buyerId(order.getBuyerId())
+                .sellerId(order.getSellerId())
                 .quantity(order.getQuantity())
                 .totalPrice(order.getTotalAmount())
                 .status(order.getOrderStatus())
+                .createdAt(order.getCreatedAt())
+                .items(mapItems(order.getItems()))
                 .build();
     }
 
+    @Transactional(readOnly = true)
     public OrderResponseDTO getOrderById(Long orderId, String userId, String role) {
-    Order order = orderRepository.findById(orderId)
-            .orElseThrow(() -> new EntityNotFoundException("Order not found"));
+    Order order = orderRepository.findById(orderId).orElse(null);
 
-    // Role-based access check
-    if (role.equals("ROLE_ADMIN")) {
-        return mapToDTO(order);
-    }
-
-    if (role.equals("ROLE_BUYER") && !order.getBuyerId().toString().equals(userId)) {
-        throw new AccessDeniedException("You can only view your own orders.");
-    }
-
-    if (role.equals("ROLE_SELLER") && !order.getSellerId().toString().equals(userId)) {
-        throw new AccessDeniedException("You can only view orders that belong to you.");
+    if (order == null) {
+        // Delivered orders past the archive age have moved to orders_archive
+        ArchivedOrder archived = archivedOrderRepository.findById(orderId)
+                .orElseThrow(() -> new EntityNotFoundException("Order not found"));
+        checkAccess(archived.getBuyerId(), archived.getSellerId(), userId, role);
+        return mapToDTO(archived);
     }
 
+    checkAccess(order.getBuyerId(), order.getSellerId(), userId, role);
     return mapToDTO(order);
 }
 
+    private void checkAccess(Long buyerId, Long sellerId, String userId, String role) {
+        // Role-based access check
+        if (role.equals("ROLE_ADMIN")) {
+            return;
+        }
+
+        if (role.equals("ROLE_BUYER") && !buyerId.toString().equals(userId)) {
+            throw new AccessDeniedException("You can only view your own orders.");
+        }
+
+        if (role.equals("ROLE_SELLER") && !sellerId.toString().equals(userId)) {
+            throw new AccessDeniedException("You can only view orders that belong to you.");
+        }
+    }
+
     @Override
-    public List<OrderResponseDTO> getOrdersForBuyer(Long buyerId) {
-        List<Order> orders = orderRepository.findByBuyerId(buyerId);
-        return orders.stream()
-                .map(this::mapToDTO)
+    @Transactional(readOnly = true)
+    public CursorPageDTO<OrderResponseDTO> getOrdersForBuyer(Long buyerId, String cursor, int size) {
+        int pageSize = clampPageSize(size);
+        OrderCursor position = OrderCursor.decode(cursor);
+
+        // One extra row tells us whether another page exists without a count query. Both tables are
+        // read with the same cursor and merged, since archived orders can be newer than hot ones
+        Limit limit = Limit.of(pageSize + 1);
+        List<BuyerOrderView> rows = mergeNewestFirst(
+                position == null
+                        ? orderRepository.findBuyerOrders(buyerId, limit)
+                        : orderRepository.findBuyerOrdersBefore(buyerId, position.createdAt(), position.id(), limit),
+                position == null
+                        ? archivedOrderRepository.findBuyerOrders(buyerId, limit)
+                        : archivedOrderRepository.findBuyerOrdersBefore(buyerId, position.createdAt(), position.id(), limit),
+                Comparator.comparing(BuyerOrderView::getCreatedAt).thenComparing(BuyerOrderView::getId),
+                pageSize + 1);
+
+        boolean hasMore = rows.size() > pageSize;
+        List<BuyerOrderView> page = hasMore ? rows.subList(0, pageSize) : rows;
+
+        Map<Long, List<OrderItemDTO>> itemsByOrder = loadItemViews(page.stream()
+                .map(BuyerOrderView::getId)
+                .collect(Collectors.toList()));
+
+        List<OrderResponseDTO> content = page.stream()
+                .map(row -> OrderResponseDTO.builder()
+                        .id(row.getId())
+                        .buyerId(row.getBuyerId())
+                        .productId(row.getProductId())
+                        .quantity(row.getQuantity())
+                        .productName(row.getProductName())
+                        .totalAmount(row.getTotalAmount())
+                        .orderStatus(row.getOrderStatus().name())
+                        .paymentStatus(row.getPaymentStatus().name())
+                        .createdAt(row.getCreatedAt())
+                        .items(itemsByOrder.getOrDefault(row.getId(), List.of()))
+                        .build())
                 .collect(Collectors.toList());
+
+        BuyerOrderView last = page.isEmpty() ? null : page.get(page.size() - 1);
+        String nextCursor = hasMore ? new OrderCursor(last.getCreatedAt(), last.getId()).encode() : null;
+        return new CursorPageDTO<>(content, nextCursor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDTO<SellerOrderRow> getOrdersForSeller(Long sellerId, SellerOrderFilter filter, String cursor, int size) {
+        if (filter.from() != null && filter.to() != null && !filter.from().isBefore(filter.to())) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+        int pageSize = clampPageSize(size);
+
+        OrderCursor position = OrderCursor.decode(cursor);
+        List<SellerOrderRow> rows = mergeNewestFirst(
+                orderRepository.findSellerOrderRows(sellerId, filter, position, pageSize + 1),
+                orderRepository.findArchivedSellerOrderRows(sellerId, filter, position, pageSize + 1),
+                Comparator.comparing(SellerOrderRow::createdAt).thenComparing(SellerOrderRow::id),
+                pageSize + 1);
+
+        boolean hasMore = rows.size() > pageSize;
+        List<SellerOrderRow> page = hasMore ? rows.subList(0, pageSize) : rows;
+        SellerOrderRow last = page.isEmpty() ? null : page.get(page.size() - 1);
+        String nextCursor = hasMore ? new OrderCursor(last.createdAt(), last.id()).encode() : null;
+        return new CursorPageDTO<>(page, nextCursor);
     }
 
     @Override
+    @Transactional
     public OrderResponseDTO updateOrderStatus(Long orderId, String status) {
         if (status == null || status.isBlank()) {
             throw new IllegalArgumentException("Order status cannot be null or empty");
@@ -95,12 +279,124 @@ public class OrderServiceImpl implements OrderService {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new EntityNotFoundException("Order not found"));
 
-        order.setOrderStatus(OrderStatus.valueOf(status.toUpperCase()));
-        orderRepository.save(order);
+        OrderStatus newStatus = OrderStatus.valueOf(status.toUpperCase());
+        rejectManualExpiry(newStatus);
+        if (order.getOrderStatus() != newStatus) {
+            if (!order.getOrderStatus().canTransitionTo(newStatus)) {
+                throw new InvalidStatusTransitionException(
+                        "Order cannot move from " + order.getOrderStatus() + " to " + newStatus);
+            }
+            OrderStatus previous = order.getOrderStatus();
+            order.setOrderStatus(newStatus);
+            orderRepository.save(order);
+            orderEventRecorder.record(order, OrderEventType.ORDER_STATUS_CHANGED);
+            adjustSalesRollup(List.of(orderId), previous, newStatus);
+        }
 
         return mapToDTO(order);
     }
 
+    @Override
+    public BulkStatusUpdateResponseDTO bulkUpdateOrderStatus(List<Long> orderIds, String status) {
+        if (status == null || status.isBlank()) {
+            throw new IllegalArgumentException("Order status cannot be null or empty");
+        }
+        if (orderIds == null || orderIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one order id is required");
+        }
+        List<Long> ids = orderIds.stream().filter(Objects::nonNull).distinct().sorted().collect(Collectors.toList());
+        if (ids.size() > MAX_BULK_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_BULK_IDS + " orders can be updated at once");
+        }
+        OrderStatus target = OrderStatus.valueOf(status.toUpperCase());
+        rejectManualExpiry(target);
+
+        // Each chunk commits on its own so a large request never holds thousands of row locks at once
+        List<OrderTransitionResultDTO> results = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += BULK_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + BULK_CHUNK_SIZE, ids.size()));
+            results.addAll(transactionTemplate.execute(tx -> transitionChunk(chunk, target)));
+        }
+
+        int updated = (int) results.stream().filter(r -> r.getOutcome() == StatusTransitionOutcome.UPDATED).count();
+        int rejected = (int) results.stream()
+                .filter(r -> r.getOutcome() == StatusTransitionOutcome.INVALID_TRANSITION
+                        || r.getOutcome() == StatusTransitionOutcome.NOT_FOUND)
+                .count();
+        return BulkStatusUpdateResponseDTO.builder()
+                .orderStatus(target.name())
+                .updated(updated)
+                .rejected(rejected)
+                .results(results)
+                .build();
+    }
+
+    private List<OrderTransitionResultDTO> transitionChunk(List<Long> ids, OrderStatus target) {
+        Map<Long, OrderStatusView> current = orderRepository.lockStatusesByIds(ids).stream()
+                .collect(Collectors.toMap(OrderStatusView::getId, Function.identity()));
+
+        List<OrderTransitionResultDTO> results = new ArrayList<>(ids.size());
+        List<OrderStatusView> movable = new ArrayList<>();
+        for (Long id : ids) {
+            OrderStatusView row = current.get(id);
+            if (row == null) {
+                results.add(new OrderTransitionResultDTO(id, StatusTransitionOutcome.NOT_FOUND, null));
+                continue;
+            }
+            OrderStatus from = OrderStatus.valueOf(row.getOrderStatus());
+            if (from == target) {
+                results.add(new OrderTransitionResultDTO(id, StatusTransitionOutcome.UNCHANGED, from.name()));
+            } else if (!from.canTransitionTo(target)) {
+                results.add(new OrderTransitionResultDTO(id, StatusTransitionOutcome.INVALID_TRANSITION, from.name()));
+            } else {
+                results.add(new OrderTransitionResultDTO(id, StatusTransitionOutcome.UPDATED, from.name()));
+                movable.add(row);
+            }
+        }
+        if (movable.isEmpty()) {
+            return results;
+        }
+
+        // Rows are locked, so the guard only matters against writers that bypass this path
+        LocalDateTime now = LocalDateTime.now();
+        orderRepository.updateOrderStatus(movable.stream().map(OrderStatusView::getId).collect(Collectors.toList()),
+                target.allowedSources(), target, now);
+
+        Map<OrderStatus, List<Long>> idsBySource = movable.stream().collect(Collectors.groupingBy(
+                row -> OrderStatus.valueOf(row.getOrderStatus()),
+                Collectors.mapping(OrderStatusView::getId, Collectors.toList())));
+        idsBySource.forEach((source, sourceIds) -> adjustSalesRollup(sourceIds, source, target));
+
+        for (OrderStatusView row : movable) {
+            Order snapshot = Order.builder()
+                    .id(row.getId())
+                    .buyerId(row.getBuyerId())
+                    .sellerId(row.getSellerId())
+                    .totalAmount(row.getTotalAmount())
+                    .orderStatus(target)
+                    .paymentStatus(PaymentStatus.valueOf(row.getPaymentStatus()))
+                    .updatedAt(now)
+                    .build();
+            orderEventRecorder.record(snapshot, OrderEventType.ORDER_STATUS_CHANGED);
+        }
+        return results;
+    }
+
+    // Expiry also hands stock back to product-service, which only OrderExpirer does
+    private void rejectManualExpiry(OrderStatus target) {
+        if (target == OrderStatus.EXPIRED) {
+            throw new InvalidStatusTransitionException("Orders expire automatically when their payment window lapses");
+        }
+    }
+
+    private void adjustSalesRollup(List<Long> orderIds, OrderStatus from, OrderStatus to) {
+        if (from.countsTowardsSales() && !to.countsTowardsSales()) {
+            salesRollupRecorder.subtract(orderIds);
+        } else if (!from.countsTowardsSales() && to.countsTowardsSales()) {
+            salesRollupRecorder.add(orderIds);
+        }
+    }
+
     private OrderResponseDTO mapToDTO(Order order) {
         return OrderResponseDTO.builder()
                 .id(order.getId())
@@ -112,6 +408,90 @@ public class OrderServiceImpl implements OrderService {
                 .orderStatus(order.getOrderStatus().name())
                 .paymentStatus(order.getPaymentStatus().name())
                 .createdAt(order.getCreatedAt())
+                .items(mapItems(order.getItems()))
+                .build();
+    }
+
+    private OrderResponseDTO mapToDTO(ArchivedOrder order) {
+        return OrderResponseDTO.builder()
+                .id(order.getId())
+                .buyerId(order.getBuyerId())
+                .productId(order.getProductId())
+                .quantity(order.getQuantity())
+                .productName(order.getProductName())
+                .totalAmount(order.getTotalAmount())
+                .orderStatus(order.getOrderStatus().name())
+                .paymentStatus(order.getPaymentStatus().name())
+                .createdAt(order.getCreatedAt())
+                .items(mapItems(order.getItems()))
                 .build();
     }
+
+    private List<OrderItemDTO> mapItems(List<OrderItem> items) {
+        return items.stream()
+                .map(item -> OrderItemDTO.builder()
+                        .productId(item.getProductId())
+                        .productName(item.getProductName())
+                        .unitPrice(item.getUnitPrice())
+                        .quantity(item.getQuantity())
+                        .lineTotal(item.getLineTotal())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    // Merges two (createdAt DESC, id DESC) slices into the first limit rows of their union
+    private <T> List<T> mergeNewestFirst(List<T> hot, List<T> archived, Comparator<T> ascending, int limit) {
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        List<T> merged = new ArrayList<>(hot.size() + archived.size());
+        merged.addAll(hot);
+        merged.addAll(archived);
+        merged.sort(ascending.reversed());
+        return merged.size() > limit ? merged.subList(0, limit) : merged;
+    }
+
+    private Map<Long, List<OrderItemDTO>> loadItemViews(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Map.of();
+        }
+        List<OrderItemView> views = new ArrayList<>(orderRepository.findItemViewsByOrderIds(orderIds));
+        views.addAll(archivedOrderRepository.findItemViewsByOrderIds(orderIds));
+        return views.stream()
+                .collect(Collectors.groupingBy(OrderItemView::getOrderId, Collectors.mapping(item -> OrderItemDTO.builder()
+                        .productId(item.getProductId())
+                        .productName(item.getProductName())
+                        .unitPrice(item.getUnitPrice())
+                        .quantity(item.getQuantity())
+                        .lineTotal(item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
+                        .build(), Collectors.toList())));
+    }
+
+    private int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    private List<OrderItemRequestDTO> resolveLineItems(OrderRequestDTO request) {
+        List<OrderItemRequestDTO> lineItems = request.getItems() != null && !request.getItems().isEmpty()
+                ? request.getItems()
+                : List.of(new OrderItemRequestDTO(request.getProductId(), request.getQuantity()));
+
+        for (OrderItemRequestDTO item : lineItems) {
+            if (item.getProductId() == null) {
+                throw new IllegalArgumentException("Product id is required");
+            }
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Quantity must be greater than zero");
+            }
+        }
+        return lineItems;
+    }
+
+    private void releaseReservation(String reservationId) {
+        try {
+            productClient.releaseStock(List.of(reservationId), "Bearer " + jwtService.generateServiceToken());
+        } catch (FeignException e) {
+            log.error("Failed to release stock reservation {}: {}", reservationId, e.getMessage());
+        }
+    }
 }
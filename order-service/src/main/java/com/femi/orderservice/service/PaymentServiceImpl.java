@@ -1,85 +1,139 @@
 package com.femi.orderservice.service;
 
 import com.femi.orderservice.dto.PaymentResponseDTO;
+import com.femi.orderservice.exception.InvalidStatusTransitionException;
+import com.femi.orderservice.expiry.OrderExpiryScheduler;
 import com.femi.orderservice.model.Order;
+import com.femi.orderservice.model.OrderEventType;
+import com.femi.orderservice.model.OrderStatus;
 import com.femi.orderservice.model.PaymentStatus;
 import com.femi.orderservice.repository.OrderRepository;
-import com.stripe.Stripe;
-import com.stripe.exception.StripeException;
-import com.stripe.param.checkout.SessionCreateParams;
-import com.stripe.model.checkout.Session;
-import jakarta.annotation.PostConstruct;
+import com.femi.orderservice.payment.CheckoutLineItem;
+import com.femi.orderservice.payment.CheckoutRequest;
+import com.femi.orderservice.payment.CheckoutSession;
+import com.femi.orderservice.payment.PaymentProviderGateway;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class PaymentServiceImpl implements PaymentService {
 
-    @Value("${stripe.secret-key}")
-    private String stripeSecretKey;
+    // Once paid or refunded the order keeps the session that was paid; webhooks and refunds find it by that id
+    private static final Set<PaymentStatus> PAYABLE = EnumSet.of(PaymentStatus.PENDING, PaymentStatus.FAILED);
 
     private final OrderRepository orderRepository;
-
-    @PostConstruct
-    public void init() {
-        Stripe.apiKey = stripeSecretKey;
-    }
+    private final OrderEventRecorder orderEventRecorder;
+    private final TransactionTemplate transactionTemplate;
+    private final PaymentProviderGateway paymentProviderGateway;
+    private final OrderExpiryScheduler orderExpiryScheduler;
 
     @Override
     public PaymentResponseDTO initiatePayment(Long orderId, String buyerId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new EntityNotFoundException("Order not found"));
+        Order order = findOrder(orderId);
 
         if (!order.getBuyerId().toString().equals(buyerId)) {
             throw new AccessDeniedException("You are not authorized to pay for this order.");
         }
+        // A new session is only opened inside the window, so an open session can hold the order only so long
+        Instant deadline = orderExpiryScheduler.paymentDeadline(order.getCreatedAt());
+        PaymentResponseDTO open = openSession(order);
+        if (open != null) {
+            return open;
+        }
+        if (!Instant.now().isBefore(deadline)) {
+            throw new InvalidStatusTransitionException("This order has expired and can no longer be paid");
+        }
 
-        BigDecimal unitPrice = order.getTotalAmount()
-                .divide(BigDecimal.valueOf(order.getQuantity()), RoundingMode.HALF_UP);
-        Long unitPriceInCents = unitPrice.multiply(BigDecimal.valueOf(100)).longValue();
-
-        SessionCreateParams.LineItem.PriceData.ProductData productData =
-                SessionCreateParams.LineItem.PriceData.ProductData.builder()
-                        .setName(order.getProductName())
-                        .build();
-
-        SessionCreateParams.LineItem.PriceData priceData =
-                SessionCreateParams.LineItem.PriceData.builder()
-                        .setCurrency("usd")
-                        .setUnitAmount(unitPriceInCents)
-                        .setProductData(productData)
-                        .build();
-
-        SessionCreateParams.LineItem lineItem =
-                SessionCreateParams.LineItem.builder()
-                        .setPriceData(priceData)
-                        .setQuantity(Long.valueOf(order.getQuantity()))
-                        .build();
-
-        SessionCreateParams params = SessionCreateParams.builder()
-                .setMode(SessionCreateParams.Mode.PAYMENT)
-                .setSuccessUrl("http://localhost:3000/success") //frontend success page
-                .setCancelUrl("http://localhost:3000/cancel")    //frontend cancel page
-                .addLineItem(lineItem)
+        List<CheckoutLineItem> lineItems = order.getItems().isEmpty()
+                ? List.of(toLineItem(order.getProductName(),
+                        order.getTotalAmount().divide(BigDecimal.valueOf(order.getQuantity()), RoundingMode.HALF_UP),
+                        order.getQuantity()))
+                : order.getItems().stream()
+                        .map(item -> toLineItem(item.getProductName(), item.getUnitPrice(), item.getQuantity()))
+                        .collect(Collectors.toList());
+
+        CheckoutRequest request = CheckoutRequest.builder()
+                .orderId(order.getId())
+                .currency("usd")
+                .lineItems(lineItems)
+                .successUrl("http://localhost:3000/success") //frontend success page
+                .cancelUrl("http://localhost:3000/cancel")    //frontend cancel page
+                .expiresAt(deadline)
                 .build();
 
-        try {
-            Session session = Session.create(params);
+        // Runs on the payment bulkhead, not on the request thread's own budget
+        CheckoutSession session = paymentProviderGateway.createCheckoutSession(request);
+
+        // Keep the transaction short: it only starts once the provider has answered. The session is
+        // swapped in only if the order still has the one read above, so a concurrent /pay or a webhook
+        // that settled the order in the meantime is never overwritten
+        boolean replaced = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime expiresAt = LocalDateTime.ofInstant(session.getExpiresAt(), ZoneId.systemDefault());
+            if (orderRepository.replacePaymentSession(order.getId(), order.getPaymentSessionId(), session.getSessionId(),
+                    session.getUrl(), expiresAt, PAYABLE, PaymentStatus.PENDING, OrderStatus.EXPIRED, now) == 0) {
+                return false;
+            }
             order.setPaymentStatus(PaymentStatus.PENDING);
-            orderRepository.save(order);
+            order.setPaymentSessionId(session.getSessionId());
+            order.setPaymentSessionUrl(session.getUrl());
+            order.setPaymentExpiresAt(expiresAt);
+            order.setUpdatedAt(now);
+            orderEventRecorder.record(order, OrderEventType.PAYMENT_INITIATED);
+            return true;
+        }));
+        if (!replaced) {
+            // The session just created is never handed out, so nobody can pay it
+            PaymentResponseDTO current = openSession(findOrder(orderId));
+            if (current == null) {
+                throw new InvalidStatusTransitionException("The order changed while payment was starting, please retry");
+            }
+            return current;
+        }
+        // The provider may keep the session open past the payment window; expiry waits for it
+        orderExpiryScheduler.track(order.getId(), session.getExpiresAt());
 
-            return new PaymentResponseDTO(session.getUrl(), "PENDING");
+        return new PaymentResponseDTO(session.getUrl(), "PENDING");
+    }
 
-        } catch (StripeException e) {
-            throw new RuntimeException("Stripe payment session creation failed", e);
+    // Rejects orders that can no longer be paid, and returns the session still open for the order, if any
+    private PaymentResponseDTO openSession(Order order) {
+        if (order.getOrderStatus() == OrderStatus.EXPIRED) {
+            throw new InvalidStatusTransitionException("This order has expired and can no longer be paid");
         }
+        if (!PAYABLE.contains(order.getPaymentStatus())) {
+            throw new InvalidStatusTransitionException(
+                    "This order is already " + order.getPaymentStatus().name().toLowerCase() + " and cannot be paid again");
+        }
+        if (order.getPaymentStatus() == PaymentStatus.PENDING && order.getPaymentSessionUrl() != null
+                && order.getPaymentExpiresAt() != null && order.getPaymentExpiresAt().isAfter(LocalDateTime.now())) {
+            return new PaymentResponseDTO(order.getPaymentSessionUrl(), "PENDING");
+        }
+        return null;
+    }
+
+    private Order findOrder(Long orderId) {
+        return orderRepository.findById(orderId)
+                .orElseThrow(() -> new EntityNotFoundException("Order not found"));
+    }
+
+    private CheckoutLineItem toLineItem(String productName, BigDecimal unitPrice, Integer quantity) {
+        long unitPriceInCents = unitPrice.multiply(BigDecimal.valueOf(100)).longValue();
+        return new CheckoutLineItem(productName, unitPriceInCents, quantity);
     }
 
 }
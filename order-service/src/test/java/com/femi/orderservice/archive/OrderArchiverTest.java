@@ -0,0 +1,170 @@
+package com.femi.orderservice.archive;
+
+import com.femi.orderservice.model.Order;
+import com.femi.orderservice.repository.OrderRepository;
+import com.femi.orderservice.rollup.SalesRollupRecorder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:archive;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(SalesRollupRecorder.class)
+class OrderArchiverTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+    private static final LocalDateTime OLD = NOW.minusDays(200).withHour(12);
+
+    // Only the JPA side of the service; the application class would also bring up Feign clients and schedulers
+    @Configuration
+    @EntityScan(basePackageClasses = Order.class)
+    @EnableJpaRepositories(basePackageClasses = OrderRepository.class)
+    static class JpaOnly {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SalesRollupRecorder salesRollupRecorder;
+
+    private OrderArchiver archiver;
+
+    @BeforeEach
+    void setUp() {
+        for (String table : List.of("order_items", "orders", "order_items_archive", "orders_archive", "sales_rollup")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+        archiver = new OrderArchiver(namedJdbcTemplate, transactionTemplate, new SimpleMeterRegistry(),
+                Duration.ofDays(180), 2, Duration.ZERO, 10);
+    }
+
+    @Test
+    void movesOldDeliveredOrdersWithTheirItemsOldestFirst() {
+        // Ids run against creation order, so an id-ordered claim would pick the wrong chunk first
+        insertOrder(1L, "DELIVERED", OLD.plusMinutes(3));
+        insertItem(1L, 100L, "10.00", 1);
+        insertOrder(2L, "DELIVERED", OLD.plusMinutes(2));
+        insertItem(2L, 100L, "10.00", 2);
+        insertItem(2L, 101L, "5.00", 4);
+        insertOrder(3L, "DELIVERED", OLD.plusMinutes(1));
+        insertItem(3L, 101L, "5.00", 1);
+        insertOrder(4L, "SHIPPED", OLD);
+        insertItem(4L, 100L, "10.00", 1);
+        insertOrder(5L, "DELIVERED", NOW.minusDays(1));
+        insertItem(5L, 100L, "10.00", 1);
+
+        LocalDateTime cutoff = NOW.minusDays(180);
+        assertThat(transactionTemplate.execute(status -> archiver.archiveChunk(cutoff))).isEqualTo(2);
+        assertThat(ids("orders_archive")).containsExactly(2L, 3L);
+
+        assertThat(transactionTemplate.execute(status -> archiver.archiveChunk(cutoff))).isEqualTo(1);
+        assertThat(transactionTemplate.execute(status -> archiver.archiveChunk(cutoff))).isZero();
+
+        assertThat(ids("orders")).containsExactly(4L, 5L);
+        assertThat(ids("orders_archive")).containsExactly(1L, 2L, 3L);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM orders_archive WHERE archived_at IS NULL", Long.class)).isZero();
+
+        // Items travel with their order and nothing else's
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT order_id FROM order_items ORDER BY order_id", Long.class)).containsExactly(4L, 5L);
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT order_id, product_id, quantity FROM order_items_archive ORDER BY order_id, product_id"))
+                .extracting(row -> List.of(row.get("ORDER_ID"), row.get("PRODUCT_ID"), row.get("QUANTITY")))
+                .containsExactly(
+                        List.of(1L, 100L, 1),
+                        List.of(2L, 100L, 2),
+                        List.of(2L, 101L, 4),
+                        List.of(3L, 101L, 1));
+    }
+
+    @Test
+    void rollupRebuildCountsHotAndArchivedOrdersOfTheSameDay() {
+        insertOrder(1L, "DELIVERED", OLD, 2, "20.00");
+        insertItem(1L, 100L, "10.00", 2);
+        insertOrder(2L, "DELIVERED", OLD.plusMinutes(1), 4, "25.00");
+        insertItem(2L, 100L, "10.00", 1);
+        insertItem(2L, 101L, "5.00", 3);
+        insertOrder(3L, "SHIPPED", OLD.plusMinutes(2), 2, "10.00");
+        insertItem(3L, 101L, "5.00", 2);
+        // Placed before cart support: no item rows, the header describes the product
+        insertOrder(4L, "DELIVERED", OLD.plusMinutes(3), 1, "10.00");
+        insertOrder(5L, "EXPIRED", OLD.plusMinutes(4), 9, "90.00");
+        insertItem(5L, 100L, "10.00", 9);
+
+        assertThat(transactionTemplate.execute(status -> archiver.archiveChunk(NOW.minusDays(180)))).isEqualTo(2);
+        assertThat(transactionTemplate.execute(status -> archiver.archiveChunk(NOW.minusDays(180)))).isEqualTo(1);
+        assertThat(ids("orders")).containsExactly(3L, 5L);
+
+        salesRollupRecorder.rebuild(null, null);
+
+        LocalDate day = OLD.toLocalDate();
+        // 1 and 2 archived, 3 hot, 4 archived without items; 5 expired and never counted
+        assertThat(rollup("ALL", 0L, day)).containsExactly(4L, 9L, new BigDecimal("65.00"));
+        assertThat(rollup("SELLER", 9L, day)).containsExactly(4L, 9L, new BigDecimal("65.00"));
+        assertThat(rollup("PRODUCT", 100L, day)).containsExactly(3L, 4L, new BigDecimal("40.00"));
+        assertThat(rollup("PRODUCT", 101L, day)).containsExactly(2L, 5L, new BigDecimal("25.00"));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM sales_rollup", Long.class)).isEqualTo(4L);
+    }
+
+    private void insertOrder(Long id, String status, LocalDateTime createdAt) {
+        insertOrder(id, status, createdAt, 1, "10.00");
+    }
+
+    // The header names product 100; it only matters for orders without item rows
+    private void insertOrder(Long id, String status, LocalDateTime createdAt, int units, String total) {
+        jdbcTemplate.update("INSERT INTO orders (id, buyer_id, seller_id, product_id, product_name, total_amount, quantity, " +
+                        "payment_status, order_status, created_at, version) VALUES (?, 7, 9, 100, 'Widget', ?, ?, 'PAID', ?, ?, 0)",
+                id, new BigDecimal(total), units, status, createdAt);
+    }
+
+    private void insertItem(Long orderId, Long productId, String unitPrice, int quantity) {
+        jdbcTemplate.update("INSERT INTO order_items (order_id, product_id, product_name, unit_price, quantity) " +
+                "VALUES (?, ?, 'Item', ?, ?)", orderId, productId, new BigDecimal(unitPrice), quantity);
+    }
+
+    private List<Long> ids(String table) {
+        return jdbcTemplate.queryForList("SELECT id FROM " + table + " ORDER BY id", Long.class);
+    }
+
+    private List<Object> rollup(String dimension, Long dimensionId, LocalDate day) {
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT order_count, units, revenue FROM sales_rollup " +
+                "WHERE dimension = ? AND dimension_id = ? AND sales_day = ?", dimension, dimensionId, day);
+        return List.of(((Number) row.get("ORDER_COUNT")).longValue(), ((Number) row.get("UNITS")).longValue(),
+                ((BigDecimal) row.get("REVENUE")).setScale(2));
+    }
+}
@@ -0,0 +1,86 @@
+package com.femi.orderservice.client;
+
+import com.femi.orderservice.controller.ProductChangeController;
+import com.femi.orderservice.dto.ProductChangeNotificationDTO;
+import com.femi.orderservice.dto.ProductDTO;
+import com.femi.orderservice.dto.StockReservationDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class ProductCacheTest {
+
+    private ProductLookupCoalescer productLookup;
+    private ProductCache cache;
+
+    @BeforeEach
+    void setUp() {
+        productLookup = mock(ProductLookupCoalescer.class);
+        when(productLookup.getProducts(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().collect(Collectors.toMap(Function.identity(), id -> product(id, "10.00", 5, false)));
+        });
+        cache = new ProductCache(productLookup, new SimpleMeterRegistry(), 100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void aChangeNotificationDropsOnlyTheNamedProducts() {
+        cache.getProducts(List.of(1L, 2L));
+        cache.getProducts(List.of(1L, 2L));
+        verify(productLookup, times(1)).getProducts(anyCollection());
+
+        ProductChangeNotificationDTO notification = new ProductChangeNotificationDTO();
+        notification.setProductIds(List.of(1L));
+        notification.setChanges(Set.of("STATUS"));
+        new ProductChangeController(cache).onProductChange(notification);
+
+        cache.getProducts(List.of(1L, 2L));
+        verify(productLookup).getProducts(Set.of(1L));
+    }
+
+    @Test
+    void aReservationRefreshesPriceAndStockOfCachedProducts() {
+        cache.getProducts(List.of(1L));
+
+        cache.refresh(List.of(
+                new StockReservationDTO(1L, "Renamed", 9L, new BigDecimal("12.50"), 2, 3),
+                new StockReservationDTO(2L, "Not cached", 9L, new BigDecimal("1.00"), 1, 0)));
+
+        Map<Long, ProductDTO> products = cache.getProducts(List.of(1L, 2L));
+        assertThat(products.get(1L).getPrice()).isEqualByComparingTo("12.50");
+        assertThat(products.get(1L).getStockQuantity()).isEqualTo(3);
+        assertThat(products.get(1L).getName()).isEqualTo("Renamed");
+        // Only products already cached are refreshed; the other is looked up as usual
+        assertThat(products.get(2L).getPrice()).isEqualByComparingTo("10.00");
+        verify(productLookup).getProducts(Set.of(2L));
+    }
+
+    @Test
+    void staleSnapshotsAreNotCached() {
+        when(productLookup.getProducts(anyCollection()))
+                .thenReturn(Map.of(1L, product(1L, null, null, true)))
+                .thenReturn(Map.of(1L, product(1L, "10.00", 5, false)));
+
+        assertThat(cache.getProducts(List.of(1L)).get(1L).isStale()).isTrue();
+        assertThat(cache.getProducts(List.of(1L)).get(1L).isStale()).isFalse();
+        verify(productLookup, times(2)).getProducts(anyCollection());
+    }
+
+    private static ProductDTO product(Long id, String price, Integer stock, boolean stale) {
+        return new ProductDTO(id, "Product " + id, price == null ? null : new BigDecimal(price), stock, 9L, "Seller",
+                "Kitchen", stale);
+    }
+}
@@ -0,0 +1,126 @@
+package com.femi.orderservice.client;
+
+import com.femi.orderservice.auth.JwtService;
+import com.femi.orderservice.dto.ProductDTO;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ProductLookupCoalescerTest {
+
+    private ResilientProductClient productClient;
+    private JwtService jwtService;
+    private ProductLookupCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        productClient = mock(ResilientProductClient.class);
+        jwtService = mock(JwtService.class);
+        when(jwtService.generateServiceToken()).thenReturn("service-token");
+        // Echoes every requested id except 404, which product-service does not know
+        when(productClient.getProductsByIds(anyCollection(), anyString())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().filter(id -> id != 404L).map(ProductLookupCoalescerTest::product).toList();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        coalescer.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void lookupsInTheSameWindowShareOneCall() throws Exception {
+        coalescer = new ProductLookupCoalescer(productClient, jwtService, 200, 100, 3000);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try (ExecutorService callers = Executors.newFixedThreadPool(2)) {
+            Future<Map<Long, ProductDTO>> first = callers.submit(() -> {
+                start.await();
+                return coalescer.getProducts(List.of(1L, 2L));
+            });
+            Future<Map<Long, ProductDTO>> second = callers.submit(() -> {
+                start.await();
+                return coalescer.getProducts(List.of(2L, 3L));
+            });
+            start.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).containsOnlyKeys(1L, 2L);
+            assertThat(second.get(5, TimeUnit.SECONDS)).containsOnlyKeys(2L, 3L);
+        }
+
+        ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(productClient, times(1)).getProductsByIds(ids.capture(), anyString());
+        assertThat(ids.getValue()).containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    @Test
+    void aFullBatchIsSentWithoutWaitingForTheWindow() {
+        // The window would outlast the timeout, so only the size limit can send this batch in time
+        coalescer = new ProductLookupCoalescer(productClient, jwtService, 60_000, 3, 2000);
+
+        assertThat(coalescer.getProducts(List.of(1L, 2L, 3L))).containsOnlyKeys(1L, 2L, 3L);
+
+        verify(productClient).getProductsByIds(Set.of(1L, 2L, 3L), "Bearer service-token");
+    }
+
+    @Test
+    void theBatchCarriesTheServiceTokenSoNoCallerCanFailTheOthers() throws Exception {
+        coalescer = new ProductLookupCoalescer(productClient, jwtService, 200, 100, 3000);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try (ExecutorService callers = Executors.newFixedThreadPool(2)) {
+            Future<ProductDTO> found = callers.submit(() -> {
+                start.await();
+                return coalescer.getProduct(1L);
+            });
+            Future<ProductDTO> unknown = callers.submit(() -> {
+                start.await();
+                return coalescer.getProduct(404L);
+            });
+            start.countDown();
+
+            assertThat(found.get(5, TimeUnit.SECONDS).getId()).isEqualTo(1L);
+            // Only the caller of the missing product sees the failure
+            assertThatThrownBy(() -> unknown.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(EntityNotFoundException.class);
+        }
+
+        verify(productClient, times(1)).getProductsByIds(Set.of(1L, 404L), "Bearer service-token");
+    }
+
+    @Test
+    void aFailedBatchCallFailsEveryLookupInIt() {
+        coalescer = new ProductLookupCoalescer(productClient, jwtService, 5, 100, 3000);
+        doThrow(new IllegalStateException("product-service down"))
+                .when(productClient).getProductsByIds(anyCollection(), anyString());
+
+        assertThatThrownBy(() -> coalescer.getProducts(List.of(1L, 2L)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("product-service down");
+    }
+
+    private static ProductDTO product(Long id) {
+        return new ProductDTO(id, "Product " + id, new BigDecimal("10.00"), 5, 9L, "Seller", "Kitchen", false);
+    }
+}
@@ -0,0 +1,231 @@
+package com.femi.orderservice.client;
+
+import com.femi.orderservice.dto.ProductDTO;
+import com.femi.orderservice.dto.StockReservationRequestDTO;
+import com.femi.orderservice.exception.ProductServiceUnavailableException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import feign.FeignException;
+import feign.Request;
+import feign.RetryableException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.cloud.openfeign.FeignAutoConfiguration;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Drives the real Feign client against an in-process HTTP stub that injects latency and errors.
+ */
+@SpringBootTest(classes = ResilientProductClientTest.FeignOnly.class, webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class ResilientProductClientTest {
+
+    private static final StubProductService STUB = new StubProductService();
+    private static final String TOKEN = "Bearer test";
+
+    @Configuration
+    @EnableFeignClients(clients = ProductClient.class)
+    @ImportAutoConfiguration({JacksonAutoConfiguration.class, HttpMessageConvertersAutoConfiguration.class,
+            FeignAutoConfiguration.class})
+    static class FeignOnly {
+    }
+
+    @DynamicPropertySource
+    static void productServiceUrl(DynamicPropertyRegistry registry) {
+        registry.add("product.service.url", STUB::url);
+    }
+
+    @Autowired
+    ProductClient productClient;
+
+    SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void resetStub() {
+        STUB.reset();
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterAll
+    static void stopStub() {
+        STUB.server.stop(0);
+    }
+
+    @Test
+    void hedgesLookupThatRunsPastRecentP95() {
+        ResilientProductClient client = client(3000, 0.1);
+        for (int i = 0; i < 40; i++) {
+            client.getProductsByIds(List.of(1L), TOKEN);
+        }
+        int warmup = STUB.requests.get();
+
+        // Only the next request stalls; the hedge behind it is answered straight away
+        STUB.slow = request -> request == warmup + 1;
+        STUB.slowMillis = 2000;
+        long started = System.nanoTime();
+        List<ProductDTO> products = client.getProductsByIds(List.of(1L, 2L), TOKEN);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        assertThat(products).extracting(ProductDTO::getId).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(elapsedMillis).isLessThan(1000);
+        assertThat(STUB.requests.get()).isEqualTo(warmup + 2);
+        assertThat(registry.counter("product.client.hedged").count()).isEqualTo(1);
+    }
+
+    @Test
+    void lookupGivesUpAtItsOwnReadTimeout() {
+        ResilientProductClient client = client(300, 0);
+        STUB.slow = request -> true;
+        STUB.slowMillis = 3000;
+
+        long started = System.nanoTime();
+        assertThatThrownBy(() -> client.getProductsByIds(List.of(1L), TOKEN))
+                .isInstanceOf(ProductServiceUnavailableException.class)
+                .hasCauseInstanceOf(RetryableException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(2000);
+    }
+
+    @Test
+    void openBreakerServesLastKnownSnapshotsWithoutCallingProductService() {
+        ResilientProductClient client = client(1000, 0);
+        client.getProductsByIds(List.of(1L, 2L), TOKEN);
+
+        STUB.status = 500;
+        for (int i = 0; i < 4; i++) {
+            assertThat(client.getProductsByIds(List.of(1L, 2L), TOKEN)).allMatch(ProductDTO::isStale);
+        }
+        assertThat(client.circuitState()).isEqualTo(CircuitBreaker.State.OPEN);
+        int requestsWhenOpened = STUB.requests.get();
+
+        List<ProductDTO> stale = client.getProductsByIds(List.of(2L), TOKEN);
+        assertThat(stale).singleElement().satisfies(product -> {
+            assertThat(product.isStale()).isTrue();
+            assertThat(product.getName()).isEqualTo("Product 2");
+            assertThat(product.getSellerId()).isEqualTo(7L);
+            assertThat(product.getPrice()).isNull();
+            assertThat(product.getStockQuantity()).isNull();
+        });
+        assertThatThrownBy(() -> client.getProductsByIds(List.of(3L), TOKEN))
+                .isInstanceOf(ProductServiceUnavailableException.class);
+        assertThatThrownBy(() -> client.reserveStock("reservation-1", List.of(new StockReservationRequestDTO(1L, 1)), TOKEN))
+                .isInstanceOf(ProductServiceUnavailableException.class);
+        assertThat(STUB.requests.get()).isEqualTo(requestsWhenOpened);
+    }
+
+    @Test
+    void clientErrorsDoNotTripTheBreaker() {
+        ResilientProductClient client = client(1000, 0);
+        STUB.status = 404;
+
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> client.getProductsByIds(List.of(1L), TOKEN))
+                    .isInstanceOf(FeignException.NotFound.class);
+        }
+        assertThat(client.circuitState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private ResilientProductClient client(long lookupReadTimeoutMillis, double hedgeBudget) {
+        Request.Options lookup = new Request.Options(500, TimeUnit.MILLISECONDS,
+                lookupReadTimeoutMillis, TimeUnit.MILLISECONDS, true);
+        Request.Options reservation = new Request.Options(500, TimeUnit.MILLISECONDS, 3000, TimeUnit.MILLISECONDS, true);
+        CircuitBreakerConfig breaker = CircuitBreakerConfig.custom()
+                .slidingWindowSize(10)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50)
+                .waitDurationInOpenState(Duration.ofMinutes(1))
+                .recordException(e -> !(e instanceof FeignException.FeignClientException))
+                .build();
+        return new ResilientProductClient(productClient, registry, lookup, reservation,
+                Duration.ofMillis(20), Duration.ofMillis(500), hedgeBudget, breaker, 1000, Duration.ofHours(1));
+    }
+
+    static class StubProductService {
+
+        final HttpServer server;
+        final AtomicInteger requests = new AtomicInteger();
+        volatile IntPredicate slow;
+        volatile long slowMillis;
+        volatile int status;
+
+        StubProductService() {
+            try {
+                server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            server.createContext("/api/products", this::handle);
+            server.start();
+            reset();
+        }
+
+        String url() {
+            return "http://localhost:" + server.getAddress().getPort();
+        }
+
+        void reset() {
+            requests.set(0);
+            slow = request -> false;
+            slowMillis = 0;
+            status = 200;
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            int request = requests.incrementAndGet();
+            if (slow.test(request)) {
+                try {
+                    Thread.sleep(slowMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            byte[] body = status == 200
+                    ? products(exchange.getRequestURI().getQuery()).getBytes(StandardCharsets.UTF_8)
+                    : "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+
+        private static String products(String query) {
+            // Feign sends the collection as repeated ids=... parameters
+            return Arrays.stream(query == null ? new String[0] : query.split("&"))
+                    .filter(param -> param.startsWith("ids="))
+                    .map(param -> param.substring("ids=".length()))
+                    .map(id -> """
+                            {"id":%s,"name":"Product %s","price":10.00,"stockQuantity":5,\
+                            "sellerId":7,"sellerName":"Seller","category":"tools"}""".formatted(id, id))
+                    .collect(Collectors.joining(",", "[", "]"));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.femi.orderservice.expiry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long TICK = 1000;
+
+    @Test
+    void firesEachTimerOnTheFirstTickAtOrAfterItsDeadline() {
+        // 8 slots x 3 levels covers 512 ticks; later deadlines go through the overflow list
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(TICK, 8, 3, 0);
+        Random random = new Random(42);
+        Map<Long, Long> deadlines = new HashMap<>();
+        for (long id = 1; id <= 5_000; id++) {
+            long deadline = random.nextLong(2_000 * TICK);
+            deadlines.put(id, deadline);
+            wheel.schedule(id, deadline);
+        }
+
+        Map<Long, Long> firedAt = new HashMap<>();
+        for (long now = 0; now <= 2_000 * TICK; now += TICK) {
+            long current = now;
+            wheel.advanceTo(now, id -> firedAt.put(id, current));
+        }
+
+        assertThat(firedAt).hasSameSizeAs(deadlines);
+        deadlines.forEach((id, deadline) -> {
+            assertThat(firedAt.get(id)).isGreaterThanOrEqualTo(deadline);
+            assertThat(firedAt.get(id) - deadline).isLessThan(TICK);
+        });
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void pastDeadlinesFireOnTheNextAdvance() {
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(TICK, 64, 4, 100 * TICK);
+        wheel.schedule(7, 5 * TICK);
+
+        List<Long> fired = new ArrayList<>();
+        wheel.advanceTo(100 * TICK, fired::add);
+
+        assertThat(fired).containsExactly(7L);
+    }
+
+    @Test
+    void catchesUpAfterMissedTicks() {
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(TICK, 64, 4, 0);
+        wheel.schedule(1, 10 * TICK);
+        wheel.schedule(2, 5_000 * TICK);
+        wheel.schedule(3, 9_000 * TICK);
+
+        List<Long> fired = new ArrayList<>();
+        wheel.advanceTo(6_000 * TICK, fired::add);
+
+        assertThat(fired).containsExactly(1L, 2L);
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+
+    @Test
+    void holdsMillionsOfTimersCheaply() {
+        // Thirty-minute payment windows spread over a day of order placements
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(TICK, 64, 4, 0);
+        int timers = 2_000_000;
+        for (long id = 0; id < timers; id++) {
+            wheel.schedule(id, (id % 86_400 + 1_800) * TICK);
+        }
+        assertThat(wheel.size()).isEqualTo(timers);
+
+        long[] fired = new long[1];
+        long started = System.nanoTime();
+        wheel.advanceTo((86_400 + 1_800) * TICK, id -> fired[0]++);
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        assertThat(fired[0]).isEqualTo(timers);
+        assertThat(elapsedMillis).isLessThan(10_000);
+    }
+}
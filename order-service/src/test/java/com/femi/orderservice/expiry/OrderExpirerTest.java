@@ -0,0 +1,121 @@
+package com.femi.orderservice.expiry;
+
+import com.femi.orderservice.auth.JwtService;
+import com.femi.orderservice.client.ResilientProductClient;
+import com.femi.orderservice.dto.OrderStatusView;
+import com.femi.orderservice.repository.OrderRepository;
+import com.femi.orderservice.rollup.SalesRollupRecorder;
+import com.femi.orderservice.service.OrderEventRecorder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OrderExpirerTest {
+
+    private OrderRepository orderRepository;
+    private ResilientProductClient productClient;
+    private OrderExpirer expirer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        orderRepository = mock(OrderRepository.class);
+        productClient = mock(ResilientProductClient.class);
+        JwtService jwtService = mock(JwtService.class);
+        when(jwtService.generateServiceToken()).thenReturn("service-token");
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        expirer = new OrderExpirer(orderRepository, mock(OrderEventRecorder.class), mock(SalesRollupRecorder.class),
+                transactionTemplate, productClient, jwtService, new SimpleMeterRegistry(), Duration.ofMinutes(30), 500,
+                Duration.ofMinutes(1));
+    }
+
+    @Test
+    void stockIsMarkedReleasedOnlyAfterProductServiceConfirms() {
+        lapsed(1L, 2L);
+        when(orderRepository.findReservationIds(List.of(1L, 2L))).thenReturn(List.of("order-1", "order-2"));
+
+        assertThat(expirer.expire(List.of(1L, 2L))).isEqualTo(2);
+
+        InOrder inOrder = inOrder(orderRepository, productClient);
+        inOrder.verify(orderRepository).updateOrderStatus(eq(List.of(1L, 2L)), anyCollection(), any(), any());
+        inOrder.verify(productClient).releaseStock(List.of("order-1", "order-2"), "Bearer service-token");
+        inOrder.verify(orderRepository).markStockReleased(eq(List.of(1L, 2L)), any());
+    }
+
+    @Test
+    void aFailedReleaseStaysUnmarkedAndIsRetried() {
+        lapsed(1L);
+        when(orderRepository.findReservationIds(List.of(1L))).thenReturn(List.of("order-1"));
+        doThrow(new IllegalStateException("product-service down"))
+                .doNothing()
+                .when(productClient).releaseStock(anyCollection(), anyString());
+
+        expirer.expire(List.of(1L));
+        verify(orderRepository, never()).markStockReleased(anyCollection(), any());
+
+        // Also what a restart finds after dying between the expiry commit and the release call
+        when(orderRepository.findExpiredWithUnreleasedStock(any(), anyInt())).thenReturn(List.of(1L));
+        expirer.retryReleases();
+
+        verify(productClient, times(2)).releaseStock(List.of("order-1"), "Bearer service-token");
+        verify(orderRepository).markStockReleased(eq(List.of(1L)), any());
+    }
+
+    @Test
+    void ordersWithoutAReservationIdAreMarkedWithoutACall() {
+        lapsed(1L);
+        when(orderRepository.findReservationIds(List.of(1L))).thenReturn(List.of());
+
+        expirer.expire(List.of(1L));
+
+        verifyNoInteractions(productClient);
+        verify(orderRepository).markStockReleased(eq(List.of(1L)), any());
+    }
+
+    @Test
+    void nothingIsReleasedWhenNoCandidateHasLapsed() {
+        when(orderRepository.lockLapsedOrders(anyCollection(), anyList(), any(), any())).thenReturn(List.of());
+
+        assertThat(expirer.expire(List.of(1L))).isZero();
+
+        verifyNoInteractions(productClient);
+        verify(orderRepository, never()).updateOrderStatus(anyCollection(), anyCollection(), any(), any());
+    }
+
+    private void lapsed(Long... ids) {
+        List<OrderStatusView> rows = Arrays.stream(ids).map(id -> {
+            OrderStatusView row = mock(OrderStatusView.class);
+            when(row.getId()).thenReturn(id);
+            when(row.getTotalAmount()).thenReturn(new BigDecimal("10.00"));
+            when(row.getPaymentStatus()).thenReturn("PENDING");
+            return row;
+        }).toList();
+        when(orderRepository.lockLapsedOrders(anyCollection(), anyList(), any(), any())).thenReturn(rows);
+    }
+}
@@ -0,0 +1,106 @@
+package com.femi.orderservice.export;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exports a large orders table from an on-disk H2 database and samples heap usage while it runs.
+ * Run with {@code mvn test -Dtest=OrderExportBenchmarkTest -Dexport.benchmark=true [-Dexport.benchmark.rows=10000000]}.
+ */
+@EnabledIfSystemProperty(named = "export.benchmark", matches = "true")
+class OrderExportBenchmarkTest {
+
+    private static final long ROWS = Long.getLong("export.benchmark.rows", 10_000_000L);
+    private static final long MAX_HEAP_GROWTH_BYTES = 256L * 1024 * 1024;
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void exportMemoryStaysFlatRegardlessOfRowCount() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        // Lazy execution lets H2 hand rows to the cursor as they are read, like MySQL's streaming mode
+        dataSource.setURL("jdbc:h2:file:" + dataDir.resolve("orders") + ";LAZY_QUERY_EXECUTION=TRUE");
+        seed(dataSource);
+
+        OrderExportService exportService = new OrderExportService(dataSource, new SimpleMeterRegistry(), 1_000, 1);
+
+        for (ExportFormat format : ExportFormat.values()) {
+            for (boolean gzip : new boolean[]{false, true}) {
+                CountingOutputStream out = new CountingOutputStream();
+                MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+                System.gc();
+                long baseline = memory.getHeapMemoryUsage().getUsed();
+
+                AtomicLong peak = new AtomicLong(baseline);
+                AtomicBoolean running = new AtomicBoolean(true);
+                Thread sampler = Thread.ofPlatform().daemon().start(() -> {
+                    while (running.get()) {
+                        peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                        try {
+                            Thread.sleep(20);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                });
+
+                long started = System.nanoTime();
+                long exported = exportService.export(new OrderExportFilter(Set.of(), null, null, null, false), format, gzip, out);
+                long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+                running.set(false);
+                sampler.join();
+
+                System.out.printf("%s gzip=%s: %,d rows, %,d bytes in %,d ms (%,.0f rows/s), heap peak +%,d KB%n",
+                        format, gzip, exported, out.count, elapsedMillis,
+                        exported * 1000.0 / Math.max(elapsedMillis, 1), (peak.get() - baseline) / 1024);
+
+                assertThat(exported).isEqualTo(ROWS);
+                // Allocation churn shows up here too, so the bound is loose; a buffered export would need gigabytes
+                assertThat(peak.get() - baseline).isLessThan(MAX_HEAP_GROWTH_BYTES);
+            }
+        }
+    }
+
+    private void seed(JdbcDataSource dataSource) throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE orders (" +
+                    "id BIGINT PRIMARY KEY, buyer_id BIGINT, seller_id BIGINT, product_id BIGINT, " +
+                    "product_name VARCHAR(255), quantity INT, total_amount DECIMAL(38, 2), " +
+                    "order_status VARCHAR(32), payment_status VARCHAR(32), created_at TIMESTAMP, updated_at TIMESTAMP)");
+            statement.execute("INSERT INTO orders SELECT X, MOD(X, 50000), MOD(X, 500), MOD(X, 20000), " +
+                    "CONCAT('Product, \"edition\" ', MOD(X, 20000)), MOD(X, 5) + 1, MOD(X, 997) + 0.99, " +
+                    "'PLACED', 'PENDING', DATEADD('SECOND', X, TIMESTAMP '2025-01-01 00:00:00'), NULL " +
+                    "FROM SYSTEM_RANGE(1, " + ROWS + ")");
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.femi.orderservice.idempotency;
+
+import com.femi.orderservice.model.IdempotencyRecord;
+import com.femi.orderservice.model.IdempotencyStatus;
+import com.femi.orderservice.model.Order;
+import com.femi.orderservice.repository.IdempotencyRecordRepository;
+import com.femi.orderservice.repository.OrderRepository;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:idempotency;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyFilterTest {
+
+    private static final Duration TTL = Duration.ofHours(24);
+
+    // Only the JPA side of the service; the application class would also bring up Feign clients and schedulers
+    @Configuration
+    @EntityScan(basePackageClasses = Order.class)
+    @EnableJpaRepositories(basePackageClasses = OrderRepository.class)
+    static class JpaOnly {
+    }
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    private IdempotencyFilter filter;
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        repository.deleteAll();
+        filter = new IdempotencyFilter(store(Duration.ofSeconds(30)));
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void aConcurrentDuplicateWaitsForAndReplaysTheFirstResponse() throws Exception {
+        CountDownLatch executing = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        FilterChain slow = (request, response) -> {
+            executions.incrementAndGet();
+            executing.countDown();
+            try {
+                finish.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            created((HttpServletResponse) response);
+        };
+
+        try (ExecutorService requests = Executors.newFixedThreadPool(2)) {
+            Future<MockHttpServletResponse> first = requests.submit(() -> post("key-1", "{\"productId\":1}", slow));
+            assertThat(executing.await(10, TimeUnit.SECONDS)).isTrue();
+            Future<MockHttpServletResponse> duplicate = requests.submit(() -> post("key-1", "{\"productId\":1}", slow));
+            // Give the duplicate time to find the first execution and start waiting on it
+            Thread.sleep(200);
+            finish.countDown();
+
+            MockHttpServletResponse original = first.get(10, TimeUnit.SECONDS);
+            MockHttpServletResponse replayed = duplicate.get(10, TimeUnit.SECONDS);
+            assertThat(original.getStatus()).isEqualTo(201);
+            assertThat(replayed.getStatus()).isEqualTo(201);
+            assertThat(replayed.getContentAsString()).isEqualTo(original.getContentAsString());
+            assertThat(replayed.getHeader("Idempotent-Replayed")).isEqualTo("true");
+        }
+        assertThat(executions.get()).isEqualTo(1);
+    }
+
+    @Test
+    void aReusedKeyWithADifferentBodyIsRejected() throws Exception {
+        FilterChain chain = (request, response) -> {
+            executions.incrementAndGet();
+            created((HttpServletResponse) response);
+        };
+
+        assertThat(post("key-2", "{\"productId\":1}", chain).getStatus()).isEqualTo(201);
+        MockHttpServletResponse reused = post("key-2", "{\"productId\":2}", chain);
+
+        assertThat(reused.getStatus()).isEqualTo(422);
+        assertThat(executions.get()).isEqualTo(1);
+    }
+
+    @Test
+    void serverErrorsAreNotStoredSoTheRetryRunsAgain() throws Exception {
+        FilterChain failing = (request, response) -> {
+            executions.incrementAndGet();
+            ((HttpServletResponse) response).setStatus(503);
+        };
+
+        assertThat(post("key-3", "{}", failing).getStatus()).isEqualTo(503);
+        assertThat(repository.count()).isZero();
+        assertThat(post("key-3", "{}", failing).getStatus()).isEqualTo(503);
+
+        assertThat(executions.get()).isEqualTo(2);
+    }
+
+    @Test
+    void aStaleLeaseIsTakenOverAndACompletedKeyKeepsTheFullTtl() throws Exception {
+        // The first instance claims the key and dies before storing a response
+        IdempotencyStore crashed = store(Duration.ofMillis(1));
+        assertThat(crashed.claim("key-4", "fingerprint").outcome()).isEqualTo(IdempotencyStore.Outcome.ACQUIRED);
+
+        IdempotencyStore survivor = store(Duration.ofSeconds(30));
+        Thread.sleep(20);
+        assertThat(survivor.claim("key-4", "fingerprint").outcome()).isEqualTo(IdempotencyStore.Outcome.ACQUIRED);
+        IdempotencyRecord leased = repository.findById("key-4").orElseThrow();
+        assertThat(leased.getStatus()).isEqualTo(IdempotencyStatus.IN_PROGRESS);
+        assertThat(leased.getExpiresAt()).isBefore(LocalDateTime.now().plusMinutes(1));
+
+        survivor.complete("key-4", new StoredResponse("fingerprint", 201, "application/json", "{}".getBytes(StandardCharsets.UTF_8)));
+        assertThat(repository.findById("key-4").orElseThrow().getExpiresAt())
+                .isCloseTo(LocalDateTime.now().plus(TTL), within(1, ChronoUnit.MINUTES));
+    }
+
+    private IdempotencyStore store(Duration lease) {
+        return new IdempotencyStore(repository, TTL, Duration.ofSeconds(5), lease, 1000);
+    }
+
+    private MockHttpServletResponse post(String key, String body, FilterChain chain) throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("7", null));
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/orders");
+        request.addHeader(IdempotencyFilter.HEADER, key);
+        request.setContentType("application/json");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private void created(HttpServletResponse response) throws IOException {
+        response.setStatus(201);
+        response.setContentType("application/json");
+        response.getWriter().write("{\"id\":" + executions.get() + "}");
+        response.getWriter().flush();
+    }
+}
@@ -0,0 +1,36 @@
+package com.femi.orderservice.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderStatusTest {
+
+    @Test
+    void ordersMoveForwardOneStepAtATime() {
+        assertThat(OrderStatus.PLACED.canTransitionTo(OrderStatus.CONFIRMED)).isTrue();
+        assertThat(OrderStatus.CONFIRMED.canTransitionTo(OrderStatus.SHIPPED)).isTrue();
+        assertThat(OrderStatus.SHIPPED.canTransitionTo(OrderStatus.DELIVERED)).isTrue();
+
+        assertThat(OrderStatus.PLACED.canTransitionTo(OrderStatus.SHIPPED)).isFalse();
+        assertThat(OrderStatus.SHIPPED.canTransitionTo(OrderStatus.CONFIRMED)).isFalse();
+        assertThat(OrderStatus.DELIVERED.allowedTargets()).isEmpty();
+    }
+
+    @Test
+    void onlyPlacedOrdersExpireAndExpiredOrdersLeaveSales() {
+        assertThat(OrderStatus.EXPIRED.allowedSources()).containsExactly(OrderStatus.PLACED);
+        assertThat(OrderStatus.EXPIRED.allowedTargets()).isEmpty();
+        assertThat(OrderStatus.EXPIRED.countsTowardsSales()).isFalse();
+    }
+
+    @Test
+    void allowedSourcesMirrorTheTransitionGraph() {
+        for (OrderStatus target : OrderStatus.values()) {
+            for (OrderStatus source : OrderStatus.values()) {
+                assertThat(target.allowedSources().contains(source)).isEqualTo(source.canTransitionTo(target));
+            }
+        }
+        assertThat(OrderStatus.SHIPPED.allowedSources()).containsExactly(OrderStatus.CONFIRMED);
+    }
+}
@@ -0,0 +1,147 @@
+package com.femi.orderservice.outbox;
+
+import com.femi.orderservice.model.Order;
+import com.femi.orderservice.model.OrderEventType;
+import com.femi.orderservice.model.OrderOutboxEvent;
+import com.femi.orderservice.repository.OrderOutboxRepository;
+import com.femi.orderservice.repository.OrderRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderOutboxRelayTest {
+
+    // Only the JPA side of the service; the application class would also bring up Feign clients and schedulers
+    @Configuration
+    @EntityScan(basePackageClasses = Order.class)
+    @EnableJpaRepositories(basePackageClasses = OrderRepository.class)
+    static class JpaOnly {
+    }
+
+    @Autowired
+    private OrderOutboxRepository outboxRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void clean() {
+        outboxRepository.deleteAll();
+    }
+
+    @Test
+    void aFailedDeliveryLeavesTheBatchUnpublished() {
+        List<Long> ids = insertEvents(3);
+        AtomicBoolean sinkDown = new AtomicBoolean(true);
+        Queue<Long> delivered = new ConcurrentLinkedQueue<>();
+        OrderOutboxRelay relay = relay(events -> {
+            if (sinkDown.get()) {
+                throw new IllegalStateException("sink unavailable");
+            }
+            events.forEach(event -> delivered.add(event.getId()));
+        }, 10);
+
+        relay.relay();
+
+        assertThat(delivered).isEmpty();
+        assertThat(outboxRepository.findAll()).allSatisfy(event -> assertThat(event.getPublishedAt()).isNull());
+
+        sinkDown.set(false);
+        relay.relay();
+
+        assertThat(delivered).containsExactlyElementsOf(ids);
+        assertThat(outboxRepository.findOldestUnpublishedCreatedAt()).isNull();
+    }
+
+    @Test
+    void twoRelaysNeverDeliverTheSameEventTwice() throws Exception {
+        List<Long> ids = insertEvents(500);
+        Queue<Long> delivered = new ConcurrentLinkedQueue<>();
+        AtomicInteger deliveries = new AtomicInteger();
+        // Both relays hold a claimed batch at the same moment before either commits
+        CountDownLatch bothClaimed = new CountDownLatch(2);
+        AtomicBoolean overlapped = new AtomicBoolean();
+        OrderEventSink sink = events -> {
+            if (deliveries.getAndIncrement() < 2) {
+                bothClaimed.countDown();
+                try {
+                    if (bothClaimed.await(5, TimeUnit.SECONDS)) {
+                        overlapped.set(true);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            events.forEach(event -> delivered.add(event.getId()));
+        };
+        List<OrderOutboxRelay> relays = List.of(relay(sink, 20), relay(sink, 20));
+
+        try (ExecutorService instances = Executors.newFixedThreadPool(relays.size())) {
+            List<Future<?>> running = new ArrayList<>();
+            for (OrderOutboxRelay relay : relays) {
+                running.add(instances.submit(() -> {
+                    // A relay stops early on a short batch, which skipped rows can cause; poll again like the scheduler
+                    while (outboxRepository.findOldestUnpublishedCreatedAt() != null) {
+                        relay.relay();
+                    }
+                }));
+            }
+            for (Future<?> future : running) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        }
+
+        assertThat(overlapped).isTrue();
+        assertThat(delivered).hasSize(ids.size()).doesNotHaveDuplicates();
+        assertThat(delivered).containsExactlyInAnyOrderElementsOf(ids);
+    }
+
+    private OrderOutboxRelay relay(OrderEventSink sink, int batchSize) {
+        return new OrderOutboxRelay(outboxRepository, sink, transactionTemplate, new SimpleMeterRegistry(),
+                batchSize, Duration.ofDays(7));
+    }
+
+    private List<Long> insertEvents(int count) {
+        List<OrderOutboxEvent> events = new ArrayList<>();
+        for (long orderId = 1; orderId <= count; orderId++) {
+            events.add(OrderOutboxEvent.builder()
+                    .orderId(orderId)
+                    .eventType(OrderEventType.ORDER_PLACED)
+                    .payload("{\"orderId\":" + orderId + "}")
+                    .build());
+        }
+        return outboxRepository.saveAll(events).stream().map(OrderOutboxEvent::getId).toList();
+    }
+}
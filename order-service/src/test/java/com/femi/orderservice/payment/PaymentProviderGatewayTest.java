@@ -0,0 +1,157 @@
+package com.femi.orderservice.payment;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaymentProviderGatewayTest {
+
+    private static final CheckoutRequest REQUEST = CheckoutRequest.builder()
+            .orderId(1L)
+            .currency("usd")
+            .lineItems(List.of(new CheckoutLineItem("Widget", 1000, 1)))
+            .successUrl("http://localhost/success")
+            .cancelUrl("http://localhost/cancel")
+            .expiresAt(Instant.now().plus(Duration.ofMinutes(30)))
+            .build();
+
+    @Test
+    void capsConcurrentProviderCallsAndRejectsOverflowQuickly() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        StubPaymentProvider stub = new StubPaymentProvider(Duration.ofMillis(300));
+        PaymentProvider provider = new PaymentProvider() {
+            @Override
+            public CheckoutSession createCheckoutSession(CheckoutRequest request) {
+                peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    return stub.createCheckoutSession(request);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+
+            @Override
+            public void refund(String sessionId) {
+                stub.refund(sessionId);
+            }
+        };
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PaymentProviderGateway gateway = new PaymentProviderGateway(
+                provider, registry, 4, Duration.ofMillis(50), Duration.ofSeconds(2));
+
+        int callers = 40;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Long> rejectionMillis = new ArrayList<>();
+
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    long began = System.nanoTime();
+                    try {
+                        gateway.createCheckoutSession(REQUEST);
+                        succeeded.incrementAndGet();
+                    } catch (PaymentProviderUnavailableException e) {
+                        rejected.incrementAndGet();
+                        synchronized (rejectionMillis) {
+                            rejectionMillis.add(Duration.ofNanos(System.nanoTime() - began).toMillis());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            gateway.shutdown();
+        }
+
+        assertThat(peak.get()).isLessThanOrEqualTo(4);
+        assertThat(succeeded.get()).isGreaterThanOrEqualTo(4);
+        assertThat(succeeded.get() + rejected.get()).isEqualTo(callers);
+        assertThat(rejected.get()).isPositive();
+        // Overflow is shed after the short permit wait instead of queuing behind the provider
+        assertThat(rejectionMillis).allMatch(millis -> millis < 250);
+        assertThat(registry.counter("payment.provider.rejected").count()).isEqualTo(rejected.get());
+    }
+
+    @Test
+    void orderReadsStayFastWhileTheProviderIsSlow() throws Exception {
+        // Stands in for the servlet pool that serves both checkouts and order reads
+        ExecutorService requestThreads = Executors.newFixedThreadPool(8);
+        PaymentProviderGateway gateway = new PaymentProviderGateway(
+                new StubPaymentProvider(Duration.ofSeconds(2)), new SimpleMeterRegistry(), 2, Duration.ofMillis(20), Duration.ofSeconds(5));
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<Long>> reads = new ArrayList<>();
+
+        try {
+            // A steady stream of checkouts, each followed by a read, for about a second
+            for (int i = 0; i < 100; i++) {
+                requestThreads.submit(() -> {
+                    try {
+                        gateway.createCheckoutSession(REQUEST);
+                    } catch (PaymentProviderUnavailableException e) {
+                        rejected.incrementAndGet();
+                    }
+                });
+                long submitted = System.nanoTime();
+                reads.add(requestThreads.submit(() -> {
+                    Thread.sleep(2);
+                    return Duration.ofNanos(System.nanoTime() - submitted).toMillis();
+                }));
+                Thread.sleep(10);
+            }
+
+            List<Long> readMillis = new ArrayList<>();
+            for (Future<Long> read : reads) {
+                readMillis.add(read.get());
+            }
+            assertThat(rejected.get()).isGreaterThan(50);
+            // Each provider call takes 2s; a read that queued behind the checkouts would wait at least that long
+            assertThat(readMillis).allMatch(millis -> millis < 500);
+        } finally {
+            requestThreads.shutdownNow();
+            gateway.shutdown();
+        }
+    }
+
+    @Test
+    void timesOutSlowProviderAndFreesTheSlot() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PaymentProviderGateway gateway = new PaymentProviderGateway(
+                new StubPaymentProvider(Duration.ofSeconds(5)), registry, 1, Duration.ofMillis(500), Duration.ofMillis(100));
+
+        try {
+            assertThatThrownBy(() -> gateway.createCheckoutSession(REQUEST))
+                    .isInstanceOf(PaymentProviderUnavailableException.class)
+                    .hasMessageContaining("timed out");
+
+            // The cancelled call interrupts the stub, releasing its permit for the next caller
+            assertThatThrownBy(() -> gateway.createCheckoutSession(REQUEST))
+                    .isInstanceOf(PaymentProviderUnavailableException.class)
+                    .hasMessageContaining("timed out");
+            assertThat(registry.counter("payment.provider.timeouts").count()).isEqualTo(2);
+        } finally {
+            gateway.shutdown();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.femi.orderservice.payment;
+
+import com.femi.orderservice.model.Order;
+import com.femi.orderservice.model.OrderEventType;
+import com.femi.orderservice.model.PaymentStatus;
+import com.femi.orderservice.model.PaymentWebhookEvent;
+import com.femi.orderservice.repository.OrderRepository;
+import com.femi.orderservice.repository.PaymentWebhookEventRepository;
+import com.femi.orderservice.service.OrderEventRecorder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PaymentWebhookProcessorTest {
+
+    private OrderRepository orderRepository;
+    private PaymentWebhookEventRepository inboxRepository;
+    private OrderEventRecorder orderEventRecorder;
+    private TransactionTemplate transactionTemplate;
+    private JdbcTemplate jdbcTemplate;
+    private PaymentWebhookProcessor processor;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        orderRepository = mock(OrderRepository.class);
+        inboxRepository = mock(PaymentWebhookEventRepository.class);
+        orderEventRecorder = mock(OrderEventRecorder.class);
+        transactionTemplate = mock(TransactionTemplate.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(orderRepository.lockByPaymentSessionIds(anyCollection(), anyCollection())).thenAnswer(invocation -> {
+            Collection<String> sessionIds = invocation.getArgument(0);
+            List<Order> orders = new ArrayList<>();
+            // Only numbered sessions have an order that can still take the transition
+            for (String sessionId : sessionIds) {
+                if (!sessionId.matches("cs_\\d+")) {
+                    continue;
+                }
+                orders.add(Order.builder()
+                        .id(Long.parseLong(sessionId.substring("cs_".length())))
+                        .paymentSessionId(sessionId)
+                        .paymentStatus(PaymentStatus.PENDING)
+                        .build());
+            }
+            return orders;
+        });
+
+        processor = new PaymentWebhookProcessor(orderRepository, inboxRepository, orderEventRecorder, transactionTemplate,
+                jdbcTemplate, new SimpleMeterRegistry(), 500, Duration.ofSeconds(10), Duration.ofMinutes(10), Duration.ofDays(3),
+                Duration.ofHours(1));
+    }
+
+    @Test
+    void storesEachEventOnceAndTurnsRedeliveriesAway() {
+        when(jdbcTemplate.update(anyString(), any(Object[].class)))
+                .thenReturn(1)
+                .thenThrow(new DuplicateKeyException("evt_1"));
+
+        assertThat(processor.receive(new PaymentStatusUpdate("evt_1", "cs_1", PaymentStatus.PAID))).isTrue();
+        assertThat(processor.receive(new PaymentStatusUpdate("evt_1", "cs_1", PaymentStatus.PAID))).isFalse();
+    }
+
+    @Test
+    void failureToStoreIsNotSwallowed() {
+        when(jdbcTemplate.update(anyString(), any(Object[].class)))
+                .thenThrow(new DataAccessResourceFailureException("database down"));
+
+        // The endpoint must answer non-2xx so the provider redelivers
+        assertThatThrownBy(() -> processor.receive(new PaymentStatusUpdate("evt_1", "cs_1", PaymentStatus.PAID)))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void appliesABurstOfEventsInOneTransactionWithOneUpdatePerStatus() {
+        List<PaymentWebhookEvent> burst = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            burst.add(event("evt_paid_" + i, "cs_" + i, PaymentStatus.PAID));
+        }
+        for (int i = 400; i < 500; i++) {
+            burst.add(event("evt_failed_" + i, "cs_" + i, PaymentStatus.FAILED));
+        }
+        when(inboxRepository.claimDue(any(), anyInt())).thenReturn(burst, List.of());
+
+        processor.drain();
+
+        verify(transactionTemplate, times(2)).executeWithoutResult(any());
+        verify(orderRepository).updatePaymentStatus(argThat(ids -> ids.size() == 400),
+                eq(PaymentStatus.PAID.allowedSources()), eq(PaymentStatus.PAID), any());
+        verify(orderRepository).updatePaymentStatus(argThat(ids -> ids.size() == 100),
+                eq(PaymentStatus.FAILED.allowedSources()), eq(PaymentStatus.FAILED), any());
+        verify(orderEventRecorder, times(500)).record(any(), eq(OrderEventType.PAYMENT_STATUS_CHANGED));
+
+        ArgumentCaptor<Collection<String>> processed = ArgumentCaptor.forClass(Collection.class);
+        verify(inboxRepository).markProcessed(processed.capture(), any());
+        assertThat(processed.getValue()).hasSize(500);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void lateFailureInTheSameBatchDoesNotOverridePayment() {
+        when(inboxRepository.claimDue(any(), anyInt())).thenReturn(List.of(
+                event("evt_1", "cs_7", PaymentStatus.PAID),
+                event("evt_2", "cs_7", PaymentStatus.FAILED)));
+
+        processor.drainBatch();
+
+        ArgumentCaptor<PaymentStatus> target = ArgumentCaptor.forClass(PaymentStatus.class);
+        verify(orderRepository, times(1)).updatePaymentStatus(anyCollection(), anyCollection(), target.capture(), any());
+        assertThat(target.getValue()).isEqualTo(PaymentStatus.PAID);
+        verify(inboxRepository).markProcessed(eq(List.of("evt_1", "evt_2")), any());
+    }
+
+    @Test
+    void failedBatchIsRetriedOneByOneAndOnlyTheFailingEventIsDeferred() {
+        PaymentWebhookEvent first = event("evt_1", "cs_1", PaymentStatus.PAID);
+        PaymentWebhookEvent poison = event("evt_2", "cs_2", PaymentStatus.PAID);
+        poison.setAttempts(2);
+        PaymentWebhookEvent third = event("evt_3", "cs_3", PaymentStatus.PAID);
+        when(inboxRepository.claimDue(any(), anyInt())).thenReturn(List.of(first, poison, third));
+        for (PaymentWebhookEvent event : List.of(first, poison, third)) {
+            when(inboxRepository.lockUnprocessed(event.getEventId())).thenReturn(Optional.of(event));
+        }
+        when(orderRepository.updatePaymentStatus(argThat(ids -> ids.contains(2L)), anyCollection(), any(), any()))
+                .thenThrow(new IllegalStateException("constraint violated"));
+
+        LocalDateTime before = LocalDateTime.now();
+        assertThat(processor.drainBatch()).isEqualTo(3);
+
+        verify(inboxRepository).markProcessed(eq(List.of("evt_1")), any());
+        verify(inboxRepository).markProcessed(eq(List.of("evt_3")), any());
+        verify(inboxRepository, never()).markProcessed(argThat(ids -> ids.contains("evt_2")), any());
+        // Third failure: 10s doubled twice; kept for the next attempt rather than dropped
+        verify(inboxRepository).deferRetry(eq("evt_2"), argThat(next ->
+                !next.isBefore(before.plusSeconds(40)) && next.isBefore(before.plusSeconds(41))));
+        verify(inboxRepository, never()).deleteById(anyString());
+    }
+
+    @Test
+    void onlyEventsThatSettledAnOrderAreMarkedProcessed() {
+        PaymentWebhookEvent matched = event("evt_1", "cs_1", PaymentStatus.PAID);
+        PaymentWebhookEvent alreadyPaid = event("evt_2", "cs_paid", PaymentStatus.PAID);
+        PaymentWebhookEvent notSavedYet = event("evt_3", "cs_new", PaymentStatus.PAID);
+        PaymentWebhookEvent orphan = event("evt_4", "cs_orphan", PaymentStatus.FAILED);
+        orphan.setReceivedAt(LocalDateTime.now().minusHours(2));
+        when(inboxRepository.claimDue(any(), anyInt())).thenReturn(List.of(matched, alreadyPaid, notSavedYet, orphan));
+        when(orderRepository.findPaymentSessionIdsIn(anyCollection())).thenReturn(List.of("cs_paid"));
+
+        processor.drainBatch();
+
+        verify(inboxRepository).markProcessed(eq(List.of("evt_1", "evt_2")), any());
+        verify(inboxRepository).deferRetry(eq("evt_3"), any());
+        verify(inboxRepository).park(eq("evt_4"), any());
+        verify(inboxRepository, never()).deferRetry(eq("evt_4"), any());
+        verify(inboxRepository, never()).park(eq("evt_3"), any());
+    }
+
+    private static PaymentWebhookEvent event(String eventId, String sessionId, PaymentStatus status) {
+        LocalDateTime now = LocalDateTime.now();
+        return PaymentWebhookEvent.builder()
+                .eventId(eventId)
+                .sessionId(sessionId)
+                .targetStatus(status)
+                .receivedAt(now)
+                .nextAttemptAt(now)
+                .build();
+    }
+}
@@ -0,0 +1,233 @@
+package com.femi.orderservice.placement;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.femi.orderservice.model.Order;
+import com.femi.orderservice.model.OrderItem;
+import com.femi.orderservice.rollup.SalesRollupRecorder;
+import com.femi.orderservice.service.OrderEventRecorder;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class OrderGroupCommitterTest {
+
+    private static final int BENCHMARK_ORDERS = Integer.getInteger("placement.benchmark.orders", 20_000);
+    private static final int BENCHMARK_CALLERS = Integer.getInteger("placement.benchmark.callers", 64);
+
+    @TempDir
+    Path dataDir;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SalesRollupRecorder salesRollupRecorder = mock(SalesRollupRecorder.class);
+    private final List<AutoCloseable> closeables = new ArrayList<>();
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void close() throws Exception {
+        // Committers stop before their data source closes
+        for (AutoCloseable closeable : closeables.reversed()) {
+            closeable.close();
+        }
+    }
+
+    @Test
+    void concurrentPlacementsShareTransactionsAndGetDistinctIds() throws Exception {
+        OrderGroupCommitter committer = committer("jdbc:h2:mem:" + UUID.randomUUID(), 200, Duration.ofMillis(20));
+
+        List<Order> placed = placeConcurrently(committer, 300, 300);
+
+        Set<Long> ids = new HashSet<>();
+        placed.forEach(order -> ids.add(order.getId()));
+        assertThat(ids).hasSize(300).doesNotContainNull();
+        assertThat(count("orders")).isEqualTo(300);
+        assertThat(count("order_items")).isEqualTo(600);
+        assertThat(count("order_outbox")).isEqualTo(300);
+        assertThat(registry.summary("order.placement.batch.size").count()).isLessThan(300);
+        verify(salesRollupRecorder, atLeastOnce()).add(anyCollection());
+    }
+
+    @Test
+    void firstIdsStartAboveExistingAndArchivedOrders() {
+        OrderGroupCommitter committer = committer("jdbc:h2:mem:" + UUID.randomUUID(), 200, Duration.ZERO);
+        jdbcTemplate.update("INSERT INTO orders (id, buyer_id) VALUES (500, 1)");
+        jdbcTemplate.update("INSERT INTO orders_archive (id) VALUES (900)");
+
+        assertThat(committer.commit(order(1L)).getId()).isEqualTo(901L);
+        assertThat(committer.commit(order(1L)).getId()).isEqualTo(902L);
+    }
+
+    @Test
+    void badOrderFailsAloneWithoutTakingItsGroupDown() throws Exception {
+        OrderGroupCommitter committer = committer("jdbc:h2:mem:" + UUID.randomUUID(), 200, Duration.ofMillis(200));
+
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Order>> good = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                good.add(callers.submit(() -> committer.commit(order(1L))));
+            }
+            // buyer_id is NOT NULL, so this row fails the whole multi-row INSERT
+            Future<Order> bad = callers.submit(() -> committer.commit(order(null)));
+
+            for (Future<Order> future : good) {
+                assertThat(future.get(10, TimeUnit.SECONDS).getId()).isNotNull();
+            }
+            assertThatThrownBy(() -> bad.get(10, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(DataIntegrityViolationException.class);
+        }
+        assertThat(count("orders")).isEqualTo(20);
+        assertThat(count("order_outbox")).isEqualTo(20);
+    }
+
+    @Test
+    void commitsOnASingleConnectionWhileReservingIdBlocks() throws Exception {
+        // Blocks of 1 force a reservation for every order, on both the group and the fallback path
+        OrderGroupCommitter committer = committer("jdbc:h2:mem:" + UUID.randomUUID(), 200, Duration.ofMillis(20), 1, 1);
+
+        List<Order> placed = placeConcurrently(committer, 50, 10);
+        assertThat(placed).extracting(Order::getId).doesNotHaveDuplicates().doesNotContainNull();
+
+        committer.stop();
+        // After stop every commit takes the one-by-one path
+        assertThat(committer.commit(order(1L)).getId()).isNotNull();
+        assertThat(count("orders")).isEqualTo(51);
+    }
+
+    /**
+     * Compares one transaction per order (what {@code saveAndFlush} with IDENTITY amounted to) with
+     * group commit, on an on-disk H2 database. Run with
+     * {@code mvn test -Dtest=OrderGroupCommitterTest -Dplacement.benchmark=true [-Dplacement.benchmark.orders=20000]}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "placement.benchmark", matches = "true")
+    void groupCommitBeatsOneTransactionPerOrder() throws Exception {
+        OrderGroupCommitter committer = committer("jdbc:h2:file:" + dataDir.resolve("orders"), 200, Duration.ofMillis(2));
+
+        double perOrder = ordersPerSecond(order -> {
+            committer.assignIds(List.of(order));
+            transactionTemplate.executeWithoutResult(status -> committer.insert(List.of(order)));
+        });
+        double grouped = ordersPerSecond(committer::commit);
+
+        System.out.printf("one transaction per order: %.0f orders/s, group commit: %.0f orders/s (%.1fx), mean batch %.1f%n",
+                perOrder, grouped, grouped / perOrder, registry.summary("order.placement.batch.size").mean());
+        assertThat(grouped).isGreaterThan(perOrder);
+    }
+
+    private double ordersPerSecond(Consumer<Order> place) throws Exception {
+        long started = System.nanoTime();
+        try (ExecutorService callers = Executors.newFixedThreadPool(BENCHMARK_CALLERS)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < BENCHMARK_ORDERS; i++) {
+                futures.add(callers.submit(() -> place.accept(order(1L))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return BENCHMARK_ORDERS / ((System.nanoTime() - started) / 1e9);
+    }
+
+    private List<Order> placeConcurrently(OrderGroupCommitter committer, int orders, int callers) throws Exception {
+        try (ExecutorService pool = Executors.newFixedThreadPool(callers)) {
+            List<Future<Order>> futures = new ArrayList<>();
+            for (int i = 0; i < orders; i++) {
+                futures.add(pool.submit(() -> committer.commit(order(1L))));
+            }
+            List<Order> placed = new ArrayList<>();
+            for (Future<Order> future : futures) {
+                placed.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return placed;
+        }
+    }
+
+    private OrderGroupCommitter committer(String url, int maxBatchSize, Duration linger) {
+        return committer(url, maxBatchSize, linger, 16, 1000);
+    }
+
+    private OrderGroupCommitter committer(String url, int maxBatchSize, Duration linger, int poolSize, int idBlockSize) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        config.setMaximumPoolSize(poolSize);
+        // A pool that cannot hand out a connection fails fast instead of stalling the test for 30s
+        config.setConnectionTimeout(2000);
+        dataSource = new HikariDataSource(config);
+        closeables.add(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        createSchema();
+
+        OrderEventRecorder eventRecorder = new OrderEventRecorder(null, new ObjectMapper().findAndRegisterModules());
+        OrderGroupCommitter committer = new OrderGroupCommitter(jdbcTemplate, transactionTemplate,
+                new OrderIdAllocator(jdbcTemplate, transactionManager, idBlockSize), eventRecorder, salesRollupRecorder,
+                registry, maxBatchSize, linger, 5000, 2);
+        committer.start();
+        closeables.add(committer::stop);
+        return committer;
+    }
+
+    private void createSchema() {
+        jdbcTemplate.execute("CREATE TABLE orders (id BIGINT PRIMARY KEY, buyer_id BIGINT NOT NULL, product_id BIGINT, " +
+                "seller_id BIGINT, product_name VARCHAR(255), total_amount DECIMAL(19, 2), quantity INT, " +
+                "payment_status VARCHAR(20), order_status VARCHAR(20), payment_session_id VARCHAR(255), reservation_id VARCHAR(64), " +
+                "created_at TIMESTAMP, updated_at TIMESTAMP, version BIGINT)");
+        jdbcTemplate.execute("CREATE TABLE orders_archive (id BIGINT PRIMARY KEY)");
+        jdbcTemplate.execute("CREATE TABLE order_items (order_id BIGINT NOT NULL, product_id BIGINT, " +
+                "product_name VARCHAR(255), unit_price DECIMAL(19, 2), quantity INT)");
+        jdbcTemplate.execute("CREATE TABLE order_outbox (id BIGINT AUTO_INCREMENT PRIMARY KEY, order_id BIGINT, " +
+                "event_type VARCHAR(40), payload TEXT, created_at TIMESTAMP, published_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE id_blocks (name VARCHAR(64) PRIMARY KEY, next_value BIGINT)");
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    private static Order order(Long buyerId) {
+        List<OrderItem> items = List.of(
+                new OrderItem(1L, "Widget", new BigDecimal("10.00"), 2),
+                new OrderItem(2L, "Gadget", new BigDecimal("5.50"), 1));
+        return Order.builder()
+                .buyerId(buyerId)
+                .sellerId(7L)
+                .productId(1L)
+                .productName("Widget")
+                .quantity(3)
+                .totalAmount(new BigDecimal("25.50"))
+                .items(new ArrayList<>(items))
+                .build();
+    }
+}
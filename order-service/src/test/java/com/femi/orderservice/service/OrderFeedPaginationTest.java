@@ -0,0 +1,170 @@
+package com.femi.orderservice.service;
+
+import com.femi.orderservice.auth.JwtService;
+import com.femi.orderservice.client.ProductCache;
+import com.femi.orderservice.client.ResilientProductClient;
+import com.femi.orderservice.dto.CursorPageDTO;
+import com.femi.orderservice.dto.OrderResponseDTO;
+import com.femi.orderservice.dto.SellerOrderFilter;
+import com.femi.orderservice.dto.SellerOrderRow;
+import com.femi.orderservice.expiry.OrderExpiryScheduler;
+import com.femi.orderservice.model.Order;
+import com.femi.orderservice.model.OrderStatus;
+import com.femi.orderservice.placement.OrderGroupCommitter;
+import com.femi.orderservice.repository.ArchivedOrderRepository;
+import com.femi.orderservice.repository.OrderRepository;
+import com.femi.orderservice.rollup.SalesRollupRecorder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Pages through buyer and seller feeds whose orders are split between {@code orders} and
+ * {@code orders_archive}, interleaved in time, so every page boundary falls somewhere different
+ * relative to the hot/archive split.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:feeds;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderFeedPaginationTest {
+
+    private static final LocalDateTime T = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+    // Newest first: 15 and 14 share a timestamp, so the id decides, across the two tables
+    private static final List<Long> ALL_NEWEST_FIRST = List.of(17L, 16L, 15L, 14L, 13L, 12L, 11L, 10L);
+    private static final List<Long> DELIVERED_NEWEST_FIRST = List.of(17L, 16L, 15L, 13L, 12L, 11L);
+
+    @Configuration
+    @EntityScan(basePackageClasses = Order.class)
+    @EnableJpaRepositories(basePackageClasses = OrderRepository.class)
+    static class JpaOnly {
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    private OrderServiceImpl orderService;
+
+    @BeforeEach
+    void setUp() {
+        for (String table : List.of("order_items", "orders", "order_items_archive", "orders_archive")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+        // Only the two repositories are used by the feeds
+        orderService = new OrderServiceImpl(orderRepository, archivedOrderRepository, mock(ResilientProductClient.class),
+                mock(ProductCache.class), mock(OrderEventRecorder.class), mock(TransactionTemplate.class),
+                mock(SalesRollupRecorder.class), mock(OrderGroupCommitter.class), mock(OrderExpiryScheduler.class),
+                mock(JwtService.class));
+
+        insertHot(10L, "PLACED", T);
+        insertArchived(11L, T.plusMinutes(1));
+        insertHot(12L, "DELIVERED", T.plusMinutes(2));
+        insertArchived(13L, T.plusMinutes(3));
+        insertHot(14L, "SHIPPED", T.plusMinutes(4));
+        insertArchived(15L, T.plusMinutes(4));
+        insertHot(16L, "DELIVERED", T.plusMinutes(6));
+        insertArchived(17L, T.plusMinutes(7));
+        jdbcTemplate.update("INSERT INTO order_items_archive (order_id, product_id, product_name, unit_price, quantity) " +
+                "VALUES (15, 100, 'Widget', 2.50, 4)");
+
+        // Someone else's orders, newer than all of the above, must never leak into the feeds
+        jdbcTemplate.update("INSERT INTO orders (id, buyer_id, seller_id, product_id, product_name, total_amount, quantity, " +
+                "payment_status, order_status, created_at, version) VALUES (20, 8, 6, 100, 'Widget', 10.00, 1, 'PAID', 'DELIVERED', ?, 0)",
+                T.plusMinutes(9));
+        jdbcTemplate.update("INSERT INTO orders_archive (id, buyer_id, seller_id, product_id, product_name, total_amount, quantity, " +
+                "payment_status, order_status, created_at, version, archived_at) " +
+                "VALUES (21, 8, 6, 100, 'Widget', 10.00, 1, 'PAID', 'DELIVERED', ?, 0, ?)", T.plusMinutes(8), T);
+    }
+
+    @Test
+    void buyerFeedPagesAcrossHotAndArchivedOrdersWithoutGapsOrRepeats() {
+        for (int size = 1; size <= ALL_NEWEST_FIRST.size() + 1; size++) {
+            int pageSize = size;
+            assertThat(pageThrough(cursor -> orderService.getOrdersForBuyer(7L, cursor, pageSize), OrderResponseDTO::getId, pageSize))
+                    .as("page size %d", pageSize)
+                    .containsExactlyElementsOf(ALL_NEWEST_FIRST);
+        }
+
+        OrderResponseDTO archived = orderService.getOrdersForBuyer(7L, null, 3).getContent().get(2);
+        assertThat(archived.getId()).isEqualTo(15L);
+        assertThat(archived.getItems()).singleElement()
+                .satisfies(item -> assertThat(item.getLineTotal()).isEqualByComparingTo("10.00"));
+    }
+
+    @Test
+    void sellerFeedPagesAcrossHotAndArchivedOrdersWithAndWithoutAStatusFilter() {
+        SellerOrderFilter everything = new SellerOrderFilter(null, null, null);
+        SellerOrderFilter delivered = new SellerOrderFilter(Set.of(OrderStatus.DELIVERED), null, null);
+        SellerOrderFilter window = new SellerOrderFilter(null, T.plusMinutes(2), T.plusMinutes(7));
+
+        for (int size = 1; size <= ALL_NEWEST_FIRST.size() + 1; size++) {
+            int pageSize = size;
+            assertThat(pageThrough(cursor -> orderService.getOrdersForSeller(9L, everything, cursor, pageSize), SellerOrderRow::id, pageSize))
+                    .as("page size %d", pageSize)
+                    .containsExactlyElementsOf(ALL_NEWEST_FIRST);
+            assertThat(pageThrough(cursor -> orderService.getOrdersForSeller(9L, delivered, cursor, pageSize), SellerOrderRow::id, pageSize))
+                    .as("DELIVERED, page size %d", pageSize)
+                    .containsExactlyElementsOf(DELIVERED_NEWEST_FIRST);
+            assertThat(pageThrough(cursor -> orderService.getOrdersForSeller(9L, window, cursor, pageSize), SellerOrderRow::id, pageSize))
+                    .as("from/to, page size %d", pageSize)
+                    .containsExactly(16L, 15L, 14L, 13L, 12L);
+        }
+    }
+
+    private <R> List<Long> pageThrough(Function<String, CursorPageDTO<R>> fetch, Function<R, Long> id, int pageSize) {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPageDTO<R> page = fetch.apply(cursor);
+            assertThat(page.getContent()).hasSizeLessThanOrEqualTo(pageSize);
+            page.getContent().forEach(row -> seen.add(id.apply(row)));
+            cursor = page.getNextCursor();
+            // A full page may be the last one; a short page never has a successor
+            if (page.getContent().size() < pageSize) {
+                assertThat(cursor).isNull();
+            }
+        } while (cursor != null && seen.size() <= ALL_NEWEST_FIRST.size());
+        return seen;
+    }
+
+    private void insertHot(Long id, String status, LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO orders (id, buyer_id, seller_id, product_id, product_name, total_amount, quantity, " +
+                "payment_status, order_status, created_at, version) VALUES (?, 7, 9, 100, 'Widget', 10.00, 1, 'PAID', ?, ?, 0)",
+                id, status, createdAt);
+    }
+
+    private void insertArchived(Long id, LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO orders_archive (id, buyer_id, seller_id, product_id, product_name, total_amount, quantity, " +
+                "payment_status, order_status, created_at, version, archived_at) " +
+                "VALUES (?, 7, 9, 100, 'Widget', 10.00, 1, 'PAID', 'DELIVERED', ?, 0, ?)", id, createdAt, createdAt);
+    }
+}
@@ -0,0 +1,134 @@
+package com.femi.orderservice.service;
+
+import com.femi.orderservice.dto.PaymentResponseDTO;
+import com.femi.orderservice.exception.InvalidStatusTransitionException;
+import com.femi.orderservice.expiry.OrderExpiryScheduler;
+import com.femi.orderservice.model.Order;
+import com.femi.orderservice.model.OrderStatus;
+import com.femi.orderservice.model.PaymentStatus;
+import com.femi.orderservice.payment.CheckoutSession;
+import com.femi.orderservice.payment.PaymentProviderGateway;
+import com.femi.orderservice.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class PaymentServiceImplTest {
+
+    private OrderRepository orderRepository;
+    private TransactionTemplate transactionTemplate;
+    private PaymentProviderGateway paymentProviderGateway;
+    private OrderExpiryScheduler orderExpiryScheduler;
+    private PaymentServiceImpl paymentService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        orderRepository = mock(OrderRepository.class);
+        transactionTemplate = mock(TransactionTemplate.class);
+        paymentProviderGateway = mock(PaymentProviderGateway.class);
+        orderExpiryScheduler = mock(OrderExpiryScheduler.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+        when(orderExpiryScheduler.paymentDeadline(any())).thenAnswer(invocation -> Instant.now().plus(Duration.ofMinutes(30)));
+
+        paymentService = new PaymentServiceImpl(orderRepository, mock(OrderEventRecorder.class), transactionTemplate,
+                paymentProviderGateway, orderExpiryScheduler);
+    }
+
+    @Test
+    void paidAndRefundedOrdersAreNotPaidAgain() {
+        for (PaymentStatus settled : new PaymentStatus[]{PaymentStatus.PAID, PaymentStatus.REFUNDED}) {
+            Order order = order(PaymentStatus.PENDING);
+            order.setPaymentStatus(settled);
+            order.setPaymentSessionId("cs_paid");
+            when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+
+            assertThatThrownBy(() -> paymentService.initiatePayment(1L, "7"))
+                    .isInstanceOf(InvalidStatusTransitionException.class);
+            assertThat(order.getPaymentSessionId()).isEqualTo("cs_paid");
+        }
+        verifyNoInteractions(paymentProviderGateway);
+        verify(orderRepository, never()).replacePaymentSession(any(), any(), any(), any(), any(), anyCollection(), any(), any(), any());
+    }
+
+    @Test
+    void payingTwiceHandsOutTheSessionThatIsStillOpen() {
+        Order order = order(PaymentStatus.PENDING);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        when(paymentProviderGateway.createCheckoutSession(any()))
+                .thenReturn(new CheckoutSession("cs_1", "https://pay/cs_1", Instant.now().plus(Duration.ofMinutes(31))));
+        when(orderRepository.replacePaymentSession(eq(1L), isNull(), eq("cs_1"), anyString(), any(), anyCollection(), any(), any(), any()))
+                .thenReturn(1);
+
+        PaymentResponseDTO first = paymentService.initiatePayment(1L, "7");
+        PaymentResponseDTO second = paymentService.initiatePayment(1L, "7");
+
+        assertThat(first.getPaymentUrl()).isEqualTo("https://pay/cs_1");
+        assertThat(second.getPaymentUrl()).isEqualTo("https://pay/cs_1");
+        verify(paymentProviderGateway, times(1)).createCheckoutSession(any());
+    }
+
+    @Test
+    void aConcurrentPayThatWonKeepsItsSession() {
+        Order stale = order(PaymentStatus.PENDING);
+        Order current = order(PaymentStatus.PENDING);
+        current.setPaymentSessionId("cs_other");
+        current.setPaymentSessionUrl("https://pay/cs_other");
+        current.setPaymentExpiresAt(LocalDateTime.now().plusMinutes(30));
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(stale), Optional.of(current));
+        when(paymentProviderGateway.createCheckoutSession(any()))
+                .thenReturn(new CheckoutSession("cs_mine", "https://pay/cs_mine", Instant.now().plus(Duration.ofMinutes(31))));
+        // The other request already swapped its session in, so the guarded update matches nothing
+        when(orderRepository.replacePaymentSession(any(), any(), any(), any(), any(), anyCollection(), any(), any(), any()))
+                .thenReturn(0);
+
+        assertThat(paymentService.initiatePayment(1L, "7").getPaymentUrl()).isEqualTo("https://pay/cs_other");
+        verify(orderExpiryScheduler, never()).track(any(), any());
+    }
+
+    @Test
+    void aFailedPaymentCanBeRetriedWithANewSession() {
+        Order order = order(PaymentStatus.FAILED);
+        order.setPaymentSessionId("cs_failed");
+        order.setPaymentSessionUrl("https://pay/cs_failed");
+        order.setPaymentExpiresAt(LocalDateTime.now().plusMinutes(20));
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        when(paymentProviderGateway.createCheckoutSession(any()))
+                .thenReturn(new CheckoutSession("cs_2", "https://pay/cs_2", Instant.now().plus(Duration.ofMinutes(31))));
+        when(orderRepository.replacePaymentSession(eq(1L), eq("cs_failed"), eq("cs_2"), anyString(), any(), anyCollection(), any(), any(), any()))
+                .thenReturn(1);
+
+        assertThat(paymentService.initiatePayment(1L, "7").getPaymentUrl()).isEqualTo("https://pay/cs_2");
+        assertThat(order.getPaymentStatus()).isEqualTo(PaymentStatus.PENDING);
+    }
+
+    private static Order order(PaymentStatus paymentStatus) {
+        return Order.builder()
+                .id(1L)
+                .buyerId(7L)
+                .productName("Widget")
+                .totalAmount(new BigDecimal("20.00"))
+                .quantity(2)
+                .orderStatus(OrderStatus.PLACED)
+                .paymentStatus(paymentStatus)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,8 @@
+package com.femi.productservice.catalog;
+
+/**
+ * One page of the public catalog, already serialized to JSON, with a strong ETag derived from
+ * those exact bytes.
+ */
+public record CatalogPage(byte[] body, String etag) {
+}
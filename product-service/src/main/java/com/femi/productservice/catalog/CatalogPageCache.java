@@ -0,0 +1,127 @@
+package com.femi.productservice.catalog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.femi.productservice.dto.ProductPageResponse;
+import com.femi.productservice.event.ProductChangeType;
+import com.femi.productservice.event.ProductChangedEvent;
+import com.femi.productservice.service.ProductService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves pages of the approved catalog from memory, serialized once per catalog version. Any
+ * committed change that can alter what the catalog shows drops every page; stock movements do not,
+ * so the stock figures on a page may lag by up to the TTL. Each instance caches on its own, and the
+ * TTL also bounds how long another instance's changes take to show up.
+ */
+@Component
+@Slf4j
+public class CatalogPageCache {
+
+    private static final Set<String> SORTABLE = Set.of("createdAt", "price", "name", "id");
+
+    // Changes that leave the approved catalog as it was: new products start out PENDING
+    private static final Set<ProductChangeType> CATALOG_NEUTRAL = EnumSet.of(
+            ProductChangeType.CREATED, ProductChangeType.STOCK_RESERVED, ProductChangeType.STOCK_RELEASED);
+
+    private final ProductService productService;
+    private final ObjectMapper objectMapper;
+    private final int maxPageSize;
+    private final Cache<PageKey, CatalogPage> cache;
+
+    // Part of every key, so a page loaded while an invalidation runs can never be served afterwards
+    private final AtomicLong version = new AtomicLong();
+
+    public CatalogPageCache(ProductService productService,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${catalog.cache.maximum-pages:1000}") long maximumPages,
+                            @Value("${catalog.cache.ttl:60s}") Duration ttl,
+                            @Value("${catalog.max-page-size:100}") int maxPageSize) {
+        this.productService = productService;
+        this.objectMapper = objectMapper;
+        this.maxPageSize = maxPageSize;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumPages)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "catalog-pages");
+    }
+
+    public CatalogPage getApprovedPage(int page, int size, String sort) {
+        if (page < 0 || size < 1 || size > maxPageSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "page must be >= 0 and size between 1 and " + maxPageSize);
+        }
+        PageKey key = new PageKey(version.get(), page, size, parseSort(sort));
+        return cache.get(key, this::load);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (CATALOG_NEUTRAL.containsAll(event.getChanges())) {
+            return;
+        }
+        version.incrementAndGet();
+        cache.invalidateAll();
+        log.debug("Catalog pages dropped after {} on products {}", event.getChanges(), event.getProductIds());
+    }
+
+    private CatalogPage load(PageKey key) {
+        ProductPageResponse response = productService.getApprovedProducts(PageRequest.of(key.page(), key.size(), key.sort()));
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(response);
+            return new CatalogPage(body, etag(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize catalog page " + key.page(), e);
+        }
+    }
+
+    // "field" or "field,asc|desc"; id breaks ties so rows never move between pages of one version
+    private Sort parseSort(String sort) {
+        String[] parts = sort.split(",");
+        String property = parts[0].trim();
+        if (!SORTABLE.contains(property) || parts.length > 2) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sort must be one of " + SORTABLE + " with an optional ,asc or ,desc");
+        }
+        Sort.Direction direction = Sort.Direction.ASC;
+        if (parts.length == 2) {
+            direction = Sort.Direction.fromOptionalString(parts[1].trim())
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown sort direction: " + parts[1]));
+        }
+        Sort order = Sort.by(direction, property);
+        return property.equals("id") ? order : order.and(Sort.by(Sort.Direction.ASC, "id"));
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record PageKey(long version, int page, int size, Sort sort) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.femi.productservice.client;
+
+import com.femi.productservice.dto.ProductChangeNotification;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+
+@FeignClient(name = "order-service", url = "${order.service.url}")
+public interface OrderServiceClient {
+    @PostMapping("/api/orders/internal/product-changes")
+    void notifyProductChange(@RequestBody ProductChangeNotification notification,
+                             @RequestHeader("Authorization") String token);
+}
@@ -0,0 +1,63 @@
+package com.femi.productservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Replaces the single auto-configured pool with a primary pool (spring.datasource.*) and a
+ * read-only replica pool (replica.datasource.*, Hikari property names). Each pool publishes its own
+ * hikaricp.* metrics, tagged by pool name.
+ */
+@Configuration
+@ConditionalOnProperty(name = "replica.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("replica.datasource")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicationLagMonitor replicationLagMonitor(@Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                                       MeterRegistry meterRegistry,
+                                                       @Value("${replica.lag-query:SHOW REPLICA STATUS}") String lagQuery,
+                                                       @Value("${replica.lag-column:Seconds_Behind_Source}") String lagColumn,
+                                                       @Value("${replica.max-lag:5s}") Duration maxLag,
+                                                       @Value("${replica.lag-check-interval:2s}") Duration interval) {
+        return new ReplicationLagMonitor(replicaDataSource, meterRegistry, lagQuery, lagColumn, maxLag, interval);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 ReplicationLagMonitor replicationLagMonitor,
+                                 MeterRegistry meterRegistry) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(
+                primaryDataSource, replicaDataSource, replicationLagMonitor, meterRegistry));
+    }
+}
@@ -1,14 +1,36 @@
 package com.femi.productservice.controller;
 
+import com.femi.productservice.catalog.CatalogPage;
+import com.femi.productservice.catalog.CatalogPageCache;
+import com.femi.productservice.dto.CatalogFacetResponse;
 import com.femi.productservice.dto.CreateProductRequest;
+import com.femi.productservice.dto.ProductImageResponse;
+import com.femi.productservice.dto.ProductModerationRequest;
+import com.femi.productservice.dto.ProductModerationResponse;
 import com.femi.productservice.dto.ProductResponse;
+import com.femi.productservice.dto.ProductSearchResponse;
+import com.femi.productservice.dto.StockReservationRequest;
+import com.femi.productservice.dto.StockReservationResponse;
+import com.femi.productservice.facet.CatalogFacetIndex;
+import com.femi.productservice.image.ProductImageService;
+import com.femi.productservice.importer.ProductImportService;
+import com.femi.productservice.model.ProductStatus;
+import com.femi.productservice.moderation.ProductModerationService;
+import com.femi.productservice.search.ProductSearchIndex;
 import com.femi.productservice.service.ProductService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.util.List;
 
 @RestController
@@ -17,6 +39,12 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final CatalogPageCache catalogPageCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final CatalogFacetIndex catalogFacetIndex;
+    private final ProductImageService productImageService;
+    private final ProductImportService productImportService;
+    private final ProductModerationService productModerationService;
 
     @PostMapping("/seller/create")
     @PreAuthorize("hasRole('SELLER')")
@@ -29,6 +57,21 @@ public class ProductController {
         return ResponseEntity.ok(response);
     }
 
+    // The NDJSON report streams back while the body is still being read
+    @PostMapping(value = "/seller/import",
+            consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('SELLER')")
+    public ResponseEntity<StreamingResponseBody> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body,
+            Authentication authentication) {
+        Long sellerId = Long.valueOf((String) authentication.getPrincipal());
+        MediaType format = MediaType.parseMediaType(contentType);
+        StreamingResponseBody report = out -> productImportService.importProducts(body, format, sellerId, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(report);
+    }
+
     @GetMapping("/seller/my-products")
     @PreAuthorize("hasRole('SELLER')")
     public ResponseEntity<List<ProductResponse>> getMyProducts(Authentication authentication) {
@@ -36,6 +79,16 @@ public class ProductController {
         return ResponseEntity.ok(productService.getProductsBySeller(sellerId));
     }
 
+    @PostMapping(value = "/seller/{productId}/images", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('SELLER')")
+    public ResponseEntity<List<ProductImageResponse>> uploadImages(
+            @PathVariable Long productId,
+            @RequestParam("files") List<MultipartFile> files,
+            Authentication authentication) {
+        Long sellerId = Long.valueOf((String) authentication.getPrincipal());
+        return ResponseEntity.ok(productImageService.upload(productId, sellerId, files));
+    }
+
     @PostMapping("/admin/approve/{productId}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ProductResponse> approveProduct(@PathVariable Long productId) {
@@ -48,15 +101,69 @@ public class ProductController {
         return ResponseEntity.ok(productService.rejectProduct(productId));
     }
 
+    @PostMapping("/admin/approve")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ProductModerationResponse> approveProducts(@RequestBody ProductModerationRequest request) {
+        return ResponseEntity.ok(productModerationService.moderate(request, ProductStatus.APPROVED));
+    }
+
+    @PostMapping("/admin/reject")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ProductModerationResponse> rejectProducts(@RequestBody ProductModerationRequest request) {
+        return ResponseEntity.ok(productModerationService.moderate(request, ProductStatus.REJECTED));
+    }
+
     @GetMapping("/admin/pending")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<List<ProductResponse>> getPendingProducts() {
         return ResponseEntity.ok(productService.getPendingProducts());
     }
 
+    // Spring turns this into a 304 when If-None-Match carries the same ETag
     @GetMapping("/public/approved")
-    public ResponseEntity<List<ProductResponse>> getApprovedProducts() {
-        return ResponseEntity.ok(productService.getApprovedProducts());
+    public ResponseEntity<byte[]> getApprovedProducts(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "createdAt,desc") String sort) {
+        CatalogPage catalogPage = catalogPageCache.getApprovedPage(page, size, sort);
+        return ResponseEntity.ok()
+                .eTag(catalogPage.etag())
+                .cacheControl(CacheControl.noCache().cachePublic())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(catalogPage.body());
+    }
+
+    @GetMapping("/public/facets")
+    public ResponseEntity<CatalogFacetResponse> getCatalogFacets(
+            @RequestParam(required = false) List<String> category,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(catalogFacetIndex.query(category, minPrice, maxPrice, inStock, page, size));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<ProductSearchResponse> searchProducts(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productSearchIndex.search(q, page, size));
+    }
+
+    @PostMapping("/admin/search/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> rebuildSearchIndex() {
+        productSearchIndex.requestRebuild();
+        return ResponseEntity.accepted().build();
+    }
+
+    // Also called by order-service with its service token on behalf of several buyers at once
+    @GetMapping("/batch")
+    @PreAuthorize("hasAnyRole('ADMIN', 'SELLER', 'BUYER', 'SERVICE')")
+    public ResponseEntity<List<ProductResponse>> getProductsByIds(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(productService.getProductsByIds(ids));
     }
 
     @GetMapping("/{id}")
@@ -66,4 +173,23 @@ public class ProductController {
         return ResponseEntity.ok(product);
     }
 
+    // The id is chosen by the caller, so a reservation whose answer was lost can be retried or released
+    @PutMapping("/reservations/{reservationId}")
+    @PreAuthorize("hasRole('BUYER')")
+    public ResponseEntity<List<StockReservationResponse>> reserveStock(
+            @PathVariable String reservationId,
+            @RequestBody List<StockReservationRequest> requests,
+            Authentication authentication) {
+        Long buyerId = Long.valueOf((String) authentication.getPrincipal());
+        return ResponseEntity.ok(productService.reserveStock(reservationId, buyerId, requests));
+    }
+
+    // Only order-service hands stock back, and only by naming the reservations that took it
+    @PostMapping("/reservations/release")
+    @PreAuthorize("hasRole('SERVICE')")
+    public ResponseEntity<Void> releaseStock(@RequestBody List<String> reservationIds) {
+        productService.releaseStock(reservationIds);
+        return ResponseEntity.noContent().build();
+    }
+
 }
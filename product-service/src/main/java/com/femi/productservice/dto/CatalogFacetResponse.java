@@ -0,0 +1,24 @@
+package com.femi.productservice.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Products matching every filter, plus facet counts. Each facet is counted with all filters
+ * applied except its own, so a client can show how many products every other choice would give.
+ */
+@Data
+@Builder
+public class CatalogFacetResponse {
+    private long total;
+    private List<Long> productIds;
+    private int page;
+    private int size;
+    private Map<String, Long> categories;
+    private long inStock;
+    private long outOfStock;
+    private List<PriceRangeCount> priceRanges;
+}
@@ -0,0 +1,17 @@
+package com.femi.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceRangeCount {
+    private BigDecimal from;
+    // Exclusive; null for the open-ended top range
+    private BigDecimal to;
+    private long count;
+}
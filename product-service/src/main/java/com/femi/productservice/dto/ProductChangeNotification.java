@@ -0,0 +1,17 @@
+package com.femi.productservice.dto;
+
+import com.femi.productservice.event.ProductChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangeNotification {
+    private List<Long> productIds;
+    private Set<ProductChangeType> changes;
+}
@@ -0,0 +1,17 @@
+package com.femi.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImageResponse {
+    private String url;
+    // Width in pixels to URL; the variants are generated in the background and appear shortly after upload.
+    // Empty when the thumbnail queue was full and none will be generated
+    private Map<Integer, String> thumbnails;
+}
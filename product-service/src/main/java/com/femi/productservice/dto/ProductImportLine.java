@@ -0,0 +1,23 @@
+package com.femi.productservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * One line of the NDJSON import report: an {@code error} for a rejected row, {@code progress}
+ * after every committed chunk, and a final {@code summary}, or {@code aborted} if the body could
+ * not be read to the end.
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductImportLine {
+    private String type;
+    private Long row;
+    private String message;
+    private Long rowsRead;
+    private Long imported;
+    private Long failed;
+    private Long elapsedMillis;
+}
@@ -0,0 +1,13 @@
+package com.femi.productservice.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+// Either productIds, or a filter of sellerId and/or category matched against every PENDING product
+@Data
+public class ProductModerationRequest {
+    private List<Long> productIds;
+    private Long sellerId;
+    private String category;
+}
@@ -0,0 +1,19 @@
+package com.femi.productservice.dto;
+
+import com.femi.productservice.model.ProductStatus;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class ProductModerationResponse {
+    private ProductStatus status;
+    private int updated;
+    private int skipped;
+    private int notFound;
+    // A filter matched more products than one request moderates; repeating it picks up the rest
+    private boolean hasMore;
+    private List<ProductModerationResult> results;
+}
@@ -0,0 +1,23 @@
+package com.femi.productservice.dto;
+
+import com.femi.productservice.model.ProductStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductModerationResult {
+
+    public enum Outcome {
+        UPDATED,
+        // The product had already left PENDING; status says where it is now
+        SKIPPED,
+        NOT_FOUND
+    }
+
+    private Long productId;
+    private Outcome outcome;
+    private ProductStatus status;
+}
@@ -0,0 +1,16 @@
+package com.femi.productservice.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class ProductPageResponse {
+    private List<ProductResponse> content;
+    private int page;
+    private int size;
+    private long totalElements;
+    private int totalPages;
+}
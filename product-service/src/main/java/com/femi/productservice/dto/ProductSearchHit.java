@@ -0,0 +1,18 @@
+package com.femi.productservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSearchHit {
+    private Long id;
+    private String name;
+    private String category;
+    private BigDecimal price;
+    private float score;
+}
@@ -0,0 +1,17 @@
+package com.femi.productservice.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class ProductSearchResponse {
+    private List<ProductSearchHit> hits;
+    private int page;
+    private int size;
+    // Counting stops at 1000 matches; past that totalHits is a lower bound
+    private long totalHits;
+    private boolean totalHitsExact;
+}
@@ -0,0 +1,9 @@
+package com.femi.productservice.dto;
+
+import lombok.Data;
+
+@Data
+public class StockReservationRequest {
+    private Long productId;
+    private Integer quantity;
+}
@@ -0,0 +1,17 @@
+package com.femi.productservice.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+public class StockReservationResponse {
+    private Long productId;
+    private String productName;
+    private Long sellerId;
+    private BigDecimal unitPrice;
+    private Integer quantity;
+    private Integer remainingStock;
+}
@@ -0,0 +1,40 @@
+package com.femi.productservice.event;
+
+import com.femi.productservice.auth.JwtService;
+import com.femi.productservice.client.OrderServiceClient;
+import com.femi.productservice.dto.ProductChangeNotification;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Set;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderServiceChangeNotifier {
+
+    private final OrderServiceClient orderServiceClient;
+    private final JwtService jwtService;
+
+    // Pushes committed changes to order-service so its product near-cache drops stale entries
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        // New products are not cached yet, and order-service refreshes stock from its own reservations
+        if (event.onlyStockReserved() || event.getChanges().equals(Set.of(ProductChangeType.CREATED))) {
+            return;
+        }
+
+        try {
+            orderServiceClient.notifyProductChange(
+                    new ProductChangeNotification(event.getProductIds(), event.getChanges()),
+                    "Bearer " + jwtService.generateServiceToken());
+        } catch (Exception e) {
+            // Best effort: the near-cache TTL bounds how long a missed invalidation can linger
+            log.warn("Failed to notify order-service about product changes {}: {}", event.getProductIds(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.femi.productservice.event;
+
+public enum ProductChangeType {
+    CREATED,
+    STATUS,
+    STOCK_RESERVED,
+    STOCK_RELEASED,
+    DETAILS
+}
@@ -0,0 +1,23 @@
+package com.femi.productservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+@Getter
+@AllArgsConstructor
+public class ProductChangedEvent {
+    private final List<Long> productIds;
+    private final Set<ProductChangeType> changes;
+
+    public static ProductChangedEvent of(ProductChangeType change, Collection<Long> productIds) {
+        return new ProductChangedEvent(List.copyOf(productIds), Set.of(change));
+    }
+
+    public boolean onlyStockReserved() {
+        return changes.size() == 1 && changes.contains(ProductChangeType.STOCK_RESERVED);
+    }
+}
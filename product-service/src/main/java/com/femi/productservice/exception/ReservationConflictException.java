@@ -0,0 +1,12 @@
+package com.femi.productservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ReservationConflictException extends RuntimeException {
+
+    public ReservationConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,506 @@
+package com.femi.productservice.facet;
+
+import com.femi.productservice.dto.CatalogFacetResponse;
+import com.femi.productservice.dto.PriceRangeCount;
+import com.femi.productservice.event.ProductChangeType;
+import com.femi.productservice.event.ProductChangedEvent;
+import com.femi.productservice.model.Product;
+import com.femi.productservice.model.ProductStatus;
+import com.femi.productservice.repository.ProductRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory columnar index of the approved catalog for filtering by category, price and stock
+ * with facet counts, without touching MySQL. Each product is a row across primitive columns
+ * (id, price in cents, category ordinal), with a bitset per category and one for in-stock rows;
+ * a query ANDs bitsets and counts facets over the surviving rows. Matches are listed by descending
+ * product id, i.e. most recently created first. Committed product changes are re-read from the
+ * primary and applied after the fact, so the index trails writes briefly. Stock changes come with
+ * every reservation, so they are only collected and re-read together once per
+ * {@code catalog.facets.stock-refresh-interval}.
+ */
+@Component
+@Slf4j
+public class CatalogFacetIndex {
+
+    private static final Set<ProductChangeType> STOCK_ONLY = EnumSet.of(
+            ProductChangeType.STOCK_RESERVED, ProductChangeType.STOCK_RELEASED);
+
+    private static final int NO_CATEGORY = -1;
+    private static final long NO_PRICE = Long.MIN_VALUE;
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int loadBatchSize;
+    private final int maxPageSize;
+    private final long[] rangeBounds;
+    private final Duration stockRefreshInterval;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Rows are kept in id order. A product approved after higher ids is appended and the rows are re-sorted at
+    // the end of the write; a removed product only leaves the live set until the next compaction
+    private long[] ids = new long[1024];
+    private long[] priceCents = new long[1024];
+    private int[] categoryOrds = new int[1024];
+    private int rows;
+    private final BitSet live = new BitSet();
+    private final BitSet inStock = new BitSet();
+    private final List<BitSet> categoryRows = new ArrayList<>();
+    private final List<String> categoryNames = new ArrayList<>();
+    private final Map<String, Integer> categoryOrdinals = new HashMap<>();
+    private final Map<Long, Integer> rowById = new HashMap<>();
+    private boolean outOfOrder;
+
+    private final Set<Long> staleStock = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean loaded;
+    private ScheduledExecutorService scheduler;
+
+    public CatalogFacetIndex(ProductRepository productRepository,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${catalog.facets.load-batch-size:1000}") int loadBatchSize,
+                             @Value("${catalog.max-page-size:100}") int maxPageSize,
+                             @Value("${catalog.facets.price-ranges:0,10,25,50,100,250,500}") String[] priceRanges,
+                             @Value("${catalog.facets.stock-refresh-interval:1s}") Duration stockRefreshInterval) {
+        this.productRepository = productRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.loadBatchSize = loadBatchSize;
+        this.maxPageSize = maxPageSize;
+        this.rangeBounds = Arrays.stream(priceRanges)
+                .mapToLong(bound -> cents(new BigDecimal(bound.trim())))
+                .sorted()
+                .toArray();
+        this.stockRefreshInterval = stockRefreshInterval;
+
+        Gauge.builder("catalog.facets.products", this, CatalogFacetIndex::size)
+                .description("Approved products held in the facet index")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("catalog-facet-stock")
+                .daemon()
+                .factory());
+        scheduler.scheduleWithFixedDelay(this::refreshStock,
+                stockRefreshInterval.toMillis(), stockRefreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    // Filled off the startup thread; queries answer 503 until it is done
+    @EventListener(ApplicationReadyEvent.class)
+    public void startLoading() {
+        Thread.ofPlatform().name("catalog-facet-load").daemon().start(() -> {
+            try {
+                load();
+            } catch (RuntimeException e) {
+                log.error("Loading the catalog facet index failed", e);
+            }
+        });
+    }
+
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        // New products start out PENDING
+        if (event.getChanges().equals(Set.of(ProductChangeType.CREATED))) {
+            return;
+        }
+        if (STOCK_ONLY.containsAll(event.getChanges())) {
+            staleStock.addAll(event.getProductIds());
+            return;
+        }
+        try {
+            refresh(event);
+        } catch (RuntimeException e) {
+            log.warn("Failed to update the facet index for products {}: {}", event.getProductIds(), e.getMessage());
+        }
+    }
+
+    public CatalogFacetResponse query(Collection<String> categories, BigDecimal minPrice, BigDecimal maxPrice,
+                                      Boolean inStockOnly, int page, int size) {
+        if (!loaded) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "The catalog facet index is still loading");
+        }
+        if (page < 0 || size < 1 || size > maxPageSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "page must be >= 0 and size between 1 and " + maxPageSize);
+        }
+
+        lock.readLock().lock();
+        try {
+            BitSet byCategory = categories == null || categories.isEmpty() ? null : categoryMask(categories);
+            BitSet byPrice = minPrice == null && maxPrice == null ? null : priceMask(minPrice, maxPrice);
+            BitSet byStock = inStockOnly == null ? null : stockMask(inStockOnly);
+
+            BitSet matches = intersect(byCategory, byPrice, byStock);
+
+            // Every facet is counted with all filters but its own
+            BitSet stockBase = intersect(byCategory, byPrice);
+            long stocked = countAnd(stockBase, inStock);
+
+            return CatalogFacetResponse.builder()
+                    .total(matches.cardinality())
+                    .productIds(highestIdsFirst(matches, page, size))
+                    .page(page)
+                    .size(size)
+                    .categories(categoryCounts(intersect(byPrice, byStock)))
+                    .inStock(stocked)
+                    .outOfStock(stockBase.cardinality() - stocked)
+                    .priceRanges(priceRangeCounts(intersect(byCategory, byStock)))
+                    .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the index contents with the approved products in MySQL, read in id-keyset batches.
+     * Changes committed meanwhile wait for it and are applied on top.
+     */
+    public synchronized void load() {
+        long started = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long lastId = 0;
+        List<Product> batch;
+        do {
+            batch = productRepository.findByStatusAndIdGreaterThanOrderByIdAsc(
+                    ProductStatus.APPROVED, lastId, PageRequest.ofSize(loadBatchSize));
+            apply(batch.stream().map(Product::getId).toList(), batch);
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == loadBatchSize);
+
+        loaded = true;
+        log.info("Loaded {} approved products into the facet index in {} ms", size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    // A read-write transaction keeps the read on the primary, which the replica may not have caught up with
+    synchronized void refresh(ProductChangedEvent event) {
+        List<Long> productIds = event.getProductIds();
+        List<Product> products = transactionTemplate.execute(status -> productRepository.findAllById(productIds));
+        apply(productIds, products);
+    }
+
+    /**
+     * Re-reads the stock of every product reserved or released since the last run, in batches of
+     * {@code load-batch-size}, on the primary for the same reason as {@link #refresh}. Reading the
+     * current quantity rather than applying one carried on each event keeps the index right when
+     * events arrive out of order. Ids whose read fails are kept for the next run.
+     */
+    synchronized void refreshStock() {
+        if (staleStock.isEmpty()) {
+            return;
+        }
+        List<Long> productIds = new ArrayList<>(staleStock);
+        staleStock.removeAll(productIds);
+        for (int from = 0; from < productIds.size(); from += loadBatchSize) {
+            List<Long> batch = productIds.subList(from, Math.min(from + loadBatchSize, productIds.size()));
+            try {
+                List<Object[]> stock = transactionTemplate.execute(status -> productRepository.findStockByProductIds(batch));
+                Map<Long, Integer> quantities = new HashMap<>();
+                stock.forEach(row -> quantities.put((Long) row[0], (Integer) row[1]));
+                applyStock(quantities);
+            } catch (RuntimeException e) {
+                staleStock.addAll(batch);
+                log.warn("Failed to refresh the stock of {} products in the facet index: {}", batch.size(), e.getMessage());
+            }
+        }
+    }
+
+    void apply(Collection<Long> productIds, List<Product> products) {
+        lock.writeLock().lock();
+        try {
+            Set<Long> missing = new HashSet<>(productIds);
+            for (Product product : products) {
+                missing.remove(product.getId());
+                if (product.getStatus() == ProductStatus.APPROVED) {
+                    upsert(product);
+                } else {
+                    remove(product.getId());
+                }
+            }
+            missing.forEach(this::remove);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void applyStock(Map<Long, Integer> quantities) {
+        lock.writeLock().lock();
+        try {
+            quantities.forEach((productId, quantity) -> {
+                Integer row = rowById.get(productId);
+                if (row != null) {
+                    inStock.set(row, quantity != null && quantity > 0);
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return rowById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void upsert(Product product) {
+        Integer row = rowById.get(product.getId());
+        if (row == null) {
+            outOfOrder |= rows > 0 && product.getId() < ids[rows - 1];
+            row = rows++;
+            ensureCapacity(rows);
+            ids[row] = product.getId();
+            rowById.put(product.getId(), row);
+            live.set(row);
+        } else if (categoryOrds[row] != NO_CATEGORY) {
+            categoryRows.get(categoryOrds[row]).clear(row);
+        }
+
+        priceCents[row] = product.getPrice() == null ? NO_PRICE : cents(product.getPrice());
+        int ordinal = ordinal(product.getCategory());
+        categoryOrds[row] = ordinal;
+        if (ordinal != NO_CATEGORY) {
+            categoryRows.get(ordinal).set(row);
+        }
+        inStock.set(row, product.getStockQuantity() != null && product.getStockQuantity() > 0);
+    }
+
+    private void remove(Long productId) {
+        Integer row = rowById.remove(productId);
+        if (row == null) {
+            return;
+        }
+        live.clear(row);
+        inStock.clear(row);
+        if (categoryOrds[row] != NO_CATEGORY) {
+            categoryRows.get(categoryOrds[row]).clear(row);
+        }
+    }
+
+    // Rewrites the live rows in id order without the dead ones, once an approval has landed out of id order
+    // or at least half the rows are dead
+    private void compactIfNeeded() {
+        int dead = rows - rowById.size();
+        if (!outOfOrder && (dead < 1024 || dead < rows / 2)) {
+            return;
+        }
+        long[] sortedIds = live.stream().mapToLong(row -> ids[row]).sorted().toArray();
+        long[] sortedPrices = new long[ids.length];
+        int[] sortedOrds = new int[ids.length];
+        BitSet sortedStock = new BitSet(sortedIds.length);
+        for (int target = 0; target < sortedIds.length; target++) {
+            int row = rowById.get(sortedIds[target]);
+            sortedPrices[target] = priceCents[row];
+            sortedOrds[target] = categoryOrds[row];
+            sortedStock.set(target, inStock.get(row));
+            rowById.put(sortedIds[target], target);
+        }
+        rows = sortedIds.length;
+        System.arraycopy(sortedIds, 0, ids, 0, rows);
+        priceCents = sortedPrices;
+        categoryOrds = sortedOrds;
+        live.clear();
+        live.set(0, rows);
+        inStock.clear();
+        inStock.or(sortedStock);
+        categoryRows.forEach(BitSet::clear);
+        for (int row = 0; row < rows; row++) {
+            if (categoryOrds[row] != NO_CATEGORY) {
+                categoryRows.get(categoryOrds[row]).set(row);
+            }
+        }
+        outOfOrder = false;
+    }
+
+    private void clear() {
+        rows = 0;
+        live.clear();
+        inStock.clear();
+        categoryRows.forEach(BitSet::clear);
+        rowById.clear();
+        outOfOrder = false;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > ids.length) {
+            int capacity = Math.max(required, ids.length * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            priceCents = Arrays.copyOf(priceCents, capacity);
+            categoryOrds = Arrays.copyOf(categoryOrds, capacity);
+        }
+    }
+
+    private int ordinal(String category) {
+        if (category == null || category.isBlank()) {
+            return NO_CATEGORY;
+        }
+        return categoryOrdinals.computeIfAbsent(category, name -> {
+            categoryNames.add(name);
+            categoryRows.add(new BitSet());
+            return categoryNames.size() - 1;
+        });
+    }
+
+    private BitSet categoryMask(Collection<String> categories) {
+        BitSet mask = new BitSet();
+        for (String category : categories) {
+            Integer ordinal = categoryOrdinals.get(category);
+            if (ordinal != null) {
+                mask.or(categoryRows.get(ordinal));
+            }
+        }
+        return mask;
+    }
+
+    // A straight scan of the price column; both bounds are inclusive
+    private BitSet priceMask(BigDecimal minPrice, BigDecimal maxPrice) {
+        long min = minPrice == null ? NO_PRICE + 1 : cents(minPrice);
+        long max = maxPrice == null ? Long.MAX_VALUE : cents(maxPrice);
+        BitSet mask = new BitSet(rows);
+        for (int row = 0; row < rows; row++) {
+            long price = priceCents[row];
+            if (price >= min && price <= max) {
+                mask.set(row);
+            }
+        }
+        return mask;
+    }
+
+    private BitSet stockMask(boolean stocked) {
+        if (stocked) {
+            return inStock;
+        }
+        BitSet mask = (BitSet) live.clone();
+        mask.andNot(inStock);
+        return mask;
+    }
+
+    private BitSet intersect(BitSet... masks) {
+        BitSet result = (BitSet) live.clone();
+        for (BitSet mask : masks) {
+            if (mask != null) {
+                result.and(mask);
+            }
+        }
+        return result;
+    }
+
+    private static long countAnd(BitSet rows, BitSet mask) {
+        BitSet both = (BitSet) rows.clone();
+        both.and(mask);
+        return both.cardinality();
+    }
+
+    private Map<String, Long> categoryCounts(BitSet base) {
+        long[] counts = new long[categoryNames.size()];
+        for (int row = base.nextSetBit(0); row >= 0; row = base.nextSetBit(row + 1)) {
+            if (categoryOrds[row] != NO_CATEGORY) {
+                counts[categoryOrds[row]]++;
+            }
+        }
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+            if (counts[ordinal] > 0) {
+                result.put(categoryNames.get(ordinal), counts[ordinal]);
+            }
+        }
+        return result;
+    }
+
+    private List<PriceRangeCount> priceRangeCounts(BitSet base) {
+        long[] counts = new long[rangeBounds.length];
+        for (int row = base.nextSetBit(0); row >= 0; row = base.nextSetBit(row + 1)) {
+            int range = Arrays.binarySearch(rangeBounds, priceCents[row]);
+            if (range < 0) {
+                range = -range - 2;
+            }
+            if (range >= 0) {
+                counts[range]++;
+            }
+        }
+        List<PriceRangeCount> result = new ArrayList<>(counts.length);
+        for (int range = 0; range < counts.length; range++) {
+            BigDecimal to = range + 1 < rangeBounds.length ? BigDecimal.valueOf(rangeBounds[range + 1], 2) : null;
+            result.add(new PriceRangeCount(BigDecimal.valueOf(rangeBounds[range], 2), to, counts[range]));
+        }
+        return result;
+    }
+
+    // Walks the rows backwards, which is descending id order
+    private List<Long> highestIdsFirst(BitSet matches, int page, int size) {
+        List<Long> productIds = new ArrayList<>(size);
+        long skip = (long) page * size;
+        for (int row = matches.previousSetBit(rows - 1); row >= 0 && productIds.size() < size;
+             row = matches.previousSetBit(row - 1)) {
+            if (skip > 0) {
+                skip--;
+            } else {
+                productIds.add(ids[row]);
+            }
+        }
+        return productIds;
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
@@ -0,0 +1,126 @@
+package com.femi.productservice.image;
+
+import com.femi.productservice.dto.ProductImageResponse;
+import com.femi.productservice.event.ProductChangeType;
+import com.femi.productservice.event.ProductChangedEvent;
+import com.femi.productservice.model.Product;
+import com.femi.productservice.repository.ProductRepository;
+import com.femi.productservice.storage.ObjectStorage;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Stores uploaded product images and attaches them to the product. The servlet container spools
+ * multipart bodies to disk ({@code spring.servlet.multipart.file-size-threshold: 0}) and each file is
+ * streamed from there to storage, so upload size never shows up on the heap.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductImageService {
+
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/jpeg", "jpg",
+            "image/png", "png",
+            "image/gif", "gif",
+            "image/webp", "webp");
+
+    private static final String INSERT_IMAGE = "INSERT INTO product_images (product_id, image_url) VALUES (?, ?)";
+
+    private final ProductRepository productRepository;
+    private final ObjectStorage objectStorage;
+    private final ThumbnailGenerator thumbnailGenerator;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<ProductImageResponse> upload(Long productId, Long sellerId, List<MultipartFile> files) {
+        if (files == null || files.isEmpty()) {
+            throw new IllegalArgumentException("At least one image is required");
+        }
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new EntityNotFoundException("Product not found"));
+        if (!sellerId.equals(product.getSellerId())) {
+            throw new AccessDeniedException("Product " + productId + " belongs to another seller");
+        }
+        files.forEach(file -> extension(file.getContentType()));
+
+        // Streamed outside any transaction so no connection is held for the length of an upload
+        List<String> keys = new ArrayList<>();
+        try {
+            for (MultipartFile file : files) {
+                try (InputStream content = file.getInputStream()) {
+                    keys.add(store(productId, content, file.getSize(), file.getContentType()));
+                }
+            }
+            attach(productId, keys);
+        } catch (IOException e) {
+            discard(keys);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            discard(keys);
+            throw e;
+        }
+        eventPublisher.publishEvent(ProductChangedEvent.of(ProductChangeType.DETAILS, List.of(productId)));
+
+        List<ProductImageResponse> responses = new ArrayList<>();
+        for (String key : keys) {
+            // A dropped job writes nothing, so its variant URLs would never resolve
+            Map<Integer, String> thumbnails = new LinkedHashMap<>();
+            if (thumbnailGenerator.submit(key)) {
+                thumbnailGenerator.variantKeys(key).forEach((width, variant) -> thumbnails.put(width, objectStorage.urlFor(variant)));
+            }
+            responses.add(new ProductImageResponse(objectStorage.urlFor(key), thumbnails));
+        }
+        return responses;
+    }
+
+    String store(Long productId, InputStream content, long size, String contentType) throws IOException {
+        String key = "products/" + productId + "/" + UUID.randomUUID() + "." + extension(contentType);
+        objectStorage.put(key, content, size, contentType);
+        return key;
+    }
+
+    // Appends rows instead of rewriting the collection, so concurrent uploads keep each other's images
+    private void attach(Long productId, List<String> keys) {
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(INSERT_IMAGE, keys, keys.size(), (ps, key) -> {
+                    ps.setLong(1, productId);
+                    ps.setString(2, objectStorage.urlFor(key));
+                }));
+    }
+
+    private void discard(List<String> keys) {
+        for (String key : keys) {
+            try {
+                objectStorage.delete(key);
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not remove image {} after a failed upload: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    private static String extension(String contentType) {
+        String extension = contentType == null ? null : EXTENSIONS.get(contentType.toLowerCase());
+        if (extension == null) {
+            throw new IllegalArgumentException("Unsupported image type: " + contentType + ", expected one of " + EXTENSIONS.keySet());
+        }
+        return extension;
+    }
+}
@@ -0,0 +1,158 @@
+package com.femi.productservice.image;
+
+import com.femi.productservice.storage.ObjectStorage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes resized JPEG variants of uploaded images on a small fixed pool with a bounded queue.
+ * Originals are decoded with source subsampling, so a large photo never becomes a full-resolution
+ * bitmap; together with the pool size that caps the heap thumbnailing can take. When the queue is
+ * full new work is dropped and counted rather than slowing uploads down.
+ */
+@Component
+@Slf4j
+public class ThumbnailGenerator {
+
+    private final ObjectStorage objectStorage;
+    private final int[] widths;
+    private final ThreadPoolExecutor pool;
+    private final Counter generated;
+    private final Counter rejected;
+    private final Counter failed;
+
+    public ThumbnailGenerator(ObjectStorage objectStorage,
+                              MeterRegistry meterRegistry,
+                              @Value("${images.thumbnail-widths:200,600}") int[] widths,
+                              @Value("${images.thumbnail-threads:2}") int threads,
+                              @Value("${images.thumbnail-queue-capacity:100}") int queueCapacity) {
+        this.objectStorage = objectStorage;
+        this.widths = Arrays.stream(widths).sorted().toArray();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("image-thumbnails-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.generated = meterRegistry.counter("product.image.thumbnails", "outcome", "generated");
+        this.rejected = meterRegistry.counter("product.image.thumbnails", "outcome", "rejected");
+        this.failed = meterRegistry.counter("product.image.thumbnails", "outcome", "failed");
+        Gauge.builder("product.image.thumbnails.queue", pool, executor -> executor.getQueue().size())
+                .description("Images waiting for their thumbnails")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    public Map<Integer, String> variantKeys(String key) {
+        int dot = key.lastIndexOf('.');
+        String base = dot > key.lastIndexOf('/') ? key.substring(0, dot) : key;
+        Map<Integer, String> keys = new LinkedHashMap<>();
+        for (int width : widths) {
+            keys.put(width, base + "-w" + width + ".jpg");
+        }
+        return keys;
+    }
+
+    // Returns false when the queue is full and the image gets no thumbnails
+    public boolean submit(String key) {
+        try {
+            pool.execute(() -> generate(key));
+            return true;
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("Thumbnail queue is full, skipping thumbnails for {}", key);
+            return false;
+        }
+    }
+
+    private void generate(String key) {
+        try {
+            BufferedImage source = decode(key);
+            if (source == null) {
+                log.debug("No image reader for {}, skipping thumbnails", key);
+                return;
+            }
+            for (Map.Entry<Integer, String> variant : variantKeys(key).entrySet()) {
+                byte[] jpeg = encode(resize(source, variant.getKey()));
+                objectStorage.put(variant.getValue(), new ByteArrayInputStream(jpeg), jpeg.length, "image/jpeg");
+            }
+            generated.increment();
+        } catch (IOException | RuntimeException e) {
+            failed.increment();
+            log.warn("Generating thumbnails for {} failed: {}", key, e.getMessage());
+        }
+    }
+
+    // Skips source pixels so the decoded bitmap is only about twice as wide as the largest variant
+    private BufferedImage decode(String key) throws IOException {
+        try (InputStream in = objectStorage.open(key);
+             ImageInputStream imageIn = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageIn);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageIn, true, true);
+                int longestSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, longestSide / (widths[widths.length - 1] * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage resize(BufferedImage source, int width) {
+        int targetWidth = Math.min(width, source.getWidth());
+        int targetHeight = Math.max(1, (int) Math.round((double) source.getHeight() * targetWidth / source.getWidth()));
+        // JPEG has no alpha, so transparent areas end up white
+        BufferedImage target = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, targetWidth, targetHeight, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private static byte[] encode(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,139 @@
+package com.femi.productservice.importer;
+
+import com.femi.productservice.dto.CreateProductRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * RFC 4180 CSV with a header row naming the columns, in any order: name, price and stockQuantity
+ * are required; description, category and imageUrls (separated by {@code |}) are optional. Quoted
+ * fields may contain commas, quotes ({@code ""}) and line breaks. Rows are numbered from the first
+ * record after the header.
+ */
+class CsvProductRowReader implements ProductRowReader {
+
+    private static final int MAX_FIELD_LENGTH = 64 * 1024;
+    private static final List<String> REQUIRED = List.of("name", "price", "stockquantity");
+
+    private final BufferedReader in;
+    private final Map<String, Integer> columns = new HashMap<>();
+    private long row;
+
+    CsvProductRowReader(BufferedReader in) throws IOException {
+        this.in = in;
+        List<String> header = readRecord();
+        if (header == null) {
+            throw new IllegalArgumentException("The CSV body is empty");
+        }
+        for (int i = 0; i < header.size(); i++) {
+            // Spreadsheet exports often start with a byte order mark
+            columns.put(header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String column : REQUIRED) {
+            if (!columns.containsKey(column)) {
+                throw new IllegalArgumentException("The CSV header must name the columns " + REQUIRED + ", got " + header);
+            }
+        }
+    }
+
+    @Override
+    public ImportRow next() throws IOException {
+        List<String> fields;
+        do {
+            fields = readRecord();
+            if (fields == null) {
+                return null;
+            }
+        } while (fields.size() == 1 && fields.get(0).isBlank());
+        row++;
+
+        try {
+            CreateProductRequest request = new CreateProductRequest();
+            request.setName(field(fields, "name"));
+            request.setDescription(field(fields, "description"));
+            request.setCategory(field(fields, "category"));
+            request.setPrice(number(field(fields, "price"), "price", BigDecimal::new));
+            request.setStockQuantity(number(field(fields, "stockquantity"), "stockQuantity", Integer::valueOf));
+            String images = field(fields, "imageurls");
+            if (images != null) {
+                request.setImageUrls(Arrays.stream(images.split("\\|")).map(String::trim).filter(url -> !url.isEmpty()).toList());
+            }
+            return ImportRow.parsed(row, request);
+        } catch (IllegalArgumentException e) {
+            return ImportRow.invalid(row, e.getMessage());
+        }
+    }
+
+    private String field(List<String> fields, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static <T> T number(String value, String column, Function<String, T> parser) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a number: " + value);
+        }
+    }
+
+    // One record, which may span lines inside quotes; null once the body is exhausted
+    private List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean read = false;
+        int c;
+        while ((c = in.read()) != -1) {
+            read = true;
+            if (field.length() > MAX_FIELD_LENGTH) {
+                throw new IllegalArgumentException("Row " + (row + 1) + " has a field longer than " + MAX_FIELD_LENGTH + " characters");
+            }
+            char ch = (char) c;
+            if (quoted) {
+                if (ch != '"') {
+                    field.append(ch);
+                    continue;
+                }
+                in.mark(1);
+                if (in.read() == '"') {
+                    field.append('"');
+                } else {
+                    quoted = false;
+                    in.reset();
+                }
+            } else if (ch == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (ch == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (ch == '\n') {
+                fields.add(field.toString());
+                return fields;
+            } else if (ch != '\r') {
+                field.append(ch);
+            }
+        }
+        if (!read) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,18 @@
+package com.femi.productservice.importer;
+
+import com.femi.productservice.dto.CreateProductRequest;
+
+/**
+ * One record of an import body, numbered from 1 in input order. Rows that could not be parsed
+ * carry an error instead of a request.
+ */
+record ImportRow(long row, CreateProductRequest request, String error) {
+
+    static ImportRow parsed(long row, CreateProductRequest request) {
+        return new ImportRow(row, request, null);
+    }
+
+    static ImportRow invalid(long row, String error) {
+        return new ImportRow(row, null, error);
+    }
+}
@@ -0,0 +1,42 @@
+package com.femi.productservice.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.femi.productservice.dto.CreateProductRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * One JSON object per line with the fields of {@link CreateProductRequest}. Blank lines are
+ * skipped but still counted, so row numbers match line numbers.
+ */
+class NdjsonProductRowReader implements ProductRowReader {
+
+    private final BufferedReader in;
+    private final ObjectMapper objectMapper;
+    private long line;
+
+    NdjsonProductRowReader(BufferedReader in, ObjectMapper objectMapper) {
+        this.in = in;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public ImportRow next() throws IOException {
+        String text;
+        do {
+            text = in.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+        } while (text.isBlank());
+
+        try {
+            return ImportRow.parsed(line, objectMapper.readValue(text, CreateProductRequest.class));
+        } catch (JsonProcessingException e) {
+            return ImportRow.invalid(line, "Not a valid product object: " + e.getOriginalMessage());
+        }
+    }
+}
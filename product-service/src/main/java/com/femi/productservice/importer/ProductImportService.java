@@ -0,0 +1,279 @@
+package com.femi.productservice.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.femi.productservice.dto.CreateProductRequest;
+import com.femi.productservice.dto.ProductImportLine;
+import com.femi.productservice.event.ProductChangeType;
+import com.femi.productservice.event.ProductChangedEvent;
+import com.femi.productservice.model.ProductStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports a seller's products from a streamed CSV or NDJSON body. Rows are parsed and validated one
+ * at a time and inserted in chunks, each chunk one transaction holding two JDBC batches: the
+ * products, then their images. A chunk the database refuses is retried row by row, so a bad row
+ * only costs itself. Imported products start out PENDING, as with single creation.
+ * <p>
+ * The report is NDJSON written while the body is still being read: row errors as they are found
+ * and a progress line after every chunk.
+ */
+@Service
+@Slf4j
+public class ProductImportService {
+
+    public static final MediaType CSV = new MediaType("text", "csv");
+
+    private static final String INSERT_PRODUCT = "INSERT INTO products " +
+            "(name, description, price, stock_quantity, seller_id, category, status, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_IMAGE = "INSERT INTO product_images (product_id, image_url) VALUES (?, ?)";
+
+    // Default VARCHAR length of the mapped String columns
+    private static final int MAX_TEXT_LENGTH = 255;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+    private final long maxRows;
+    private final int maxReportedErrors;
+
+    private final Counter importedRows;
+    private final Counter failedRows;
+
+    public ProductImportService(JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                ObjectMapper objectMapper,
+                                ApplicationEventPublisher eventPublisher,
+                                MeterRegistry meterRegistry,
+                                @Value("${products.import.chunk-size:1000}") int chunkSize,
+                                @Value("${products.import.max-rows:500000}") long maxRows,
+                                @Value("${products.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+        this.maxRows = maxRows;
+        this.maxReportedErrors = maxReportedErrors;
+        this.importedRows = meterRegistry.counter("product.import.rows", "outcome", "imported");
+        this.failedRows = meterRegistry.counter("product.import.rows", "outcome", "failed");
+    }
+
+    public void importProducts(InputStream body, MediaType format, Long sellerId, OutputStream report) throws IOException {
+        Run run = new Run(sellerId, report);
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        try {
+            BufferedReader in = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            ProductRowReader rows = format.isCompatibleWith(CSV)
+                    ? new CsvProductRowReader(in)
+                    : new NdjsonProductRowReader(in, objectMapper);
+
+            ImportRow row;
+            while ((row = rows.next()) != null) {
+                if (++run.rowsRead > maxRows) {
+                    throw new IllegalArgumentException("An import is limited to " + maxRows + " rows");
+                }
+                String error = row.error() != null ? row.error() : validate(row.request());
+                if (error != null) {
+                    run.reject(row.row(), error);
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    flush(chunk, run);
+                }
+            }
+            flush(chunk, run);
+            run.write(run.totals("summary", null), true);
+            log.info("Seller {} imported {} of {} products in {} ms", sellerId, run.imported, run.rowsRead, run.elapsedMillis());
+        } catch (IllegalArgumentException | IOException | UncheckedIOException e) {
+            // Chunks already committed stay imported
+            log.warn("Product import for seller {} aborted after {} rows: {}", sellerId, run.rowsRead, e.getMessage());
+            run.write(run.totals("aborted", e.getMessage()), true);
+        }
+    }
+
+    private void flush(List<ImportRow> chunk, Run run) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            List<Long> ids = transactionTemplate.execute(status -> insert(chunk, run.sellerId));
+            run.imported(ids);
+        } catch (DataAccessException e) {
+            log.debug("Import chunk rejected, retrying its {} rows one by one: {}", chunk.size(), e.getMessage());
+            for (ImportRow row : chunk) {
+                try {
+                    run.imported(transactionTemplate.execute(status -> insert(List.of(row), run.sellerId)));
+                } catch (DataAccessException rowError) {
+                    run.reject(row.row(), "Rejected by the database: " + NestedExceptionUtils.getMostSpecificCause(rowError).getMessage());
+                }
+            }
+        }
+        chunk.clear();
+        run.write(run.totals("progress", null), true);
+    }
+
+    private List<Long> insert(List<ImportRow> rows, Long sellerId) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_PRODUCT, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        CreateProductRequest request = rows.get(i).request();
+                        ps.setString(1, request.getName());
+                        ps.setString(2, request.getDescription());
+                        ps.setBigDecimal(3, request.getPrice());
+                        ps.setInt(4, request.getStockQuantity());
+                        ps.setLong(5, sellerId);
+                        ps.setString(6, request.getCategory());
+                        ps.setString(7, ProductStatus.PENDING.name());
+                        ps.setTimestamp(8, now);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                },
+                keys);
+
+        List<Long> ids = keys.getKeyList().stream()
+                .map(key -> ((Number) key.values().iterator().next()).longValue())
+                .toList();
+        if (ids.size() != rows.size()) {
+            throw new IllegalStateException("Expected " + rows.size() + " generated ids but got " + ids.size());
+        }
+
+        List<Object[]> images = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            List<String> imageUrls = rows.get(i).request().getImageUrls();
+            if (imageUrls != null) {
+                for (String imageUrl : imageUrls) {
+                    images.add(new Object[]{ids.get(i), imageUrl});
+                }
+            }
+        }
+        if (!images.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_IMAGE, images);
+        }
+        return ids;
+    }
+
+    private static String validate(CreateProductRequest request) {
+        if (request.getName() == null || request.getName().isBlank()) {
+            return "name is required";
+        }
+        if (tooLong(request.getName()) || tooLong(request.getDescription()) || tooLong(request.getCategory())) {
+            return "name, description and category are limited to " + MAX_TEXT_LENGTH + " characters";
+        }
+        if (request.getPrice() == null || request.getPrice().signum() <= 0) {
+            return "price must be greater than zero";
+        }
+        if (request.getPrice().scale() > 2) {
+            return "price has more than two decimal places";
+        }
+        if (request.getStockQuantity() == null || request.getStockQuantity() < 0) {
+            return "stockQuantity must be zero or more";
+        }
+        if (request.getImageUrls() != null && request.getImageUrls().stream().anyMatch(url -> url == null || url.isBlank() || tooLong(url))) {
+            return "imageUrls must be non-empty and at most " + MAX_TEXT_LENGTH + " characters each";
+        }
+        return null;
+    }
+
+    private static boolean tooLong(String value) {
+        return value != null && value.length() > MAX_TEXT_LENGTH;
+    }
+
+    // Counters and report output of one import
+    private final class Run {
+
+        private final Long sellerId;
+        private final OutputStream report;
+        private final long started = System.nanoTime();
+        private long rowsRead;
+        private long imported;
+        private long failed;
+
+        private Run(Long sellerId, OutputStream report) {
+            this.sellerId = sellerId;
+            this.report = report;
+        }
+
+        void imported(List<Long> ids) {
+            imported += ids.size();
+            importedRows.increment(ids.size());
+            eventPublisher.publishEvent(ProductChangedEvent.of(ProductChangeType.CREATED, ids));
+        }
+
+        void reject(long row, String message) {
+            failed++;
+            failedRows.increment();
+            if (failed <= maxReportedErrors) {
+                write(ProductImportLine.builder().type("error").row(row).message(message).build(), false);
+            } else if (failed == maxReportedErrors + 1) {
+                write(ProductImportLine.builder().type("error")
+                        .message("Further row errors are counted in the summary but not listed").build(), false);
+            }
+        }
+
+        ProductImportLine totals(String type, String message) {
+            return ProductImportLine.builder()
+                    .type(type)
+                    .message(message)
+                    .rowsRead(rowsRead)
+                    .imported(imported)
+                    .failed(failed)
+                    .elapsedMillis(elapsedMillis())
+                    .build();
+        }
+
+        long elapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        }
+
+        void write(ProductImportLine line, boolean flush) {
+            try {
+                report.write(objectMapper.writeValueAsBytes(line));
+                report.write('\n');
+                if (flush) {
+                    report.flush();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.femi.productservice.importer;
+
+import java.io.IOException;
+
+interface ProductRowReader {
+
+    // The next record, or null at the end of the body
+    ImportRow next() throws IOException;
+}
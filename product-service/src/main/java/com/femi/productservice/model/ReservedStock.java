@@ -0,0 +1,17 @@
+package com.femi.productservice.model;
+
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservedStock {
+    private Long productId;
+    private Integer quantity;
+}
@@ -0,0 +1,41 @@
+package com.femi.productservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ledger of stock taken by a reservation, keyed by the id the caller chose for it. Stock can only
+ * come back by releasing a reservation, once, and never more than it took. Written by
+ * {@code ProductService} with plain JDBC so a duplicate id can be caught mid-transaction.
+ */
+@Entity
+@Table(name = "stock_reservations")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockReservation {
+
+    @Id
+    @Column(name = "reservation_id", length = 64)
+    private String reservationId;
+
+    // Null for a release that arrived before, or instead of, its reservation
+    private Long buyerId;
+
+    @Enumerated(EnumType.STRING)
+    private StockReservationStatus status;
+
+    @ElementCollection
+    @CollectionTable(name = "stock_reservation_items", joinColumns = @JoinColumn(name = "reservation_id"))
+    @Builder.Default
+    private List<ReservedStock> items = new ArrayList<>();
+
+    private LocalDateTime createdAt;
+    private LocalDateTime releasedAt;
+}
@@ -0,0 +1,6 @@
+package com.femi.productservice.model;
+
+public enum StockReservationStatus {
+    RESERVED,
+    RELEASED
+}
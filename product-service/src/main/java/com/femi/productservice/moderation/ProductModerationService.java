@@ -0,0 +1,181 @@
+package com.femi.productservice.moderation;
+
+import com.femi.productservice.dto.ProductModerationRequest;
+import com.femi.productservice.dto.ProductModerationResponse;
+import com.femi.productservice.dto.ProductModerationResult;
+import com.femi.productservice.dto.ProductModerationResult.Outcome;
+import com.femi.productservice.event.ProductChangeType;
+import com.femi.productservice.event.ProductChangedEvent;
+import com.femi.productservice.model.ProductStatus;
+import com.femi.productservice.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Moves PENDING products to APPROVED or REJECTED in bulk, for a list of ids or for every pending
+ * product of a seller and/or category. Each batch is one transaction: its rows are locked in id
+ * order, then changed by a single UPDATE that only matches rows still PENDING, so a product another
+ * moderator got to first is reported as skipped rather than overwritten. The caches hear about the
+ * whole request through one STATUS event.
+ */
+@Service
+@Slf4j
+public class ProductModerationService {
+
+    private static final ProductStatus SOURCE = ProductStatus.PENDING;
+    private static final Set<ProductStatus> TARGETS = EnumSet.of(ProductStatus.APPROVED, ProductStatus.REJECTED);
+
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final int maxProducts;
+
+    public ProductModerationService(ProductRepository productRepository,
+                                    JdbcTemplate jdbcTemplate,
+                                    TransactionTemplate transactionTemplate,
+                                    ApplicationEventPublisher eventPublisher,
+                                    @Value("${products.moderation.batch-size:1000}") int batchSize,
+                                    @Value("${products.moderation.max-products:20000}") int maxProducts) {
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.maxProducts = maxProducts;
+    }
+
+    public ProductModerationResponse moderate(ProductModerationRequest request, ProductStatus target) {
+        if (!TARGETS.contains(target)) {
+            throw new IllegalArgumentException("Products can only be moderated to " + TARGETS);
+        }
+        boolean byIds = request.getProductIds() != null && !request.getProductIds().isEmpty();
+        boolean byFilter = request.getSellerId() != null || request.getCategory() != null;
+        if (byIds == byFilter) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Give either productIds or a sellerId/category filter");
+        }
+
+        List<ProductModerationResult> results = new ArrayList<>();
+        boolean hasMore = byIds ? moderateIds(request.getProductIds(), target, results) : moderateFilter(request, target, results);
+
+        List<Long> updated = results.stream()
+                .filter(result -> result.getOutcome() == Outcome.UPDATED)
+                .map(ProductModerationResult::getProductId)
+                .toList();
+        if (!updated.isEmpty()) {
+            eventPublisher.publishEvent(ProductChangedEvent.of(ProductChangeType.STATUS, updated));
+        }
+        log.info("Moderated {} products to {}", updated.size(), target);
+
+        return ProductModerationResponse.builder()
+                .status(target)
+                .updated(updated.size())
+                .skipped(count(results, Outcome.SKIPPED))
+                .notFound(count(results, Outcome.NOT_FOUND))
+                .hasMore(hasMore)
+                .results(results)
+                .build();
+    }
+
+    private boolean moderateIds(List<Long> productIds, ProductStatus target, List<ProductModerationResult> results) {
+        TreeSet<Long> ids = new TreeSet<>();
+        for (Long id : productIds) {
+            if (id == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Product ids must not be null");
+            }
+            ids.add(id);
+        }
+        if (ids.size() > maxProducts) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxProducts + " products can be moderated at once");
+        }
+
+        List<Long> sorted = new ArrayList<>(ids);
+        for (int from = 0; from < sorted.size(); from += batchSize) {
+            List<Long> batch = sorted.subList(from, Math.min(from + batchSize, sorted.size()));
+            results.addAll(transactionTemplate.execute(status -> moderateBatch(batch, target)));
+        }
+        return false;
+    }
+
+    // Keyset walk over the matching PENDING rows; rows moderated in one batch no longer match the next
+    private boolean moderateFilter(ProductModerationRequest request, ProductStatus target, List<ProductModerationResult> results) {
+        StringBuilder filter = new StringBuilder();
+        List<Object> filterArgs = new ArrayList<>();
+        if (request.getSellerId() != null) {
+            filter.append(" AND seller_id = ?");
+            filterArgs.add(request.getSellerId());
+        }
+        if (request.getCategory() != null) {
+            filter.append(" AND category = ?");
+            filterArgs.add(request.getCategory());
+        }
+        String sql = "SELECT id FROM products WHERE status = ? AND id > ?" + filter + " ORDER BY id LIMIT ? FOR UPDATE";
+
+        long afterId = 0;
+        while (results.size() < maxProducts) {
+            List<Object> args = new ArrayList<>();
+            args.add(SOURCE.name());
+            args.add(afterId);
+            args.addAll(filterArgs);
+            args.add(Math.min(batchSize, maxProducts - results.size()));
+
+            List<ProductModerationResult> batch = transactionTemplate.execute(status -> {
+                List<Long> ids = jdbcTemplate.queryForList(sql, Long.class, args.toArray());
+                return ids.isEmpty() ? List.<ProductModerationResult>of() : moderateBatch(ids, target);
+            });
+            if (batch.isEmpty()) {
+                return false;
+            }
+            results.addAll(batch);
+            afterId = batch.get(batch.size() - 1).getProductId();
+        }
+        return true;
+    }
+
+    private List<ProductModerationResult> moderateBatch(List<Long> ids, ProductStatus target) {
+        Map<Long, ProductStatus> current = new TreeMap<>();
+        for (Object[] row : productRepository.lockStatusesByIds(ids)) {
+            current.put(((Number) row[0]).longValue(), ProductStatus.valueOf(row[1].toString()));
+        }
+        List<Long> pending = current.entrySet().stream()
+                .filter(entry -> entry.getValue() == SOURCE)
+                .map(Map.Entry::getKey)
+                .toList();
+        if (!pending.isEmpty()) {
+            productRepository.updateStatus(pending, SOURCE, target, LocalDateTime.now());
+        }
+
+        List<ProductModerationResult> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ProductStatus status = current.get(id);
+            if (status == null) {
+                results.add(new ProductModerationResult(id, Outcome.NOT_FOUND, null));
+            } else if (status == SOURCE) {
+                results.add(new ProductModerationResult(id, Outcome.UPDATED, target));
+            } else {
+                results.add(new ProductModerationResult(id, Outcome.SKIPPED, status));
+            }
+        }
+        return results;
+    }
+
+    private static int count(List<ProductModerationResult> results, Outcome outcome) {
+        return (int) results.stream().filter(result -> result.getOutcome() == outcome).count();
+    }
+}
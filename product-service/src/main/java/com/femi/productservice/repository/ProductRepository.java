@@ -2,12 +2,52 @@ package com.femi.productservice.repository;
 
 import com.femi.productservice.model.Product;
 import com.femi.productservice.model.ProductStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findBySellerId(Long sellerId);
     List<Product> findByStatus(ProductStatus status);
+    Page<Product> findByStatus(ProductStatus status, Pageable pageable);
 
-}
\ No newline at end of file
+    // Keyset pages for walking the whole catalog without OFFSET
+    List<Product> findByStatusAndIdGreaterThanOrderByIdAsc(ProductStatus status, Long id, Pageable pageable);
+
+    // One query for the images of many products instead of one per product
+    @Query("SELECT p.id, i FROM Product p JOIN p.imageUrls i WHERE p.id IN :productIds")
+    List<Object[]> findImageUrlsByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    @Query("SELECT p.id, p.stockQuantity FROM Product p WHERE p.id IN :productIds")
+    List<Object[]> findStockByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    // Single conditional decrement: only succeeds while enough stock is left
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity " +
+            "WHERE p.id = :productId AND p.stockQuantity >= :quantity")
+    int decrementStock(@Param("productId") Long productId, @Param("quantity") int quantity);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :quantity WHERE p.id = :productId")
+    int incrementStock(@Param("productId") Long productId, @Param("quantity") int quantity);
+
+    // Rows are locked in id order so concurrent bulk moderations cannot deadlock on each other
+    @Query(value = "SELECT id, status FROM products WHERE id IN (:ids) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Object[]> lockStatusesByIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Product p SET p.status = :status, p.updatedAt = :now " +
+            "WHERE p.id IN :ids AND p.status = :fromStatus")
+    int updateStatus(@Param("ids") Collection<Long> ids,
+                     @Param("fromStatus") ProductStatus fromStatus,
+                     @Param("status") ProductStatus status,
+                     @Param("now") LocalDateTime now);
+
+}
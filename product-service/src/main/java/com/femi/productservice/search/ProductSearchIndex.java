@@ -0,0 +1,353 @@
+package com.femi.productservice.search;
+
+import com.femi.productservice.dto.ProductSearchHit;
+import com.femi.productservice.dto.ProductSearchResponse;
+import com.femi.productservice.event.ProductChangeType;
+import com.femi.productservice.event.ProductChangedEvent;
+import com.femi.productservice.model.Product;
+import com.femi.productservice.model.ProductStatus;
+import com.femi.productservice.repository.ProductRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * On-disk Lucene index of the approved catalog over name, category and description. Committed
+ * product changes are applied incrementally, and {@link #rebuild()} recreates the whole index from
+ * MySQL; an empty index is rebuilt at startup. Writes become searchable at the next refresh and
+ * durable at the next commit, so search trails the database by up to
+ * {@code search.index.refresh-interval}.
+ */
+@Component
+@Slf4j
+public class ProductSearchIndex {
+
+    private static final String ID = "id";
+    private static final String NAME = "name";
+    private static final String CATEGORY = "category";
+    private static final String DESCRIPTION = "description";
+    private static final String PRICE = "price";
+
+    private static final Map<String, Float> FIELD_WEIGHTS = Map.of(NAME, 3f, CATEGORY, 2f, DESCRIPTION, 1f);
+
+    // New products start out PENDING and stock is not indexed
+    private static final Set<ProductChangeType> SEARCH_NEUTRAL = EnumSet.of(
+            ProductChangeType.CREATED, ProductChangeType.STOCK_RESERVED, ProductChangeType.STOCK_RELEASED);
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Path path;
+    private final Duration refreshInterval;
+    private final Duration commitInterval;
+    private final int rebuildBatchSize;
+    private final int maxPageSize;
+    private final int maxResults;
+    private final Timer searchTimer;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private Directory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    private ScheduledExecutorService scheduler;
+
+    // Keeps a half-built index from being refreshed into view or committed
+    private volatile boolean rebuilding;
+
+    public ProductSearchIndex(ProductRepository productRepository,
+                              TransactionTemplate transactionTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${search.index.path:data/product-search-index}") Path path,
+                              @Value("${search.index.refresh-interval:1s}") Duration refreshInterval,
+                              @Value("${search.index.commit-interval:30s}") Duration commitInterval,
+                              @Value("${search.index.rebuild-batch-size:1000}") int rebuildBatchSize,
+                              @Value("${search.max-page-size:100}") int maxPageSize,
+                              @Value("${search.max-results:1000}") int maxResults) {
+        this.productRepository = productRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.path = path;
+        this.refreshInterval = refreshInterval;
+        this.commitInterval = commitInterval;
+        this.rebuildBatchSize = rebuildBatchSize;
+        this.maxPageSize = maxPageSize;
+        this.maxResults = maxResults;
+
+        this.searchTimer = Timer.builder("product.search.latency")
+                .description("Time to run a catalog search against the local index")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("product.search.documents", this, index -> index.writer == null ? 0 : index.writer.getDocStats().numDocs)
+                .description("Approved products in the search index")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        directory = FSDirectory.open(path);
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        searcherManager = new SearcherManager(writer, null);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("product-search-index")
+                .daemon()
+                .factory());
+        scheduler.scheduleWithFixedDelay(this::refresh,
+                refreshInterval.toMillis(), refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::commit,
+                commitInterval.toMillis(), commitInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (writer.getDocStats().numDocs == 0) {
+            requestRebuild();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        scheduler.shutdownNow();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    public ProductSearchResponse search(String text, int page, int size) {
+        if (text == null || text.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A search term is required");
+        }
+        if (page < 0 || size < 1 || size > maxPageSize || (long) (page + 1) * size > maxResults) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "size must be between 1 and " + maxPageSize + " and results are limited to the first " + maxResults);
+        }
+        return searchTimer.record(() -> runSearch(text, page, size));
+    }
+
+    public void requestRebuild() {
+        scheduler.execute(() -> {
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                log.error("Rebuilding the product search index failed", e);
+            }
+        });
+    }
+
+    // A read-write transaction keeps the read on the primary, which the replica may not have caught up with
+    @Async
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (SEARCH_NEUTRAL.containsAll(event.getChanges())) {
+            return;
+        }
+        try {
+            refresh(event.getProductIds());
+        } catch (RuntimeException e) {
+            // The products stay as they were in search until they change again or the index is rebuilt
+            log.warn("Failed to update the search index for products {}: {}", event.getProductIds(), e.getMessage());
+        }
+    }
+
+    /**
+     * Replaces the index with the approved products currently in MySQL, walking the table in id
+     * order. Incremental updates wait until it is done, so none are lost to the rebuild.
+     */
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        rebuilding = true;
+        try {
+            writer.deleteAll();
+            long indexed = 0;
+            long lastId = 0;
+            List<Product> batch;
+            do {
+                batch = productRepository.findByStatusAndIdGreaterThanOrderByIdAsc(
+                        ProductStatus.APPROVED, lastId, PageRequest.ofSize(rebuildBatchSize));
+                add(batch);
+                indexed += batch.size();
+                if (!batch.isEmpty()) {
+                    lastId = batch.get(batch.size() - 1).getId();
+                }
+            } while (batch.size() == rebuildBatchSize);
+
+            writer.commit();
+            rebuilding = false;
+            searcherManager.maybeRefreshBlocking();
+            log.info("Rebuilt product search index with {} products in {} ms", indexed,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            rebuilding = false;
+        }
+    }
+
+    // Read under the lock, so two listeners racing on one product cannot apply their reads out of order
+    synchronized void refresh(Collection<Long> productIds) {
+        List<Product> products = transactionTemplate.execute(status -> productRepository.findAllById(productIds));
+        apply(productIds, products);
+    }
+
+    synchronized void apply(Collection<Long> productIds, List<Product> products) {
+        try {
+            Set<Long> missing = new HashSet<>(productIds);
+            for (Product product : products) {
+                missing.remove(product.getId());
+                if (product.getStatus() == ProductStatus.APPROVED) {
+                    writer.updateDocument(idTerm(product.getId()), toDocument(product));
+                } else {
+                    writer.deleteDocuments(idTerm(product.getId()));
+                }
+            }
+            for (Long productId : missing) {
+                writer.deleteDocuments(idTerm(productId));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void add(Collection<Product> products) throws IOException {
+        for (Product product : products) {
+            writer.addDocument(toDocument(product));
+        }
+    }
+
+    void refresh() {
+        if (rebuilding) {
+            return;
+        }
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            log.warn("Refreshing the product search index failed: {}", e.getMessage());
+        }
+    }
+
+    private void commit() {
+        if (rebuilding || !writer.hasUncommittedChanges()) {
+            return;
+        }
+        try {
+            writer.commit();
+        } catch (IOException e) {
+            log.warn("Committing the product search index failed: {}", e.getMessage());
+        }
+    }
+
+    private ProductSearchResponse runSearch(String text, int page, int size) {
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs top = searcher.search(parse(text), (page + 1) * size);
+                StoredFields storedFields = searcher.storedFields();
+                List<ProductSearchHit> hits = new ArrayList<>(size);
+                for (int i = page * size; i < top.scoreDocs.length; i++) {
+                    ScoreDoc scoreDoc = top.scoreDocs[i];
+                    Document document = storedFields.document(scoreDoc.doc);
+                    String price = document.get(PRICE);
+                    hits.add(new ProductSearchHit(
+                            Long.valueOf(document.get(ID)),
+                            document.get(NAME),
+                            document.get(CATEGORY),
+                            price == null ? null : new BigDecimal(price),
+                            scoreDoc.score));
+                }
+                return ProductSearchResponse.builder()
+                        .hits(hits)
+                        .page(page)
+                        .size(size)
+                        .totalHits(top.totalHits.value)
+                        .totalHitsExact(top.totalHits.relation == TotalHits.Relation.EQUAL_TO)
+                        .build();
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Terms must all match, weighted towards the name; quotes, -, | and a trailing * work as in the simple syntax
+    private Query parse(String text) {
+        SimpleQueryParser parser = new SimpleQueryParser(analyzer, FIELD_WEIGHTS);
+        parser.setDefaultOperator(BooleanClause.Occur.MUST);
+        Query query = parser.parse(text);
+        return query == null ? new MatchNoDocsQuery() : query;
+    }
+
+    private static Document toDocument(Product product) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(product.getId()), Field.Store.YES));
+        document.add(new TextField(NAME, nullToEmpty(product.getName()), Field.Store.YES));
+        if (product.getCategory() != null) {
+            document.add(new TextField(CATEGORY, product.getCategory(), Field.Store.YES));
+        }
+        if (product.getDescription() != null) {
+            document.add(new TextField(DESCRIPTION, product.getDescription(), Field.Store.NO));
+        }
+        if (product.getPrice() != null) {
+            document.add(new StoredField(PRICE, product.getPrice().toPlainString()));
+        }
+        return document;
+    }
+
+    private static Term idTerm(Long productId) {
+        return new Term(ID, String.valueOf(productId));
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
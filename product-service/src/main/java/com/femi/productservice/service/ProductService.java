@@ -1,23 +1,53 @@
 package com.femi.productservice.service;
 
 import com.femi.productservice.dto.CreateProductRequest;
+import com.femi.productservice.dto.ProductPageResponse;
 import com.femi.productservice.dto.ProductResponse;
+import com.femi.productservice.dto.StockReservationRequest;
+import com.femi.productservice.dto.StockReservationResponse;
+import com.femi.productservice.event.ProductChangeType;
+import com.femi.productservice.event.ProductChangedEvent;
+import com.femi.productservice.exception.InsufficientStockException;
+import com.femi.productservice.exception.ReservationConflictException;
 import com.femi.productservice.model.Product;
 import com.femi.productservice.model.ProductStatus;
+import com.femi.productservice.model.StockReservationStatus;
 import com.femi.productservice.repository.ProductRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
 
+    private static final String INSERT_RESERVATION = "INSERT INTO stock_reservations " +
+            "(reservation_id, buyer_id, status, created_at, released_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_RESERVATION_ITEM = "INSERT INTO stock_reservation_items " +
+            "(reservation_id, product_id, quantity) VALUES (?, ?, ?)";
+    private static final int MAX_RESERVATION_ID_LENGTH = 64;
+
     private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
 
     public ProductResponse createProduct(CreateProductRequest request, Long sellerId) {
         Product product = Product.builder()
@@ -32,6 +62,7 @@ public class ProductService {
                 .build();
 
         Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.of(ProductChangeType.CREATED, List.of(saved.getId())));
 
         return ProductResponse.builder()
                 .id(saved.getId())
@@ -47,11 +78,9 @@ public class ProductService {
                 .build();
     }
 
+    @Transactional(readOnly = true)
     public List<ProductResponse> getProductsBySeller(Long sellerId) {
-        return productRepository.findBySellerId(sellerId)
-                .stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+        return toDtos(productRepository.findBySellerId(sellerId));
     }
 
     public ProductResponse approveProduct(Long productId) {
@@ -62,6 +91,7 @@ public class ProductService {
         product.setUpdatedAt(LocalDateTime.now());
 
         Product updated = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.of(ProductChangeType.STATUS, List.of(productId)));
 
         return toDto(updated);
     }
@@ -74,32 +104,226 @@ public class ProductService {
         product.setUpdatedAt(LocalDateTime.now());
 
         Product updated = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.of(ProductChangeType.STATUS, List.of(productId)));
 
         return toDto(updated);
     }
 
+    @Transactional(readOnly = true)
     public List<ProductResponse> getPendingProducts() {
-        return productRepository.findByStatus(ProductStatus.PENDING)
-                .stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+        return toDtos(productRepository.findByStatus(ProductStatus.PENDING));
     }
 
-    public List<ProductResponse> getApprovedProducts() {
-        return productRepository.findByStatus(ProductStatus.APPROVED)
-                .stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public ProductPageResponse getApprovedProducts(Pageable pageable) {
+        Page<Product> page = productRepository.findByStatus(ProductStatus.APPROVED, pageable);
+
+        return ProductPageResponse.builder()
+                .content(toDtos(page.getContent()))
+                .page(page.getNumber())
+                .size(page.getSize())
+                .totalElements(page.getTotalElements())
+                .totalPages(page.getTotalPages())
+                .build();
     }
 
+    @Transactional(readOnly = true)
     public ProductResponse getProductById(Long id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Product not found"));
         return toDto(product);
     }
 
+    @Transactional(readOnly = true)
+    public List<ProductResponse> getProductsByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("At least one product id is required");
+        }
+
+        return toDtos(productRepository.findAllById(ids));
+    }
+
+    /**
+     * All-or-nothing reservation of a whole cart in one transaction, recorded under the caller's
+     * reservation id. Repeating the call with the same id (a retry after a timeout, say) returns the
+     * original reservation instead of taking the stock twice.
+     */
+    @Transactional
+    public List<StockReservationResponse> reserveStock(String reservationId, Long buyerId, List<StockReservationRequest> requests) {
+        checkReservationId(reservationId);
+        Map<Long, Integer> quantities = mergeQuantities(requests);
+
+        if (!claimReservation(reservationId, buyerId)) {
+            return replayReservation(reservationId, buyerId);
+        }
+
+        // Decrement in id order so concurrent carts lock rows in the same sequence
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            if (productRepository.decrementStock(entry.getKey(), entry.getValue()) == 0) {
+                Product product = productRepository.findById(entry.getKey())
+                        .orElseThrow(() -> new EntityNotFoundException("Product not found: " + entry.getKey()));
+                throw new InsufficientStockException("Insufficient stock for product: " + product.getName());
+            }
+        }
+        List<Map.Entry<Long, Integer>> items = new ArrayList<>(quantities.entrySet());
+        jdbcTemplate.batchUpdate(INSERT_RESERVATION_ITEM, items, items.size(), (ps, item) -> {
+            ps.setString(1, reservationId);
+            ps.setLong(2, item.getKey());
+            ps.setInt(3, item.getValue());
+        });
+
+        eventPublisher.publishEvent(ProductChangedEvent.of(ProductChangeType.STOCK_RESERVED, quantities.keySet()));
+        return toReservationResponses(quantities);
+    }
+
+    /**
+     * Hands back the stock of each reservation that still holds it; reservations already released
+     * are skipped, so retrying a release is harmless. An id with no reservation yet is recorded as
+     * released, which stops a reservation still in flight from taking stock when it lands.
+     */
+    @Transactional
+    public void releaseStock(Collection<String> reservationIds) {
+        if (reservationIds == null || reservationIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one reservation id is required");
+        }
+
+        Map<Long, Integer> quantities = new TreeMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        // Sorted so concurrent releases lock reservations in the same sequence
+        for (String reservationId : new TreeSet<>(reservationIds)) {
+            checkReservationId(reservationId);
+            release(reservationId, now).forEach((productId, quantity) -> quantities.merge(productId, quantity, Integer::sum));
+        }
+        if (quantities.isEmpty()) {
+            return;
+        }
+        quantities.forEach(productRepository::incrementStock);
+        eventPublisher.publishEvent(ProductChangedEvent.of(ProductChangeType.STOCK_RELEASED, quantities.keySet()));
+    }
+
+    // False if the id is already taken; a concurrent claim of the same id waits here until the first commits
+    private boolean claimReservation(String reservationId, Long buyerId) {
+        try {
+            jdbcTemplate.update(INSERT_RESERVATION, reservationId, buyerId, StockReservationStatus.RESERVED.name(),
+                    LocalDateTime.now(), null);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private List<StockReservationResponse> replayReservation(String reservationId, Long buyerId) {
+        Map<String, Object> reservation = jdbcTemplate.queryForMap(
+                "SELECT buyer_id, status FROM stock_reservations WHERE reservation_id = ?", reservationId);
+        Object owner = reservation.get("buyer_id");
+        if (owner == null || ((Number) owner).longValue() != buyerId) {
+            throw new ReservationConflictException("Reservation " + reservationId + " belongs to someone else");
+        }
+        if (!StockReservationStatus.RESERVED.name().equals(reservation.get("status").toString())) {
+            throw new ReservationConflictException("Reservation " + reservationId + " has already been released");
+        }
+        return toReservationResponses(reservedQuantities(reservationId));
+    }
+
+    private Map<Long, Integer> release(String reservationId, LocalDateTime now) {
+        List<String> status = lockReservation(reservationId);
+        if (status.isEmpty()) {
+            try {
+                jdbcTemplate.update(INSERT_RESERVATION, reservationId, null, StockReservationStatus.RELEASED.name(), now, now);
+                return Map.of();
+            } catch (DuplicateKeyException e) {
+                // The reservation committed while this release waited for it
+                status = lockReservation(reservationId);
+            }
+        }
+        if (!StockReservationStatus.RESERVED.name().equals(status.get(0))) {
+            return Map.of();
+        }
+        jdbcTemplate.update("UPDATE stock_reservations SET status = ?, released_at = ? WHERE reservation_id = ?",
+                StockReservationStatus.RELEASED.name(), now, reservationId);
+        return reservedQuantities(reservationId);
+    }
+
+    private List<String> lockReservation(String reservationId) {
+        return jdbcTemplate.queryForList("SELECT status FROM stock_reservations WHERE reservation_id = ? FOR UPDATE",
+                String.class, reservationId);
+    }
+
+    private Map<Long, Integer> reservedQuantities(String reservationId) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        jdbcTemplate.query("SELECT product_id, quantity FROM stock_reservation_items WHERE reservation_id = ?",
+                (RowCallbackHandler) rs -> quantities.merge(rs.getLong(1), rs.getInt(2), Integer::sum), reservationId);
+        return quantities;
+    }
+
+    private List<StockReservationResponse> toReservationResponses(Map<Long, Integer> quantities) {
+        Map<Long, Product> products = productRepository.findAllById(quantities.keySet())
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        return quantities.entrySet().stream()
+                .map(entry -> {
+                    Product product = products.get(entry.getKey());
+                    return StockReservationResponse.builder()
+                            .productId(product.getId())
+                            .productName(product.getName())
+                            .sellerId(product.getSellerId())
+                            .unitPrice(product.getPrice())
+                            .quantity(entry.getValue())
+                            .remainingStock(product.getStockQuantity())
+                            .build();
+                })
+                .collect(Collectors.toList());
+    }
+
+    private static void checkReservationId(String reservationId) {
+        if (reservationId == null || reservationId.isBlank() || reservationId.length() > MAX_RESERVATION_ID_LENGTH) {
+            throw new IllegalArgumentException("A reservation id of at most " + MAX_RESERVATION_ID_LENGTH + " characters is required");
+        }
+    }
+
+    private Map<Long, Integer> mergeQuantities(List<StockReservationRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("At least one item is required");
+        }
+
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (StockReservationRequest request : requests) {
+            if (request.getProductId() == null) {
+                throw new IllegalArgumentException("Product id is required");
+            }
+            if (request.getQuantity() == null || request.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Quantity must be greater than zero");
+            }
+            quantities.merge(request.getProductId(), request.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    // Images for a whole list come from one query; touching each product's collection would cost one each
+    private List<ProductResponse> toDtos(List<Product> products) {
+        Map<Long, List<String>> imageUrls = imageUrlsByProductId(products.stream().map(Product::getId).toList());
+        return products.stream()
+                .map(product -> toDto(product, imageUrls.getOrDefault(product.getId(), List.of())))
+                .collect(Collectors.toList());
+    }
+
+    private Map<Long, List<String>> imageUrlsByProductId(Collection<Long> productIds) {
+        Map<Long, List<String>> imageUrls = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return imageUrls;
+        }
+        for (Object[] row : productRepository.findImageUrlsByProductIds(productIds)) {
+            imageUrls.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((String) row[1]);
+        }
+        return imageUrls;
+    }
 
     private ProductResponse toDto(Product product) {
+        return toDto(product, product.getImageUrls());
+    }
+
+    private ProductResponse toDto(Product product, List<String> imageUrls) {
         return ProductResponse.builder()
                 .id(product.getId())
                 .name(product.getName())
@@ -107,7 +331,7 @@ public class ProductService {
                 .price(product.getPrice())
                 .stockQuantity(product.getStockQuantity())
                 .sellerId(product.getSellerId())
-                .imageUrls(product.getImageUrls())
+                .imageUrls(imageUrls)
                 .category(product.getCategory())
                 .status(product.getStatus())
                 .createdAt(product.getCreatedAt())
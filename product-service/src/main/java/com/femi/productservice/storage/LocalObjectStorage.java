@@ -0,0 +1,65 @@
+package com.femi.productservice.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Keeps objects as files below a root directory, for development and single-node setups. Files
+ * are written to a temporary name and moved into place, so readers never see half an object.
+ */
+public class LocalObjectStorage implements ObjectStorage {
+
+    private final Path root;
+    private final String publicBaseUrl;
+
+    public LocalObjectStorage(Path root, String publicBaseUrl) throws IOException {
+        this.root = Files.createDirectories(root).toAbsolutePath().normalize();
+        this.publicBaseUrl = publicBaseUrl.endsWith("/") ? publicBaseUrl : publicBaseUrl + "/";
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    @Override
+    public void put(String key, InputStream content, long contentLength, String contentType) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        Path partial = Files.createTempFile(target.getParent(), ".upload-", ".part");
+        try {
+            long written = Files.copy(content, partial, StandardCopyOption.REPLACE_EXISTING);
+            if (written != contentLength) {
+                throw new IOException("Expected " + contentLength + " bytes for " + key + " but got " + written);
+            }
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public String urlFor(String key) {
+        return publicBaseUrl + key;
+    }
+
+    private Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("Key escapes the storage root: " + key);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,24 @@
+package com.femi.productservice.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Blob store for product images. Implementations stream content through; none of them may read
+ * a whole object into memory.
+ */
+public interface ObjectStorage {
+
+    /**
+     * Stores {@code content} under {@code key}, replacing any existing object. {@code contentLength}
+     * must be the exact number of bytes the stream will yield.
+     */
+    void put(String key, InputStream content, long contentLength, String contentType) throws IOException;
+
+    InputStream open(String key) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    // Address clients use to fetch the object
+    String urlFor(String key);
+}
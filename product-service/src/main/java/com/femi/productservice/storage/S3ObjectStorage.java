@@ -0,0 +1,52 @@
+package com.femi.productservice.storage;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import java.io.InputStream;
+
+/**
+ * Stores objects in one S3 bucket. Uploads are single PUTs streamed from the caller's stream with
+ * a known length, which covers the 50MB request limit without multipart uploads.
+ */
+public class S3ObjectStorage implements ObjectStorage {
+
+    private final S3Client s3Client;
+    private final String bucket;
+    private final String publicBaseUrl;
+
+    public S3ObjectStorage(S3Client s3Client, String bucket, String publicBaseUrl) {
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+        this.publicBaseUrl = publicBaseUrl.endsWith("/") ? publicBaseUrl : publicBaseUrl + "/";
+    }
+
+    @Override
+    public void put(String key, InputStream content, long contentLength, String contentType) {
+        s3Client.putObject(PutObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .contentType(contentType)
+                        .contentLength(contentLength)
+                        .build(),
+                RequestBody.fromInputStream(content, contentLength));
+    }
+
+    @Override
+    public InputStream open(String key) {
+        return s3Client.getObject(GetObjectRequest.builder().bucket(bucket).key(key).build());
+    }
+
+    @Override
+    public void delete(String key) {
+        s3Client.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(key).build());
+    }
+
+    @Override
+    public String urlFor(String key) {
+        return publicBaseUrl + key;
+    }
+}
@@ -0,0 +1,66 @@
+package com.femi.productservice.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Picks the image store with {@code storage.type}: {@code local} (the default) or {@code s3}.
+ * S3 credentials come from the AWS default provider chain.
+ */
+@Configuration
+public class StorageConfig {
+
+    @Configuration
+    @ConditionalOnProperty(name = "storage.type", havingValue = "local", matchIfMissing = true)
+    static class Local {
+
+        @Bean
+        public LocalObjectStorage objectStorage(@Value("${storage.local.root:data/images}") Path root,
+                                                @Value("${storage.local.public-base-url:/images}") String publicBaseUrl)
+                throws IOException {
+            return new LocalObjectStorage(root, publicBaseUrl);
+        }
+
+        // Serves the stored files itself, since no CDN sits in front of a local store
+        @Bean
+        public WebMvcConfigurer localImageResources(LocalObjectStorage objectStorage) {
+            return new WebMvcConfigurer() {
+                @Override
+                public void addResourceHandlers(ResourceHandlerRegistry registry) {
+                    registry.addResourceHandler("/images/**")
+                            .addResourceLocations(objectStorage.getRoot().toUri().toString());
+                }
+            };
+        }
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "storage.type", havingValue = "s3")
+    static class S3 {
+
+        @Bean(destroyMethod = "close")
+        public S3Client s3Client(@Value("${storage.s3.region}") String region) {
+            return S3Client.builder().region(Region.of(region)).build();
+        }
+
+        @Bean
+        public S3ObjectStorage objectStorage(S3Client s3Client,
+                                             @Value("${storage.s3.bucket}") String bucket,
+                                             @Value("${storage.s3.region}") String region,
+                                             @Value("${storage.s3.public-base-url:}") String publicBaseUrl) {
+            String baseUrl = publicBaseUrl.isBlank()
+                    ? "https://" + bucket + ".s3." + region + ".amazonaws.com/"
+                    : publicBaseUrl;
+            return new S3ObjectStorage(s3Client, bucket, baseUrl);
+        }
+    }
+}
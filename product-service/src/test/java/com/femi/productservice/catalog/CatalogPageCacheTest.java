@@ -0,0 +1,162 @@
+package com.femi.productservice.catalog;
+
+import com.femi.productservice.controller.ProductController;
+import com.femi.productservice.dto.StockReservationRequest;
+import com.femi.productservice.event.ProductChangeType;
+import com.femi.productservice.event.ProductChangedEvent;
+import com.femi.productservice.facet.CatalogFacetIndex;
+import com.femi.productservice.image.ProductImageService;
+import com.femi.productservice.importer.ProductImportService;
+import com.femi.productservice.model.Product;
+import com.femi.productservice.model.ProductStatus;
+import com.femi.productservice.moderation.ProductModerationService;
+import com.femi.productservice.repository.ProductRepository;
+import com.femi.productservice.search.ProductSearchIndex;
+import com.femi.productservice.service.ProductService;
+import com.femi.productservice.support.ProductJpaTest;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ProductJpaTest
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({ProductService.class, CatalogPageCache.class})
+class CatalogPageCacheTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CatalogPageCache catalogPageCache;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private MockMvc mockMvc;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+        // Drops whatever an earlier test left cached
+        catalogPageCache.onProductChanged(ProductChangedEvent.of(ProductChangeType.STATUS, List.of()));
+        // Only the service and the page cache take part in the catalog page
+        ProductController controller = new ProductController(productService, catalogPageCache, mock(ProductSearchIndex.class),
+                mock(CatalogFacetIndex.class), mock(ProductImageService.class), mock(ProductImportService.class),
+                mock(ProductModerationService.class));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void repeatedRequestsAreServedFromMemoryAndRevalidateWith304() throws Exception {
+        approved("Lamp", "30.00");
+        approved("Desk", "120.00");
+
+        String etag = mockMvc.perform(get("/api/products/public/approved").param("sort", "price,asc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name").value("Lamp"))
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, public"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).startsWith("\"").doesNotStartWith("W/");
+
+        statistics.clear();
+        mockMvc.perform(get("/api/products/public/approved").param("sort", "price,asc"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        mockMvc.perform(get("/api/products/public/approved").param("sort", "price,asc")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void approvalDropsCachedPagesButStockMovementsDoNot() throws Exception {
+        approved("Lamp", "30.00");
+        Product pending = productRepository.save(product("Chair", "45.00"));
+
+        String before = etag("name,asc");
+
+        productService.reserveStock("order-1", 7L, List.of(reservation(pending.getId(), 1)));
+        assertThat(etag("name,asc")).isEqualTo(before);
+
+        productService.approveProduct(pending.getId());
+        mockMvc.perform(get("/api/products/public/approved").param("sort", "name,asc")
+                        .header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].name").value("Chair"))
+                .andExpect(jsonPath("$.totalElements").value(2));
+    }
+
+    @Test
+    void pagesAreOrderedAndBounded() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            approved("Item " + i, i + ".00");
+        }
+
+        mockMvc.perform(get("/api/products/public/approved")
+                        .param("page", "1").param("size", "2").param("sort", "price,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].name").value("Item 3"))
+                .andExpect(jsonPath("$.totalPages").value(3));
+
+        mockMvc.perform(get("/api/products/public/approved").param("size", "1000"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/products/public/approved").param("sort", "stockQuantity"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private String etag(String sort) throws Exception {
+        return mockMvc.perform(get("/api/products/public/approved").param("sort", sort))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private void approved(String name, String price) {
+        Product product = productRepository.save(product(name, price));
+        product.setStatus(ProductStatus.APPROVED);
+        productRepository.save(product);
+    }
+
+    private static Product product(String name, String price) {
+        return Product.builder()
+                .name(name)
+                .price(new BigDecimal(price))
+                .stockQuantity(10)
+                .sellerId(1L)
+                .imageUrls(List.of(name.toLowerCase() + ".png"))
+                .build();
+    }
+
+    private static StockReservationRequest reservation(Long productId, int quantity) {
+        StockReservationRequest request = new StockReservationRequest();
+        request.setProductId(productId);
+        request.setQuantity(quantity);
+        return request;
+    }
+}
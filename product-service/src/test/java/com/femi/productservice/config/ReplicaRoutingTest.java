@@ -0,0 +1,129 @@
+package com.femi.productservice.config;
+
+import com.femi.productservice.model.Product;
+import com.femi.productservice.repository.ProductRepository;
+import com.femi.productservice.support.ProductJpaTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two separate in-memory H2 databases stand in for the primary and the replica. Each holds a product
+ * the other does not, so the rows a query returns show which database served it.
+ */
+@ProductJpaTest
+@TestPropertySource(properties = {
+        "replica.enabled=true",
+        "replica.datasource.jdbc-url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "replica.lag-query=SELECT lag_seconds AS Seconds_Behind_Source FROM replica_lag",
+        "replica.max-lag=5s",
+        "replica.lag-check-interval=1h"
+})
+@Import(DataSourceRoutingConfig.class)
+class ReplicaRoutingTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReplicationLagMonitor lagMonitor;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate primary = new JdbcTemplate(primaryDataSource);
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+
+        // Hibernate created the schema on the primary only; copy it across as replication would
+        String script = tempDir.resolve("schema.sql").toString();
+        primary.execute("SCRIPT NODATA TO '" + script + "'");
+        replica.execute("DROP ALL OBJECTS");
+        replica.execute("RUNSCRIPT FROM '" + script + "'");
+        replica.execute("CREATE TABLE replica_lag (lag_seconds BIGINT)");
+        replica.execute("INSERT INTO replica_lag VALUES (0)");
+
+        productRepository.deleteAll();
+        productRepository.save(product("written-to-primary"));
+        replica.update("INSERT INTO products (id, name, price, stock_quantity, seller_id, status) " +
+                "VALUES (9999, 'only-on-replica', 1.00, 1, 1, 'APPROVED')");
+
+        lagMonitor.check();
+    }
+
+    @Test
+    void readOnlyTransactionsUseTheReplicaAndWritesUseThePrimary() {
+        assertThat(productNames(true)).containsExactly("only-on-replica");
+        assertThat(productNames(false)).containsExactly("written-to-primary");
+        assertThat(meterRegistry.counter("datasource.routing.connections",
+                "target", "replica", "fallback", "false").count()).isPositive();
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhileTheReplicaLags() {
+        new JdbcTemplate(replicaDataSource).update("UPDATE replica_lag SET lag_seconds = 60");
+        lagMonitor.check();
+
+        assertThat(lagMonitor.isReplicaUsable()).isFalse();
+        assertThat(productNames(true)).containsExactly("written-to-primary");
+        assertThat(meterRegistry.counter("datasource.routing.connections",
+                "target", "primary", "fallback", "true").count()).isPositive();
+
+        new JdbcTemplate(replicaDataSource).update("UPDATE replica_lag SET lag_seconds = 1");
+        lagMonitor.check();
+        assertThat(productNames(true)).containsExactly("only-on-replica");
+    }
+
+    @Test
+    void readsFallBackToThePrimaryWhenTheLagIsUnknown() {
+        new JdbcTemplate(replicaDataSource).update("UPDATE replica_lag SET lag_seconds = NULL");
+        lagMonitor.check();
+
+        assertThat(productNames(true)).containsExactly("written-to-primary");
+    }
+
+    private List<String> productNames(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template.execute(status -> productRepository.findAll().stream().map(Product::getName).toList());
+    }
+
+    private Product product(String name) {
+        return Product.builder()
+                .name(name)
+                .price(new BigDecimal("9.99"))
+                .stockQuantity(1)
+                .sellerId(1L)
+                .build();
+    }
+}
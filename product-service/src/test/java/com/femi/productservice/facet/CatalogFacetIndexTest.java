@@ -0,0 +1,154 @@
+package com.femi.productservice.facet;
+
+import com.femi.productservice.dto.CatalogFacetResponse;
+import com.femi.productservice.dto.PriceRangeCount;
+import com.femi.productservice.event.ProductChangeType;
+import com.femi.productservice.event.ProductChangedEvent;
+import com.femi.productservice.model.Product;
+import com.femi.productservice.model.ProductStatus;
+import com.femi.productservice.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CatalogFacetIndexTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private CatalogFacetIndex index;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(productRepository.findByStatusAndIdGreaterThanOrderByIdAsc(eq(ProductStatus.APPROVED), eq(0L), any(Pageable.class)))
+                .thenReturn(List.of(
+                        approved(1, "Kitchen", "8.00", 5),
+                        approved(2, "Kitchen", "30.00", 0),
+                        approved(3, "Garden", "12.50", 2),
+                        approved(4, "Garden", "75.00", 1),
+                        approved(5, "Office", "250.00", 0)));
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+        index = new CatalogFacetIndex(productRepository, transactionTemplate, new SimpleMeterRegistry(), 1000, 100,
+                new String[]{"0", "10", "50"}, Duration.ofSeconds(1));
+        index.load();
+    }
+
+    @Test
+    void filtersAndCountsEachFacetWithTheOtherFilters() {
+        CatalogFacetResponse response = index.query(List.of("Garden"), null, new BigDecimal("50"), null, 0, 20);
+
+        assertThat(response.getTotal()).isEqualTo(1);
+        assertThat(response.getProductIds()).containsExactly(3L);
+        // Category counts ignore the category filter but keep the price cap
+        assertThat(response.getCategories()).containsExactly(Map.entry("Kitchen", 2L), Map.entry("Garden", 1L));
+        assertThat(response.getInStock()).isEqualTo(1);
+        assertThat(response.getOutOfStock()).isZero();
+        // Price ranges ignore the price filter but keep the category
+        assertThat(response.getPriceRanges()).extracting(PriceRangeCount::getCount).containsExactly(0L, 1L, 1L);
+    }
+
+    @Test
+    void stockFilterAndHighestIdFirstPaging() {
+        CatalogFacetResponse inStock = index.query(null, null, null, true, 0, 2);
+        assertThat(inStock.getTotal()).isEqualTo(3);
+        assertThat(inStock.getProductIds()).containsExactly(4L, 3L);
+        assertThat(index.query(null, null, null, true, 1, 2).getProductIds()).containsExactly(1L);
+
+        CatalogFacetResponse soldOut = index.query(null, null, null, false, 0, 20);
+        assertThat(soldOut.getProductIds()).containsExactly(5L, 2L);
+        assertThat(soldOut.getCategories()).containsOnlyKeys("Kitchen", "Office");
+    }
+
+    @Test
+    void writesMoveProductsBetweenFacets() {
+        index.applyStock(Map.of(2L, 4, 1L, 0));
+        index.apply(List.of(3L, 5L, 6L), List.of(
+                product(3, "Kitchen", "12.50", 2, ProductStatus.APPROVED),
+                product(5, "Office", "250.00", 0, ProductStatus.REJECTED),
+                product(6, "Office", "5.00", 9, ProductStatus.APPROVED)));
+
+        CatalogFacetResponse response = index.query(null, null, null, null, 0, 20);
+        assertThat(response.getTotal()).isEqualTo(5);
+        assertThat(response.getProductIds()).containsExactly(6L, 4L, 3L, 2L, 1L);
+        assertThat(response.getCategories())
+                .containsExactly(Map.entry("Kitchen", 3L), Map.entry("Garden", 1L), Map.entry("Office", 1L));
+        assertThat(index.query(List.of("Kitchen"), null, null, true, 0, 20).getProductIds()).containsExactly(3L, 2L);
+    }
+
+    @Test
+    void stockChangesAreCollectedAndReadOncePerRefresh() {
+        index.onProductChanged(ProductChangedEvent.of(ProductChangeType.STOCK_RESERVED, List.of(1L, 3L)));
+        index.onProductChanged(ProductChangedEvent.of(ProductChangeType.STOCK_RELEASED, List.of(2L, 1L)));
+        verify(productRepository, never()).findStockByProductIds(anyCollection());
+
+        when(productRepository.findStockByProductIds(anyCollection())).thenReturn(List.of(
+                new Object[]{1L, 0}, new Object[]{2L, 3}, new Object[]{3L, 2}));
+        index.refreshStock();
+        index.refreshStock();
+
+        verify(productRepository, times(1)).findStockByProductIds(argThat(ids -> ids.size() == 3));
+        assertThat(index.query(null, null, null, true, 0, 20).getProductIds()).containsExactly(4L, 3L, 2L);
+    }
+
+    @Test
+    void aLateApprovalIsListedByItsIdNotWhenItWasApproved() {
+        index.apply(List.of(3L), List.of(product(3, "Garden", "12.50", 2, ProductStatus.PENDING)));
+        index.apply(List.of(7L), List.of(approved(7, "Garden", "9.00", 1)));
+        // Approved again after 7, but still created before 4
+        index.apply(List.of(3L), List.of(approved(3, "Garden", "12.50", 2)));
+
+        assertThat(index.query(null, null, null, null, 0, 20).getProductIds()).containsExactly(7L, 5L, 4L, 3L, 2L, 1L);
+        assertThat(index.query(List.of("Garden"), null, null, true, 0, 2).getProductIds()).containsExactly(7L, 4L);
+        assertThat(index.query(null, null, new BigDecimal("20"), null, 0, 20).getProductIds()).containsExactly(7L, 3L, 1L);
+    }
+
+    @Test
+    void compactionKeepsAnswersIntact() {
+        List<Product> products = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        for (long id = 100; id < 5_100; id++) {
+            products.add(approved(id, id % 2 == 0 ? "Even" : "Odd", "20.00", (int) (id % 3)));
+            ids.add(id);
+        }
+        index.apply(ids, products);
+        // Dropping most rows triggers compaction
+        index.apply(ids.subList(0, 4_000), List.of());
+
+        CatalogFacetResponse response = index.query(Set.of("Even"), null, null, true, 0, 3);
+        assertThat(response.getTotal()).isEqualTo(334);
+        assertThat(response.getProductIds()).containsExactly(5098L, 5096L, 5092L);
+        assertThat(index.size()).isEqualTo(5 + 1_000);
+    }
+
+    private static Product approved(long id, String category, String price, int stock) {
+        return product(id, category, price, stock, ProductStatus.APPROVED);
+    }
+
+    private static Product product(long id, String category, String price, int stock, ProductStatus status) {
+        return Product.builder()
+                .id(id)
+                .name("Product " + id)
+                .category(category)
+                .price(new BigDecimal(price))
+                .stockQuantity(stock)
+                .status(status)
+                .build();
+    }
+}
@@ -0,0 +1,286 @@
+package com.femi.productservice.image;
+
+import com.femi.productservice.dto.ProductImageResponse;
+import com.femi.productservice.model.Product;
+import com.femi.productservice.repository.ProductRepository;
+import com.femi.productservice.storage.LocalObjectStorage;
+import com.femi.productservice.storage.ObjectStorage;
+import com.femi.productservice.support.ProductJpaTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ProductJpaTest
+@Import({ProductImageService.class, ThumbnailGenerator.class, ProductImageServiceTest.Storage.class})
+class ProductImageServiceTest {
+
+    private static final long MB = 1024 * 1024;
+
+    @TempDir
+    static Path storageRoot;
+
+    @TestConfiguration
+    static class Storage {
+        @Bean
+        ObjectStorage objectStorage() throws IOException {
+            return new LocalObjectStorage(storageRoot, "/images");
+        }
+    }
+
+    @Autowired
+    private ProductImageService productImageService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ObjectStorage objectStorage;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void uploadStoresTheImageAttachesItAndWritesThumbnails() throws Exception {
+        Product product = product(1L);
+
+        List<ProductImageResponse> responses = productImageService.upload(product.getId(), 1L,
+                List.of(new MockMultipartFile("files", "photo.png", "image/png", png(1600, 900))));
+
+        String url = responses.get(0).getUrl();
+        assertThat(url).startsWith("/images/products/" + product.getId() + "/").endsWith(".png");
+        assertThat(imageUrls(product.getId())).containsExactly(url);
+        assertThat(stored(url)).exists();
+
+        Path small = stored(responses.get(0).getThumbnails().get(200));
+        Path large = stored(responses.get(0).getThumbnails().get(600));
+        awaitExists(small);
+        awaitExists(large);
+        BufferedImage thumbnail = ImageIO.read(small.toFile());
+        assertThat(thumbnail.getWidth()).isEqualTo(200);
+        assertThat(thumbnail.getHeight()).isEqualTo(113);
+    }
+
+    @Test
+    void concurrentUploadsToOneProductKeepEveryImage() throws Exception {
+        Product product = product(1L);
+        int parallel = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        List<String> urls = new ArrayList<>();
+
+        try (ExecutorService uploads = Executors.newFixedThreadPool(parallel)) {
+            List<Future<List<ProductImageResponse>>> futures = new ArrayList<>();
+            for (int i = 0; i < parallel; i++) {
+                MockMultipartFile file = new MockMultipartFile("files", "photo.png", "image/png", png(10, 10));
+                futures.add(uploads.submit(() -> {
+                    start.await();
+                    return productImageService.upload(product.getId(), 1L, List.of(file));
+                }));
+            }
+            start.countDown();
+            for (Future<List<ProductImageResponse>> future : futures) {
+                urls.add(future.get(30, TimeUnit.SECONDS).get(0).getUrl());
+            }
+        }
+
+        assertThat(imageUrls(product.getId())).containsExactlyInAnyOrderElementsOf(urls);
+    }
+
+    @Test
+    void imagesTheThumbnailQueueTurnedAwayGetNoThumbnailUrls() throws Exception {
+        Product product = product(1L);
+        ThumbnailGenerator busy = mock(ThumbnailGenerator.class);
+        when(busy.submit(anyString())).thenReturn(false);
+        ProductImageService service = new ProductImageService(productRepository, objectStorage, busy,
+                transactionTemplate, event -> { }, jdbcTemplate);
+
+        List<ProductImageResponse> responses = service.upload(product.getId(), 1L,
+                List.of(new MockMultipartFile("files", "photo.png", "image/png", png(10, 10))));
+
+        assertThat(responses).singleElement().satisfies(response -> {
+            assertThat(stored(response.getUrl())).exists();
+            assertThat(response.getThumbnails()).isEmpty();
+        });
+        verify(busy, never()).variantKeys(anyString());
+    }
+
+    @Test
+    void anotherSellersProductIsRefusedBeforeAnythingIsStored() throws Exception {
+        Product product = product(1L);
+        MockMultipartFile file = new MockMultipartFile("files", "photo.png", "image/png", png(10, 10));
+
+        assertThatThrownBy(() -> productImageService.upload(product.getId(), 2L, List.of(file)))
+                .isInstanceOf(AccessDeniedException.class);
+        assertThat(storageRoot.resolve("products/" + product.getId())).doesNotExist();
+    }
+
+    @Test
+    void nonImagesAreRejected() {
+        Product product = product(1L);
+        MockMultipartFile file = new MockMultipartFile("files", "notes.txt", "text/plain", new byte[]{1, 2, 3});
+
+        assertThatThrownBy(() -> productImageService.upload(product.getId(), 1L, List.of(file)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Streams parallel 50MB uploads and measures the heap retained while all of them are halfway
+     * through; buffering whole files would retain hundreds of megabytes. Run with
+     * {@code mvn test -Dtest=ProductImageServiceTest -Dupload.benchmark=true [-Dupload.benchmark.parallel=8]}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "upload.benchmark", matches = "true")
+    void parallelLargeUploadsKeepTheHeapFlat() throws Exception {
+        int parallel = Integer.getInteger("upload.benchmark.parallel", 8);
+        long size = 50 * MB;
+        Product product = product(1L);
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        System.gc();
+        long baseline = memory.getHeapMemoryUsage().getUsed();
+
+        CountDownLatch halfway = new CountDownLatch(parallel);
+        CountDownLatch resume = new CountDownLatch(1);
+        long started = System.nanoTime();
+        long retained;
+        List<String> keys = new ArrayList<>();
+        try (ExecutorService uploads = Executors.newFixedThreadPool(parallel)) {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < parallel; i++) {
+                futures.add(uploads.submit(() -> productImageService.store(product.getId(),
+                        new PausingStream(size, halfway, resume), size, "image/jpeg")));
+            }
+            assertThat(halfway.await(60, TimeUnit.SECONDS)).isTrue();
+            System.gc();
+            retained = memory.getHeapMemoryUsage().getUsed() - baseline;
+            resume.countDown();
+            for (Future<String> future : futures) {
+                keys.add(future.get(120, TimeUnit.SECONDS));
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        System.out.printf("%d x %d MB uploads: %.0f MB/s, %d MB heap retained mid-upload%n",
+                parallel, size / MB, parallel * size / MB / seconds, retained / MB);
+        for (String key : keys) {
+            assertThat(Files.size(storageRoot.resolve(key))).isEqualTo(size);
+        }
+        assertThat(retained).isLessThan(32 * MB);
+    }
+
+    private Product product(Long sellerId) {
+        return productRepository.save(Product.builder()
+                .name("Camera")
+                .price(new BigDecimal("199.00"))
+                .stockQuantity(3)
+                .sellerId(sellerId)
+                .build());
+    }
+
+    private List<String> imageUrls(Long productId) {
+        return jdbcTemplate.queryForList("SELECT image_url FROM product_images WHERE product_id = ?", String.class, productId);
+    }
+
+    private static Path stored(String url) {
+        return storageRoot.resolve(url.substring("/images/".length()));
+    }
+
+    private static void awaitExists(Path path) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!Files.exists(path) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(path).exists();
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < width; x++) {
+            image.setRGB(x, height / 2, 0xff0000);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    // Yields generated bytes and parks once halfway until every upload has got that far
+    private static final class PausingStream extends InputStream {
+
+        private final long size;
+        private final CountDownLatch halfway;
+        private final CountDownLatch resume;
+        private long position;
+
+        PausingStream(long size, CountDownLatch halfway, CountDownLatch resume) {
+            this.size = size;
+            this.halfway = halfway;
+            this.resume = resume;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (position >= size) {
+                return -1;
+            }
+            long half = size / 2;
+            if (position == half) {
+                halfway.countDown();
+                try {
+                    resume.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            long limit = position < half ? half : size;
+            int count = (int) Math.min(length, limit - position);
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = (byte) (position + i);
+            }
+            position += count;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.femi.productservice.importer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.femi.productservice.model.Product;
+import com.femi.productservice.model.ProductStatus;
+import com.femi.productservice.repository.ProductRepository;
+import com.femi.productservice.support.ProductJpaTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ProductJpaTest
+@TestPropertySource(properties = "products.import.chunk-size=3")
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import(ProductImportService.class)
+class ProductImportServiceTest {
+
+    private static final long SELLER = 9L;
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void clean() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void csvRowsAreImportedWithImagesAndBadRowsReportedByNumber() throws Exception {
+        String csv = """
+                name,price,stockQuantity,category,description,imageUrls
+                Lamp,19.99,4,Lighting,"Warm, dimmable",lamp-front.png|lamp-back.png
+                ,5.00,1,Lighting,missing name,
+                "Chair ""Classic\""",45.00,2,Furniture,"Oak
+                frame",
+                Desk,free,1,Furniture,,
+                Mug,7.50,-1,Kitchen,,
+                Kettle,24.00,8,Kitchen,,kettle.png
+                """;
+
+        List<JsonNode> report = run(csv, ProductImportService.CSV);
+
+        assertThat(errors(report)).extracting(line -> line.get("row").asLong()).containsExactly(2L, 4L, 5L);
+        assertThat(errors(report).get(1).get("message").asText()).contains("price is not a number");
+        JsonNode summary = report.get(report.size() - 1);
+        assertThat(summary.get("type").asText()).isEqualTo("summary");
+        assertThat(summary.get("rowsRead").asLong()).isEqualTo(6);
+        assertThat(summary.get("imported").asLong()).isEqualTo(3);
+        assertThat(summary.get("failed").asLong()).isEqualTo(3);
+
+        List<Product> products = productRepository.findBySellerId(SELLER);
+        products.sort(Comparator.comparing(Product::getId));
+        assertThat(products).extracting(Product::getName).containsExactly("Lamp", "Chair \"Classic\"", "Kettle");
+        assertThat(products).extracting(Product::getStatus).containsOnly(ProductStatus.PENDING);
+        assertThat(products.get(1).getDescription()).isEqualTo("Oak\nframe");
+        assertThat(productRepository.findImageUrlsByProductIds(List.of(products.get(0).getId())))
+                .extracting(row -> row[1]).containsExactlyInAnyOrder("lamp-front.png", "lamp-back.png");
+    }
+
+    @Test
+    void ndjsonRowsThatTheDatabaseRefusesFailAloneWithoutTheirChunk() throws Exception {
+        // Valid as far as the import can tell, but too many digits for the price column
+        String ndjson = """
+                {"name":"Tent","price":120.00,"stockQuantity":3}
+                {"name":"Lantern","price":1234567890123456789012345678901234567.00,"stockQuantity":1}
+                not json
+
+                {"name":"Stove","price":60.00,"stockQuantity":2,"imageUrls":["stove.png"]}
+                """;
+
+        List<JsonNode> report = run(ndjson, MediaType.APPLICATION_NDJSON);
+
+        assertThat(errors(report)).extracting(line -> line.get("row").asLong()).containsExactly(3L, 2L);
+        assertThat(errors(report).get(1).get("message").asText()).startsWith("Rejected by the database");
+        assertThat(productRepository.findBySellerId(SELLER)).extracting(Product::getName)
+                .containsExactlyInAnyOrder("Tent", "Stove");
+        assertThat(report).filteredOn(line -> line.get("type").asText().equals("progress")).isNotEmpty();
+    }
+
+    @Test
+    void aHeaderWithoutRequiredColumnsAbortsTheImport() throws Exception {
+        List<JsonNode> report = run("title,cost\nLamp,3\n", ProductImportService.CSV);
+
+        assertThat(report).hasSize(1);
+        assertThat(report.get(0).get("type").asText()).isEqualTo("aborted");
+        assertThat(report.get(0).get("message").asText()).contains("header");
+        assertThat(productRepository.count()).isZero();
+    }
+
+    /**
+     * Imports a generated CSV without materializing it. Run with
+     * {@code mvn test -Dtest=ProductImportServiceTest -Dimport.benchmark=true [-Dimport.benchmark.rows=100000]}
+     * and {@code -Dproducts.import.chunk-size=1000} for realistic chunks.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "import.benchmark", matches = "true")
+    void importsAHundredThousandRowsInSeconds() throws Exception {
+        int rows = Integer.getInteger("import.benchmark.rows", 100_000);
+        InputStream body = new SequenceInputStream(new Enumeration<>() {
+            private int next = -1;
+
+            @Override
+            public boolean hasMoreElements() {
+                return next < rows;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                String line = next++ < 0
+                        ? "name,price,stockQuantity,category,description,imageUrls\n"
+                        : "Product " + next + "," + (next % 500 + 1) + ".99,10,Category " + (next % 40)
+                        + ",Generated product," + "p" + next + "-a.png|p" + next + "-b.png\n";
+                return new ByteArrayInputStream(line.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        productImportService.importProducts(body, ProductImportService.CSV, SELLER, out);
+        List<JsonNode> report = lines(out);
+        JsonNode summary = report.get(report.size() - 1);
+
+        System.out.printf("imported %d rows in %d ms%n", summary.get("imported").asLong(), summary.get("elapsedMillis").asLong());
+        assertThat(summary.get("imported").asLong()).isEqualTo(rows);
+        assertThat(summary.get("elapsedMillis").asLong()).isLessThan(60_000);
+    }
+
+    private List<JsonNode> run(String body, MediaType format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        productImportService.importProducts(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), format, SELLER, out);
+        return lines(out);
+    }
+
+    private List<JsonNode> lines(ByteArrayOutputStream out) throws IOException {
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+
+    private static List<JsonNode> errors(List<JsonNode> report) {
+        return report.stream().filter(line -> line.get("type").asText().equals("error")).toList();
+    }
+}
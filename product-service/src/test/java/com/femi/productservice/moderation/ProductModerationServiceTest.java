@@ -0,0 +1,146 @@
+package com.femi.productservice.moderation;
+
+import com.femi.productservice.dto.ProductModerationRequest;
+import com.femi.productservice.dto.ProductModerationResponse;
+import com.femi.productservice.dto.ProductModerationResult;
+import com.femi.productservice.dto.ProductModerationResult.Outcome;
+import com.femi.productservice.event.ProductChangeType;
+import com.femi.productservice.event.ProductChangedEvent;
+import com.femi.productservice.model.Product;
+import com.femi.productservice.model.ProductStatus;
+import com.femi.productservice.repository.ProductRepository;
+import com.femi.productservice.support.ProductJpaTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@ProductJpaTest
+@TestPropertySource(properties = {
+        "products.moderation.batch-size=2",
+        "products.moderation.max-products=5"
+})
+@RecordApplicationEvents
+@Import(ProductModerationService.class)
+class ProductModerationServiceTest {
+
+    @Autowired
+    private ProductModerationService productModerationService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @BeforeEach
+    void clean() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void listedProductsAreModeratedOnlyWhilePendingAndReportedOneByOne() {
+        Long first = product(1L, "Books", ProductStatus.PENDING);
+        Long second = product(1L, "Books", ProductStatus.PENDING);
+        Long rejected = product(1L, "Books", ProductStatus.REJECTED);
+        Long third = product(2L, "Games", ProductStatus.PENDING);
+
+        ProductModerationResponse response = productModerationService.moderate(
+                ids(third, first, rejected, 999_999L, second, first), ProductStatus.APPROVED);
+
+        assertThat(response.getResults())
+                .extracting(ProductModerationResult::getProductId, ProductModerationResult::getOutcome, ProductModerationResult::getStatus)
+                .containsExactly(
+                        tuple(first, Outcome.UPDATED, ProductStatus.APPROVED),
+                        tuple(second, Outcome.UPDATED, ProductStatus.APPROVED),
+                        tuple(rejected, Outcome.SKIPPED, ProductStatus.REJECTED),
+                        tuple(third, Outcome.UPDATED, ProductStatus.APPROVED),
+                        tuple(999_999L, Outcome.NOT_FOUND, null));
+        assertThat(response.getUpdated()).isEqualTo(3);
+        assertThat(response.getSkipped()).isEqualTo(1);
+        assertThat(response.getNotFound()).isEqualTo(1);
+
+        assertThat(productRepository.findById(first).orElseThrow().getStatus()).isEqualTo(ProductStatus.APPROVED);
+        assertThat(productRepository.findById(first).orElseThrow().getUpdatedAt()).isNotNull();
+        assertThat(productRepository.findById(rejected).orElseThrow().getStatus()).isEqualTo(ProductStatus.REJECTED);
+
+        // Three batches, one invalidation
+        List<ProductChangedEvent> published = events.stream(ProductChangedEvent.class).toList();
+        assertThat(published).hasSize(1);
+        assertThat(published.get(0).getChanges()).containsExactly(ProductChangeType.STATUS);
+        assertThat(published.get(0).getProductIds()).containsExactly(first, second, third);
+    }
+
+    @Test
+    void aFilterModeratesMatchingPendingProductsUpToTheLimit() {
+        for (int i = 0; i < 6; i++) {
+            product(1L, "Books", ProductStatus.PENDING);
+        }
+        Long otherCategory = product(1L, "Games", ProductStatus.PENDING);
+        Long otherSeller = product(2L, "Books", ProductStatus.PENDING);
+        Long approved = product(1L, "Books", ProductStatus.APPROVED);
+
+        ProductModerationRequest filter = new ProductModerationRequest();
+        filter.setSellerId(1L);
+        filter.setCategory("Books");
+
+        ProductModerationResponse first = productModerationService.moderate(filter, ProductStatus.REJECTED);
+        assertThat(first.getUpdated()).isEqualTo(5);
+        assertThat(first.isHasMore()).isTrue();
+
+        ProductModerationResponse rest = productModerationService.moderate(filter, ProductStatus.REJECTED);
+        assertThat(rest.getUpdated()).isEqualTo(1);
+        assertThat(rest.isHasMore()).isFalse();
+
+        assertThat(productRepository.findByStatus(ProductStatus.REJECTED)).hasSize(6);
+        assertThat(productRepository.findByStatus(ProductStatus.PENDING)).extracting(Product::getId)
+                .containsExactlyInAnyOrder(otherCategory, otherSeller);
+        assertThat(productRepository.findById(approved).orElseThrow().getStatus()).isEqualTo(ProductStatus.APPROVED);
+        assertThat(events.stream(ProductChangedEvent.class)).hasSize(2);
+    }
+
+    @Test
+    void idsAndAFilterTogetherAreRefused() {
+        ProductModerationRequest request = ids(1L);
+        request.setSellerId(1L);
+
+        assertThatThrownBy(() -> productModerationService.moderate(request, ProductStatus.APPROVED))
+                .isInstanceOf(ResponseStatusException.class);
+        assertThatThrownBy(() -> productModerationService.moderate(ids(1L, 2L, 3L, 4L, 5L, 6L), ProductStatus.APPROVED))
+                .isInstanceOf(ResponseStatusException.class);
+        assertThat(events.stream(ProductChangedEvent.class)).isEmpty();
+    }
+
+    private static ProductModerationRequest ids(Long... ids) {
+        ProductModerationRequest request = new ProductModerationRequest();
+        request.setProductIds(List.of(ids));
+        return request;
+    }
+
+    // @PrePersist always starts products as PENDING, so other statuses are set afterwards
+    private Long product(Long sellerId, String category, ProductStatus status) {
+        Product product = productRepository.save(Product.builder()
+                .name(category + " item")
+                .price(new BigDecimal("9.99"))
+                .stockQuantity(1)
+                .sellerId(sellerId)
+                .category(category)
+                .build());
+        if (status != ProductStatus.PENDING) {
+            product.setStatus(status);
+            productRepository.save(product);
+        }
+        return product.getId();
+    }
+}
@@ -0,0 +1,170 @@
+package com.femi.productservice.search;
+
+import com.femi.productservice.dto.CreateProductRequest;
+import com.femi.productservice.dto.ProductSearchHit;
+import com.femi.productservice.dto.ProductSearchResponse;
+import com.femi.productservice.model.Product;
+import com.femi.productservice.model.ProductStatus;
+import com.femi.productservice.repository.ProductRepository;
+import com.femi.productservice.service.ProductService;
+import com.femi.productservice.support.ProductJpaTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ProductJpaTest
+@TestPropertySource(properties = {
+        "search.index.refresh-interval=1h",
+        "search.index.commit-interval=1h"
+})
+@Import({ProductService.class, ProductSearchIndex.class})
+class ProductSearchIndexTest {
+
+    private static final int BENCHMARK_PRODUCTS = Integer.getInteger("search.benchmark.products", 1_000_000);
+    private static final String[] WORDS = {"wireless", "leather", "steel", "cotton", "organic", "compact", "vintage",
+            "portable", "ceramic", "wooden", "smart", "classic", "outdoor", "kitchen", "travel", "garden", "office",
+            "lamp", "chair", "kettle", "speaker", "jacket", "backpack", "mug", "table", "blender", "watch", "shoe"};
+
+    @TempDir
+    static Path indexDir;
+
+    @DynamicPropertySource
+    static void indexPath(DynamicPropertyRegistry registry) {
+        registry.add("search.index.path", () -> indexDir.toString());
+    }
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductSearchIndex productSearchIndex;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+        productSearchIndex.rebuild();
+    }
+
+    @Test
+    void approvedProductsBecomeSearchableAndNameMatchesRankFirst() {
+        Long lamp = create("Brass desk lamp", "Lighting", "Warm light for reading");
+        Long shade = create("Linen shade", "Lighting", "Fits any desk lamp base");
+        Long hidden = create("Floor lamp", "Lighting", "Still waiting for review");
+        productService.approveProduct(lamp);
+        productService.approveProduct(shade);
+        productSearchIndex.refresh();
+
+        ProductSearchResponse response = productSearchIndex.search("desk lamp", 0, 10);
+
+        assertThat(response.getHits()).extracting(ProductSearchHit::getId).containsExactly(lamp, shade);
+        assertThat(response.getHits()).extracting(ProductSearchHit::getId).doesNotContain(hidden);
+        assertThat(response.getHits().get(0).getPrice()).isEqualByComparingTo("25.00");
+        assertThat(response.isTotalHitsExact()).isTrue();
+    }
+
+    @Test
+    void rejectionRemovesAProductAndRebuildRestoresTheIndexFromTheDatabase() {
+        Long kettle = create("Steel kettle", "Kitchen", "Boils fast");
+        productService.approveProduct(kettle);
+        productSearchIndex.refresh();
+        assertThat(productSearchIndex.search("kettle", 0, 10).getTotalHits()).isEqualTo(1);
+
+        productService.rejectProduct(kettle);
+        productSearchIndex.refresh();
+        assertThat(productSearchIndex.search("kettle", 0, 10).getTotalHits()).isZero();
+
+        Product reapproved = productRepository.findById(kettle).orElseThrow();
+        reapproved.setStatus(ProductStatus.APPROVED);
+        productRepository.save(reapproved);
+        productSearchIndex.rebuild();
+        assertThat(productSearchIndex.search("kitchen", 0, 10).getHits())
+                .extracting(ProductSearchHit::getId).containsExactly(kettle);
+    }
+
+    @Test
+    void resultsArePaged() {
+        for (int i = 0; i < 5; i++) {
+            productService.approveProduct(create("Mug " + i, "Kitchen", "Ceramic"));
+        }
+        productSearchIndex.refresh();
+
+        ProductSearchResponse second = productSearchIndex.search("mug", 2, 2);
+        assertThat(second.getHits()).hasSize(1);
+        assertThat(second.getTotalHits()).isEqualTo(5);
+    }
+
+    /**
+     * Indexes a synthetic catalog and times two-term queries. Run with
+     * {@code mvn test -Dtest=ProductSearchIndexTest -Dsearch.benchmark=true [-Dsearch.benchmark.products=1000000]}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "search.benchmark", matches = "true")
+    void p99StaysUnderTenMillisecondsOnALargeCatalog() throws Exception {
+        Random random = new Random(7);
+        List<Product> batch = new ArrayList<>();
+        for (long id = 1; id <= BENCHMARK_PRODUCTS; id++) {
+            batch.add(Product.builder()
+                    .id(id)
+                    .name(word(random) + " " + word(random) + " " + word(random))
+                    .category(word(random))
+                    .description(word(random) + " " + word(random) + " " + word(random) + " " + word(random))
+                    .price(BigDecimal.valueOf(random.nextInt(100_000), 2))
+                    .status(ProductStatus.APPROVED)
+                    .build());
+            if (batch.size() == 10_000) {
+                productSearchIndex.add(batch);
+                batch.clear();
+            }
+        }
+        productSearchIndex.add(batch);
+        productSearchIndex.refresh();
+
+        for (int i = 0; i < 2_000; i++) {
+            productSearchIndex.search(word(random) + " " + word(random), 0, 20);
+        }
+        long[] nanos = new long[10_000];
+        for (int i = 0; i < nanos.length; i++) {
+            long started = System.nanoTime();
+            productSearchIndex.search(word(random) + " " + word(random), random.nextInt(3), 20);
+            nanos[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(nanos);
+        double p50 = nanos[nanos.length / 2] / 1e6;
+        double p99 = nanos[(int) (nanos.length * 0.99)] / 1e6;
+
+        System.out.printf("%d products: p50 %.2f ms, p99 %.2f ms%n", BENCHMARK_PRODUCTS, p50, p99);
+        assertThat(p99).isLessThan(10.0);
+    }
+
+    private Long create(String name, String category, String description) {
+        CreateProductRequest request = new CreateProductRequest();
+        request.setName(name);
+        request.setCategory(category);
+        request.setDescription(description);
+        request.setPrice(new BigDecimal("25.00"));
+        request.setStockQuantity(5);
+        return productService.createProduct(request, 1L).getId();
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
@@ -0,0 +1,109 @@
+package com.femi.productservice.service;
+
+import com.femi.productservice.model.Product;
+import com.femi.productservice.model.ProductStatus;
+import com.femi.productservice.repository.ProductRepository;
+import com.femi.productservice.support.ProductJpaTest;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs every list read against a small and a large data set and fails if the number of JDBC
+ * statements differs, which is what a per-row lazy load looks like.
+ */
+@ProductJpaTest
+@Import(ProductService.class)
+class ProductListQueryCountTest {
+
+    private static final long SELLER = 42L;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void clean() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void pendingProducts() {
+        assertConstantStatements(ProductStatus.PENDING, products -> productService.getPendingProducts());
+    }
+
+    @Test
+    void approvedProducts() {
+        assertConstantStatements(ProductStatus.APPROVED,
+                products -> productService.getApprovedProducts(PageRequest.of(0, 100)).getContent());
+    }
+
+    @Test
+    void productsBySeller() {
+        assertConstantStatements(ProductStatus.PENDING, products -> productService.getProductsBySeller(SELLER));
+    }
+
+    @Test
+    void productsByIds() {
+        assertConstantStatements(ProductStatus.PENDING,
+                products -> productService.getProductsByIds(products.stream().map(Product::getId).toList()));
+    }
+
+    /**
+     * Seeds {@code 3} and then {@code 30} products, each with two images, and compares the
+     * statements the read issued.
+     */
+    private void assertConstantStatements(ProductStatus status,
+                                          Function<List<Product>, List<?>> read) {
+        long small = statementsFor(seed(3, status), read);
+        productRepository.deleteAll();
+        long large = statementsFor(seed(30, status), read);
+
+        assertThat(large).as("statements for 30 products vs 3").isEqualTo(small);
+        assertThat(small).isLessThanOrEqualTo(2);
+    }
+
+    private long statementsFor(List<Product> products, Function<List<Product>, List<?>> read) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        List<?> result = read.apply(products);
+        assertThat(result).hasSize(products.size());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private List<Product> seed(int count, ProductStatus status) {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Product product = productRepository.save(Product.builder()
+                    .name("Product " + i)
+                    .price(new BigDecimal("10.00"))
+                    .stockQuantity(1)
+                    .sellerId(SELLER)
+                    .imageUrls(new ArrayList<>(List.of("front-" + i + ".png", "back-" + i + ".png")))
+                    .build());
+            if (status != ProductStatus.PENDING) {
+                product.setStatus(status);
+                product = productRepository.save(product);
+            }
+            products.add(product);
+        }
+        return products;
+    }
+}
@@ -0,0 +1,223 @@
+package com.femi.productservice.service;
+
+import com.femi.productservice.dto.StockReservationRequest;
+import com.femi.productservice.dto.StockReservationResponse;
+import com.femi.productservice.exception.InsufficientStockException;
+import com.femi.productservice.exception.ReservationConflictException;
+import com.femi.productservice.model.Product;
+import com.femi.productservice.repository.ProductRepository;
+import com.femi.productservice.support.ProductJpaTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@ProductJpaTest
+// 32 threads queue on one product row, longer than H2's default lock timeout allows
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:reservations;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1")
+@Import({ProductService.class, StockReservationConcurrencyTest.StatementCounting.class})
+class StockReservationConcurrencyTest {
+
+    // Counted on the connection, so the JdbcTemplate statements that Hibernate statistics miss are included
+    @TestConfiguration
+    static class StatementCounting {
+        @Bean
+        static StatementCounter statementCounter() {
+            return new StatementCounter();
+        }
+    }
+
+    static class StatementCounter implements BeanPostProcessor {
+
+        private final AtomicLong prepared = new AtomicLong();
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource)) {
+                return bean;
+            }
+            return new DelegatingDataSource(dataSource) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    return counting(super.getConnection());
+                }
+
+                @Override
+                public Connection getConnection(String username, String password) throws SQLException {
+                    return counting(super.getConnection(username, password));
+                }
+            };
+        }
+
+        long prepared() {
+            return prepared.get();
+        }
+
+        void reset() {
+            prepared.set(0);
+        }
+
+        private Connection counting(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().startsWith("prepare") || method.getName().equals("createStatement")) {
+                            prepared.incrementAndGet();
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+
+    private static final int STOCK = 500;
+    private static final int ORDERS = 2_000;
+    private static final long BUYER = 7L;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Test
+    void parallelReservationsNeverOversell() throws Exception {
+        Product product = productRepository.save(Product.builder()
+                .name("Hot item")
+                .price(new BigDecimal("19.99"))
+                .stockQuantity(STOCK)
+                .sellerId(1L)
+                .build());
+
+        statementCounter.reset();
+
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < ORDERS; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    productService.reserveStock(UUID.randomUUID().toString(), BUYER, List.of(reservation(product.getId(), 1)));
+                    reserved.incrementAndGet();
+                } catch (InsufficientStockException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        assertThat(reserved.get()).isEqualTo(STOCK);
+        assertThat(rejected.get()).isEqualTo(ORDERS - STOCK);
+        assertThat(productRepository.findById(product.getId()).orElseThrow().getStockQuantity()).isZero();
+
+        // Every order claims its reservation id and runs one conditional UPDATE, with no read-modify-write.
+        // A reservation then batches its items and reads the products back; a rejection reads the product
+        // for its error message
+        long expected = 4L * STOCK + 3L * (ORDERS - STOCK);
+        assertThat(statementCounter.prepared()).isEqualTo(expected);
+    }
+
+    @Test
+    void aRetriedReservationTakesTheStockOnce() {
+        Product product = product(10);
+
+        productService.reserveStock("order-1", BUYER, List.of(reservation(product.getId(), 3)));
+        List<StockReservationResponse> replayed = productService.reserveStock("order-1", BUYER, List.of(reservation(product.getId(), 3)));
+
+        assertThat(replayed).extracting(StockReservationResponse::getQuantity).containsExactly(3);
+        assertThat(stock(product)).isEqualTo(7);
+        assertThatThrownBy(() -> productService.reserveStock("order-1", 8L, List.of(reservation(product.getId(), 3))))
+                .isInstanceOf(ReservationConflictException.class);
+    }
+
+    @Test
+    void aReleaseReturnsWhatWasReservedOnlyOnce() {
+        Product product = product(10);
+        productService.reserveStock("order-2", BUYER, List.of(reservation(product.getId(), 4)));
+
+        productService.releaseStock(List.of("order-2", "order-2"));
+        productService.releaseStock(List.of("order-2"));
+
+        assertThat(stock(product)).isEqualTo(10);
+    }
+
+    @Test
+    void aReleaseThatOvertakesItsReservationStopsItTakingStock() {
+        Product product = product(10);
+
+        productService.releaseStock(List.of("order-3"));
+
+        assertThatThrownBy(() -> productService.reserveStock("order-3", BUYER, List.of(reservation(product.getId(), 2))))
+                .isInstanceOf(ReservationConflictException.class);
+        assertThat(stock(product)).isEqualTo(10);
+    }
+
+    @Test
+    void aFailedReservationLeavesNoTrace() {
+        Product product = product(1);
+
+        assertThatThrownBy(() -> productService.reserveStock("order-4", BUYER, List.of(reservation(product.getId(), 2))))
+                .isInstanceOf(InsufficientStockException.class);
+        productService.reserveStock("order-4", BUYER, List.of(reservation(product.getId(), 1)));
+
+        assertThat(stock(product)).isZero();
+    }
+
+    private Product product(int stock) {
+        return productRepository.save(Product.builder()
+                .name("Lamp")
+                .price(new BigDecimal("19.99"))
+                .stockQuantity(stock)
+                .sellerId(1L)
+                .build());
+    }
+
+    private int stock(Product product) {
+        return productRepository.findById(product.getId()).orElseThrow().getStockQuantity();
+    }
+
+    private static StockReservationRequest reservation(Long productId, int quantity) {
+        StockReservationRequest request = new StockReservationRequest();
+        request.setProductId(productId);
+        request.setQuantity(quantity);
+        return request;
+    }
+}
@@ -0,0 +1,50 @@
+package com.femi.userservice.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends connections for {@code @Transactional(readOnly = true)} work to the replica and everything
+ * else to the primary. It must sit behind a LazyConnectionDataSourceProxy so the physical connection
+ * is only fetched once the transaction's read-only flag is known.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target { PRIMARY, REPLICA }
+
+    private final ReplicationLagMonitor lagMonitor;
+    private final Counter primaryCounter;
+    private final Counter replicaCounter;
+    private final Counter fallbackCounter;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicationLagMonitor lagMonitor,
+                                    MeterRegistry meterRegistry) {
+        this.lagMonitor = lagMonitor;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+
+        this.primaryCounter = meterRegistry.counter("datasource.routing.connections", "target", "primary", "fallback", "false");
+        this.replicaCounter = meterRegistry.counter("datasource.routing.connections", "target", "replica", "fallback", "false");
+        this.fallbackCounter = meterRegistry.counter("datasource.routing.connections", "target", "primary", "fallback", "true");
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            primaryCounter.increment();
+            return Target.PRIMARY;
+        }
+        if (!lagMonitor.isReplicaUsable()) {
+            fallbackCounter.increment();
+            return Target.PRIMARY;
+        }
+        replicaCounter.increment();
+        return Target.REPLICA;
+    }
+}